@@ -0,0 +1,100 @@
+package puzzle;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks of hashing and comparing random 15-puzzles, as
+ * {@link puzzle.State} objects and as packed boards in a {@link ClosedSet}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class HashingBenchmark {
+
+	private puzzle.State[] states;
+	private puzzle.State[] copies;				// Equal states that are other objects
+	private long[][] boards;
+	private ClosedSet filled;					// Set holding every board
+	private int next;							// Number of the next board to use
+
+	/**
+	 * Generates the boards, with the same seed every time.
+	 */
+	@Setup
+	public void setUp() {
+		Random random = new Random(1);
+		states = new puzzle.State[StateBenchmark.BOARDS];
+		copies = new puzzle.State[StateBenchmark.BOARDS];
+		boards = new long[StateBenchmark.BOARDS][];
+		filled = new ClosedSet(4);
+		for (int i = 0; i < StateBenchmark.BOARDS; ++i) {
+			int[][] numbers = PuzzleGenerator.uniform(4, random);
+			states[i] = puzzle.State.of(numbers);
+			copies[i] = puzzle.State.of(numbers);
+			boards[i] = states[i].getBoard();
+			filled.add(boards[i], i, null);
+		}
+	}
+
+	/**
+	 * Hashes a state.
+	 *
+	 * @return hash code
+	 */
+	@Benchmark
+	public int hash() {
+		return states[next++ & StateBenchmark.MASK].hashCode();
+	}
+
+	/**
+	 * Compares a state with an equal copy, so every word is compared.
+	 *
+	 * @return true
+	 */
+	@Benchmark
+	public boolean equal() {
+		int i = next++ & StateBenchmark.MASK;
+		return states[i].equals(copies[i]);
+	}
+
+	/**
+	 * Adds every board to a new closed set, so growing its table is part of
+	 * the cost of each add.
+	 *
+	 * @param blackhole sink for the results of the adds
+	 */
+	@Benchmark
+	@OperationsPerInvocation(StateBenchmark.BOARDS)
+	public void add(Blackhole blackhole) {
+		ClosedSet set = new ClosedSet(4);
+		for (int i = 0; i < boards.length; ++i)
+			blackhole.consume(set.add(boards[i], i, null));
+	}
+
+	/**
+	 * Looks up a board held by a closed set.
+	 *
+	 * @return moves stored with the board
+	 */
+	@Benchmark
+	public int get() {
+		return filled.get(boards[next++ & StateBenchmark.MASK]);
+	}
+}
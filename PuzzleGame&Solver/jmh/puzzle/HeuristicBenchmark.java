@@ -0,0 +1,65 @@
+package puzzle;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of estimating random 15-puzzles from scratch with each
+ * heuristic.  Every heuristic runs in its own forks, so the call to
+ * {@link Heuristic#estimate(long[])} is only ever made on one class.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class HeuristicBenchmark {
+
+	/**
+	 * Heuristic to estimate with (see {@link Heuristic#forName(String, int)}).
+	 */
+	@Param({ "manhattan", "linear", "walking" })
+	public String heuristic;
+
+	private Heuristic estimate;
+	private long[][] boards;
+	private int next;							// Number of the next board to use
+
+	/**
+	 * Generates the boards, with the same seed every time.
+	 *
+	 * @throws IOException if the heuristic cannot be loaded
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		estimate = Heuristic.forName(heuristic, 4);
+		Random random = new Random(1);
+		boards = new long[StateBenchmark.BOARDS][];
+		for (int i = 0; i < boards.length; ++i)
+			boards[i] = puzzle.State.of(PuzzleGenerator.uniform(4, random)).getBoard();
+	}
+
+	/**
+	 * Estimates the cost of a board.
+	 *
+	 * @return estimate
+	 */
+	@Benchmark
+	public int estimate() {
+		return estimate.estimate(boards[next++ & StateBenchmark.MASK]);
+	}
+}
@@ -0,0 +1,143 @@
+package puzzle;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmark of whole solves, where one operation solves every puzzle of
+ * a fixed corpus once.  The corpora are generated with fixed seeds, so every
+ * run measures the same puzzles:
+ * <ul>
+ * <li>"8-puzzle": 100 uniformly random 8-puzzles
+ * <li>"15-puzzle": 10 15-puzzles 60 random moves from solved
+ * <li>"24-puzzle": 5 24-puzzles 40 random moves from solved
+ * </ul>
+ * Korf's 100 15-puzzles are solved by giving "korf:" followed by the name
+ * of a file of them as the corpus (see {@link #loadKorf(Path)}), as in
+ * {@code -p corpus=korf:korf100.txt}.  The search is named by a mode and a
+ * heuristic, as on the command line of {@link Solver#main(String[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolveBenchmark {
+
+	/**
+	 * Puzzles to solve.
+	 */
+	@Param({ "8-puzzle", "15-puzzle", "24-puzzle" })
+	public String corpus;
+
+	/**
+	 * Search mode (see {@link Solver#main(String[])}).
+	 */
+	@Param({ "ida" })
+	public String mode;
+
+	/**
+	 * Heuristic (see {@link Heuristic#forName(String, int)}).
+	 */
+	@Param({ "linear" })
+	public String heuristic;
+
+	private puzzle.State[] states;
+	private Search search;
+
+	/**
+	 * Generates or reads the puzzles and creates the search.
+	 *
+	 * @throws IOException if the Korf file or the heuristic cannot be read
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		List<int[][]> boards = new ArrayList<>();
+		if (corpus.startsWith("korf:"))
+			boards = loadKorf(Paths.get(corpus.substring("korf:".length())));
+		else {
+			switch (corpus) {
+			case "8-puzzle":
+				Random random = new Random(3);
+				for (int i = 0; i < 100; ++i)
+					boards.add(PuzzleGenerator.uniform(3, random));
+				break;
+			case "15-puzzle":
+				random = new Random(4);
+				for (int i = 0; i < 10; ++i)
+					boards.add(PuzzleGenerator.walk(4, 60, random));
+				break;
+			case "24-puzzle":
+				random = new Random(5);
+				for (int i = 0; i < 5; ++i)
+					boards.add(PuzzleGenerator.walk(5, 40, random));
+				break;
+			default: throw new IllegalArgumentException("Unknown corpus " + corpus);
+			}
+		}
+		states = new puzzle.State[boards.size()];
+		for (int i = 0; i < states.length; ++i)
+			states[i] = puzzle.State.of(boards.get(i));
+		search = Solver.search(mode, heuristic, states[0].getSize());
+	}
+
+	/**
+	 * Solves every puzzle of the corpus.
+	 *
+	 * @param blackhole sink for the solutions
+	 */
+	@Benchmark
+	public void solve(Blackhole blackhole) {
+		for (puzzle.State state : states)
+			blackhole.consume(search.solve(state));
+	}
+
+	/**
+	 * Reads 15-puzzles in the format of Korf's 100 instances, one per line
+	 * with the tiles row by row after an optional instance number.  In that
+	 * format, 0 is the blank tile and the solved puzzle has it in the top
+	 * left corner with tile t at position t.  Turning such a puzzle upside
+	 * down and renumbering tile t as 16 - t gives a puzzle that needs the
+	 * same number of moves to reach the solved puzzle of {@link Puzzle}.
+	 *
+	 * @param file file to read
+	 * @return tile numbers, 0 for the blank tile
+	 * @throws IOException if the file cannot be read
+	 */
+	static List<int[][]> loadKorf(Path file) throws IOException {
+		List<int[][]> boards = new ArrayList<>();
+		for (String line : Files.readAllLines(file)) {
+			String[] values = line.trim().split("\\s+");
+			if (values.length < 16)
+				continue;
+			int[][] numbers = new int[4][4];
+			for (int position = 0; position < 16; ++position) {
+				int tile = Integer.parseInt(values[values.length - 16 + position]);
+				int turned = 15 - position;
+				numbers[turned / 4][turned % 4] = tile == 0 ? 0 : 16 - tile;
+			}
+			boards.add(numbers);
+		}
+		return boards;
+	}
+}
@@ -0,0 +1,81 @@
+package puzzle;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of {@link puzzle.State#move(Direction, Heuristic)} on random
+ * 15-puzzles, with the heuristic estimate updated incrementally.  Each call
+ * works on the next of a fixed set of boards, so branches are not predicted
+ * from one board repeated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class StateBenchmark {
+
+	static final int BOARDS = 1024;				// Boards cycled through, a power of two
+	static final int MASK = BOARDS - 1;
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/**
+	 * Heuristic updated by each move (see
+	 * {@link Heuristic#forName(String, int)}).
+	 */
+	@Param({ "manhattan", "linear" })
+	public String heuristic;
+
+	private Heuristic estimate;
+	private puzzle.State[] states;
+	private Direction[] moves;					// A legal move from each state
+	private int next;							// Number of the next board to use
+
+	/**
+	 * Generates the boards, with the same seed every time.
+	 *
+	 * @throws IOException if the heuristic cannot be loaded
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		estimate = Heuristic.forName(heuristic, 4);
+		Random random = new Random(1);
+		states = new puzzle.State[BOARDS];
+		moves = new Direction[BOARDS];
+		for (int i = 0; i < BOARDS; ++i) {
+			// Estimated with the heuristic, as incremental updates need
+			puzzle.State state = puzzle.State.of(PuzzleGenerator.uniform(4, random));
+			states[i] = new puzzle.State(state.getBoard(), 4, estimate, state.getBlankRow(), state.getBlankColumn());
+			Direction direction = DIRECTIONS[i & 3];
+			while (!states[i].canMove(direction))
+				direction = DIRECTIONS[(direction.ordinal() + 1) & 3];
+			moves[i] = direction;
+		}
+	}
+
+	/**
+	 * Makes a move, updating the heuristic estimate.
+	 *
+	 * @return new state
+	 */
+	@Benchmark
+	public puzzle.State move() {
+		int i = next++ & MASK;
+		return states[i].move(moves[i], estimate);
+	}
+}
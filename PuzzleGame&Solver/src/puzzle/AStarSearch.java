@@ -0,0 +1,140 @@
+package puzzle;
+
+/**
+ * A* search, which always expands the {@link State} with the lowest number of
+ * moves made plus estimated cost, preferring states with more moves made on
+ * ties.  Solutions are optimal as long as the heuristic never overestimates
+ * and never drops by more than one per move, which holds for every heuristic
+ * in this package.
+ * <p>
+ * A weight above one makes it weighted A*, which multiplies the estimated
+ * cost by the weight.  It then favors states that look close to a solution
+ * over ones reached in few moves, expanding far fewer states on large
+ * puzzles, and the solutions it finds are at most weight times as long as
+ * optimal ones.  The priorities stay integers by scaling both terms by the
+ * denominator of the weight as a fraction.
+ */
+class AStarSearch implements Search {
+
+	private final Heuristic heuristic;		// Heuristic, or null for Manhattan distance
+	private final long memoryLimit;			// Most bytes of states and visited boards to keep
+	private final int moveFactor;			// Denominator of the weight, multiplying moves made
+	private final int costFactor;			// Numerator of the weight, multiplying estimated cost
+
+	/**
+	 * Constructor for a search using Manhattan distance.
+	 */
+	AStarSearch() {
+		this(null);
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic.
+	 *
+	 * @param heuristic heuristic for the size of the puzzles to solve
+	 */
+	AStarSearch(Heuristic heuristic) {
+		this(heuristic, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic that gives up rather
+	 * than hold more than a given amount of memory.
+	 *
+	 * @param heuristic   heuristic for the size of the puzzles to solve
+	 * @param memoryLimit approximate number of bytes the search may use
+	 */
+	AStarSearch(Heuristic heuristic, long memoryLimit) {
+		this(heuristic, 1, memoryLimit);
+	}
+
+	/**
+	 * Constructor for weighted A* using the given heuristic.
+	 *
+	 * @param heuristic   heuristic for the size of the puzzles to solve
+	 * @param weight      factor of the estimated cost, at least 1, rounded
+	 *                    down to hundredths
+	 * @param memoryLimit approximate number of bytes the search may use
+	 * @throws IllegalArgumentException if the weight is below 1
+	 */
+	AStarSearch(Heuristic heuristic, double weight, long memoryLimit) {
+		if (!(weight >= 1))
+			throw new IllegalArgumentException("Weight must be at least 1!");
+		this.heuristic = heuristic;
+		this.memoryLimit = memoryLimit;
+		int[] fraction = fraction(weight);
+		costFactor = fraction[0];
+		moveFactor = fraction[1];
+	}
+
+	/**
+	 * Writes a weight as a fraction in lowest terms, rounded down to
+	 * hundredths so the bound it gives still holds.
+	 *
+	 * @param weight weight of at least 1
+	 * @return numerator and denominator
+	 */
+	static int[] fraction(double weight) {
+		int numerator = (int) Math.floor(Math.min(weight, 1000) * 100 + 1e-9);
+		int denominator = 100;
+		// Divide both by their greatest common divisor, found by Euclid's algorithm
+		int divisor = numerator;
+		for (int other = denominator; other != 0; ) {
+			int remainder = divisor % other;
+			divisor = other;
+			other = remainder;
+		}
+		numerator /= divisor;
+		denominator /= divisor;
+		return new int[] { numerator, denominator };
+	}
+
+	@Override
+	public Solution solve(State startingState) {
+		int size = startingState.getSize();
+		Heuristic heuristic = this.heuristic == null ? ManhattanDistance.forSize(size) : this.heuristic;
+		if (heuristic.getSize() != size)
+			throw new IllegalArgumentException("Heuristic is for a different puzzle size!");
+		State start = new State(startingState.getBoard(), size, heuristic,
+				startingState.getBlankRow(), startingState.getBlankColumn());
+
+		BucketQueue<State> open = new BucketQueue<>();
+		open.add(start, costFactor * start.getCost(), 0);
+		// Fewest moves found to each board generated so far
+		ClosedSet seen = new ClosedSet(size);
+		seen.put(start.getBoard(), 0, null);
+		long stateBytes = State.bytes(size);
+		SearchStatistics statistics = new SearchStatistics(moveFactor == costFactor ? "A*" : "weighted A*");
+
+		while (!open.isEmpty()) {
+			State state = open.remove();
+			// Skip states that were reached again in fewer moves after being added
+			if (seen.get(state.getBoard()) < state.getDepth())
+				continue;
+			if (state.isSolved())
+				return new Solution(seen.path(state.getBoard()), statistics.finish(state.getDepth()));
+			// Without weight, the lowest total still open bounds every solution
+			if (moveFactor == costFactor)
+				statistics.bound(state.getDepth() + state.getCost());
+			statistics.expanded(state.getCost(), open.size(), seen.size());
+			// States are only held by the queue, and their paths by the closed set
+			if (open.size() * stateBytes + seen.bytes() > memoryLimit) {
+				statistics.finish(-1);
+				throw new SearchAbortedException("Memory limit of " + memoryLimit + " bytes exceeded");
+			}
+			for (Direction direction : Direction.values()) {
+				if (state.canMove(direction) && !state.isReverse(direction)) {
+					State next = state.move(direction, heuristic);
+					statistics.generated();
+					if (seen.put(next.getBoard(), next.getDepth(), direction))
+						open.add(next, moveFactor * next.getDepth() + costFactor * next.getCost(), next.getDepth());
+					else
+						statistics.duplicate();
+				}
+			}
+		}
+		//No solution was found
+		statistics.finish(-1);
+		return null;
+	}
+}
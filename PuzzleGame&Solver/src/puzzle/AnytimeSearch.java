@@ -0,0 +1,188 @@
+package puzzle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Anytime repairing A* (ARA*), which finds a first solution quickly with
+ * weighted A* and then keeps lowering the weight to find better ones until
+ * the time budget runs out or the solution is known to be optimal.
+ * <p>
+ * Each pass after the first reuses the work of the earlier ones: the moves
+ * found to every board are kept, and a pass only expands a state again if
+ * it was reached in fewer moves since it was last expanded.  States reached
+ * in fewer moves after being expanded in the current pass are set aside
+ * until the next one, so each pass still finds a solution at most its
+ * weight times as long as optimal.  States that cannot lead to a shorter
+ * solution than the best one found are never expanded.
+ * <p>
+ * The budget is checked every {@value #CHECK_INTERVAL} expansions.  If no
+ * solution has been found when it runs out, the first pass is finished
+ * anyway, so a solution is always returned for a solvable puzzle unless
+ * the memory limit is reached first.  Reaching the memory limit after a
+ * solution was found ends the search like running out of time does.
+ */
+class AnytimeSearch implements Search {
+
+	private static final int CHECK_INTERVAL = 1024;
+	private static final double DEFAULT_WEIGHT = 3;
+	private static final double DEFAULT_STEP = 0.5;
+
+	private final Heuristic heuristic;		// Heuristic, or null for Manhattan distance
+	private final double weight;			// Weight of the first pass
+	private final double step;				// Amount the weight is lowered by after each pass
+	private final long budget;				// Nanoseconds to keep improving the solution
+	private final long memoryLimit;			// Most bytes of states and visited boards to keep
+
+	/**
+	 * Constructor for a search using Manhattan distance that starts with a
+	 * weight of 3 and lowers it by 0.5 after each pass.
+	 *
+	 * @param budget time to keep improving the solution
+	 */
+	AnytimeSearch(Duration budget) {
+		this(null, budget);
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic that starts with a
+	 * weight of 3 and lowers it by 0.5 after each pass.
+	 *
+	 * @param heuristic heuristic for the size of the puzzles to solve
+	 * @param budget    time to keep improving the solution
+	 */
+	AnytimeSearch(Heuristic heuristic, Duration budget) {
+		this(heuristic, DEFAULT_WEIGHT, DEFAULT_STEP, budget, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic and weights that
+	 * stops rather than hold more than a given amount of memory.
+	 *
+	 * @param heuristic   heuristic for the size of the puzzles to solve
+	 * @param weight      weight of the estimated cost in the first pass, at
+	 *                    least 1
+	 * @param step        amount to lower the weight by after each pass, down
+	 *                    to 1
+	 * @param budget      time to keep improving the solution
+	 * @param memoryLimit approximate number of bytes the search may use
+	 * @throws IllegalArgumentException if the weight is below 1 or the step
+	 *                                  is not positive
+	 */
+	AnytimeSearch(Heuristic heuristic, double weight, double step, Duration budget, long memoryLimit) {
+		if (!(weight >= 1) || !(step > 0))
+			throw new IllegalArgumentException("Weight must be at least 1 and step positive!");
+		this.heuristic = heuristic;
+		this.weight = weight;
+		this.step = step;
+		this.budget = budget.toNanos();
+		this.memoryLimit = memoryLimit;
+	}
+
+	@Override
+	public Solution solve(State startingState) {
+		long deadline = System.nanoTime() + budget;
+		int size = startingState.getSize();
+		Heuristic heuristic = this.heuristic == null ? ManhattanDistance.forSize(size) : this.heuristic;
+		if (heuristic.getSize() != size)
+			throw new IllegalArgumentException("Heuristic is for a different puzzle size!");
+		State start = new State(startingState.getBoard(), size, heuristic,
+				startingState.getBlankRow(), startingState.getBlankColumn());
+
+		double weight = this.weight;
+		int[] fraction = AStarSearch.fraction(weight);
+		BucketQueue<State> open = new BucketQueue<>();
+		open.add(start, fraction[0] * start.getCost(), 0);
+		// Fewest moves found to each board generated so far, across passes
+		ClosedSet seen = new ClosedSet(size);
+		seen.put(start.getBoard(), 0, null);
+		// Boards expanded in the current pass, and states reached in fewer moves after that,
+		// which are expanded again right away once there is no weight
+		ClosedSet expanded = new ClosedSet(size);
+		List<State> inconsistent = new ArrayList<>();
+		State best = null;
+		int bestLength = Integer.MAX_VALUE;
+		long stateBytes = State.bytes(size);
+		SearchStatistics statistics = new SearchStatistics("ARA*");
+
+		while (true) {
+			// The pass ends once no state in the queue can beat the best solution at this weight
+			while (!open.isEmpty() && (best == null || open.getMinimum() < fraction[1] * bestLength)) {
+				State state = open.remove();
+				// Skip states that were reached again in fewer moves after being added
+				if (seen.get(state.getBoard()) < state.getDepth())
+					continue;
+				if (state.getDepth() + state.getCost() >= bestLength)
+					continue;
+				if (state.isSolved()) {
+					best = state;
+					bestLength = state.getDepth();
+					continue;
+				}
+				statistics.expanded(state.getCost(), open.size(), seen.size());
+				if (statistics.getExpanded() % CHECK_INTERVAL == 0) {
+					long states = open.size() + inconsistent.size();
+					boolean full = states * stateBytes + seen.bytes() + expanded.bytes() > memoryLimit;
+					if (best != null && (full || System.nanoTime() > deadline))
+						return solution(seen, best, statistics);
+					if (full) {
+						statistics.finish(-1);
+						throw new SearchAbortedException("Memory limit of " + memoryLimit + " bytes exceeded");
+					}
+				}
+				expanded.add(state.getBoard(), state.getDepth(), null);
+				for (Direction direction : Direction.values()) {
+					if (state.canMove(direction) && !state.isReverse(direction)) {
+						State next = state.move(direction, heuristic);
+						statistics.generated();
+						if (next.getDepth() + next.getCost() >= bestLength)
+							continue;
+						if (!seen.put(next.getBoard(), next.getDepth(), direction))
+							statistics.duplicate();
+						else if (best != null && fraction[0] != fraction[1] && expanded.contains(next.getBoard()))
+							inconsistent.add(next);
+						else
+							open.add(next, fraction[1] * next.getDepth() + fraction[0] * next.getCost(), next.getDepth());
+					}
+				}
+			}
+			// A pass without weight only stops early for states that cannot beat the best solution
+			if (best == null || fraction[0] == fraction[1] || System.nanoTime() > deadline)
+				break;
+
+			// Start the next pass with a lower weight, from every state still waiting
+			weight = Math.max(1, weight - step);
+			fraction = AStarSearch.fraction(weight);
+			BucketQueue<State> waiting = open;
+			open = new BucketQueue<>();
+			while (!waiting.isEmpty())
+				inconsistent.add(waiting.remove());
+			for (State state : inconsistent)
+				if (seen.get(state.getBoard()) == state.getDepth())
+					open.add(state, fraction[1] * state.getDepth() + fraction[0] * state.getCost(), state.getDepth());
+			inconsistent.clear();
+			expanded.clear();
+		}
+		if (best == null) {
+			statistics.finish(-1);
+			return null;
+		}
+		return solution(seen, best, statistics);
+	}
+
+	/**
+	 * Creates the solution reaching the best solved state.  Boards on its
+	 * path may have been reached in fewer moves since, which the path follows
+	 * instead, so it can be shorter than the state's number of moves.
+	 *
+	 * @param seen       fewest moves found to each board
+	 * @param best       best solved state
+	 * @param statistics statistics of the search
+	 * @return solution
+	 */
+	private static Solution solution(ClosedSet seen, State best, SearchStatistics statistics) {
+		List<Direction> moves = seen.path(best.getBoard());
+		return new Solution(moves, statistics.finish(moves.size()));
+	}
+}
@@ -0,0 +1,136 @@
+package puzzle;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class to hold the outcome of solving one puzzle of a batch with a
+ * {@link BatchSolver}.
+ */
+public final class BatchResult {
+
+	/**
+	 * Enum values for how solving a puzzle ended.
+	 */
+	public enum Status {
+		/** A solution was found. */
+		SOLVED,
+		/** The search finished without finding a solution. */
+		UNSOLVABLE,
+		/** The search gave up, for example on reaching its memory limit. */
+		ABORTED,
+		/** The puzzle was malformed or the search failed. */
+		FAILED
+	}
+
+	private final long index;			// Position of the puzzle in the batch
+	private final Status status;
+	private final Solution solution;	// Null unless solved
+	private final long elapsed;			// Nanoseconds spent solving
+	private final String message;		// Reason for stopping, null unless aborted or failed
+
+	/**
+	 * Constructor for a result.
+	 *
+	 * @param index    position of the puzzle in the batch
+	 * @param status   how solving ended
+	 * @param solution solution, null unless solved
+	 * @param elapsed  nanoseconds spent solving
+	 * @param message  reason for stopping, null unless aborted or failed
+	 */
+	BatchResult(long index, Status status, Solution solution, long elapsed, String message) {
+		this.index = index;
+		this.status = status;
+		this.solution = solution;
+		this.elapsed = elapsed;
+		this.message = message;
+	}
+
+	/**
+	 * Accessor for the position of the puzzle in the batch, counting from 0.
+	 *
+	 * @return index of the puzzle
+	 */
+	public long getIndex() {
+		return index;
+	}
+
+	/**
+	 * Accessor for how solving ended.
+	 *
+	 * @return status
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Accessor for the solution.
+	 *
+	 * @return solution, or null unless solved
+	 */
+	public Solution getSolution() {
+		return solution;
+	}
+
+	/**
+	 * Accessor for the moves that solve the puzzle.
+	 *
+	 * @return moves, or an empty list unless solved
+	 */
+	public List<Direction> getMoves() {
+		return solution == null ? Collections.emptyList() : solution.getMoves();
+	}
+
+	/**
+	 * Accessor for the number of moves that solve the puzzle.
+	 *
+	 * @return number of moves, or -1 unless solved
+	 */
+	public int getLength() {
+		return solution == null ? -1 : solution.length();
+	}
+
+	/**
+	 * Accessor for the number of states expanded while searching.
+	 *
+	 * @return number of expanded states, or 0 unless solved
+	 */
+	public long getNodesExpanded() {
+		return solution == null ? 0 : solution.getNodesExpanded();
+	}
+
+	/**
+	 * Accessor for the time spent solving.
+	 *
+	 * @return elapsed nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsed;
+	}
+
+	/**
+	 * Accessor for the reason solving stopped early.
+	 *
+	 * @return reason, or null unless aborted or failed
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder();
+		output.append(index).append(' ').append(status);
+		if (solution != null)
+			output.append(' ').append(solution.length()).append(" moves, ")
+					.append(solution.getNodesExpanded()).append(" expanded");
+		output.append(String.format(", %.3f ms", elapsed / 1e6));
+		if (message != null)
+			output.append(": ").append(message);
+		return output.toString();
+	}
+}
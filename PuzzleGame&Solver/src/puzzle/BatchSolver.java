@@ -0,0 +1,225 @@
+package puzzle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Class to solve many puzzles at once, one per core.
+ * <p>
+ * Puzzles are given as square arrays of tile numbers laid out as on the
+ * buttons of a {@link Puzzle}, with 0 for the blank tile.  Each is solved
+ * with the same {@link Search} on a {@link ForkJoinPool}; searches are
+ * stateless, so the memory limit of the search (see
+ * {@link AStarSearch#AStarSearch(Heuristic, long)}) applies to each puzzle
+ * separately.  The search is named by a mode and a heuristic, as on the
+ * command line of {@link Solver#main(String[])}.  Modes that keep a memory
+ * limit and are not given one, such as "astar" and "weighted", share half
+ * of the heap between the threads, so a puzzle that needs more is
+ * {@linkplain BatchResult.Status#ABORTED aborted} before the others run
+ * out of memory.
+ */
+public class BatchSolver implements AutoCloseable {
+
+	private final Search search;
+	private final int threads;
+	private final ExecutorService pool;
+	private volatile double throughput;		// Puzzles per second in the last batch
+
+	/**
+	 * Constructor for a solver using one thread per available core.
+	 *
+	 * @param mode      search mode, such as "ida" or "memory:256",
+	 *                  optionally followed by a colon and its parameter (see
+	 *                  {@link Solver#main(String[])})
+	 * @param heuristic name of the heuristic (see
+	 *                  {@link Heuristic#forName(String, int)}), or null for
+	 *                  Manhattan distance
+	 * @param size      number of rows and columns of the puzzles to solve
+	 * @throws IOException if the pattern databases or distance table cannot
+	 *                     be read
+	 */
+	public BatchSolver(String mode, String heuristic, int size) throws IOException {
+		this(mode, heuristic, size, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor for a solver using a given number of threads.
+	 *
+	 * @param mode      search mode, optionally followed by a colon and its
+	 *                  parameter (see {@link Solver#main(String[])})
+	 * @param heuristic name of the heuristic (see
+	 *                  {@link Heuristic#forName(String, int)}), or null for
+	 *                  Manhattan distance
+	 * @param size      number of rows and columns of the puzzles to solve
+	 * @param threads   number of puzzles to solve at the same time
+	 * @throws IOException if the pattern databases or distance table cannot
+	 *                     be read
+	 */
+	public BatchSolver(String mode, String heuristic, int size, int threads) throws IOException {
+		this(Solver.search(mode, heuristic, size, Solver.memoryPerSearch(threads)), threads);
+	}
+
+	/**
+	 * Constructor for a solver using one thread per available core.
+	 *
+	 * @param search search used to solve each puzzle
+	 */
+	BatchSolver(Search search) {
+		this(search, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor for a solver using a given number of threads.
+	 *
+	 * @param search  search used to solve each puzzle
+	 * @param threads number of puzzles to solve at the same time
+	 */
+	BatchSolver(Search search, int threads) {
+		this.search = search;
+		this.threads = threads;
+		pool = new ForkJoinPool(threads);
+	}
+
+	/**
+	 * Solves every puzzle of a stream and waits for all of them.
+	 *
+	 * @param boards puzzles to solve
+	 * @return results in the same order as the puzzles
+	 */
+	public List<BatchResult> solveAll(Stream<int[][]> boards) {
+		List<BatchResult> results = new ArrayList<>();
+		solve(boards.iterator(), results::add);
+		results.sort((first, second) -> Long.compare(first.getIndex(), second.getIndex()));
+		return results;
+	}
+
+	/**
+	 * Solves puzzles as they are read from an iterator, handing each result to
+	 * a consumer as soon as it is ready.  At most a few puzzles per thread are
+	 * read ahead of the ones being solved, so the iterator can stream from a
+	 * source too big to hold in memory.  The consumer is called on the calling
+	 * thread, in the order the puzzles finish.
+	 *
+	 * @param boards  puzzles to solve
+	 * @param results consumer of results
+	 * @return number of puzzles solved
+	 */
+	public long solve(Iterator<int[][]> boards, Consumer<BatchResult> results) {
+		long[] count = new long[1];
+		return solve(boards, () -> count[0]++, results);
+	}
+
+	/**
+	 * Solves puzzles as they are read from an iterator, as
+	 * {@link #solve(Iterator, Consumer)} does, but with the index of each
+	 * result given by the caller, as when some puzzles of a file are skipped.
+	 * If the calling thread is interrupted, no more puzzles are read and the
+	 * method returns without waiting for the ones being solved.
+	 *
+	 * @param boards  puzzles to solve
+	 * @param indices supplier of the index of the puzzle just read
+	 * @param results consumer of results
+	 * @return number of puzzles read
+	 */
+	public long solve(Iterator<int[][]> boards, LongSupplier indices, Consumer<BatchResult> results) {
+		CompletionService<BatchResult> completion = new ExecutorCompletionService<>(pool);
+		int limit = threads * 4;
+		int pending = 0;
+		long read = 0;
+		long start = System.nanoTime();
+		try {
+			while (boards.hasNext() || pending > 0) {
+				// Keep every thread busy with a few more puzzles queued behind it
+				while (pending < limit && boards.hasNext()) {
+					int[][] board = boards.next();
+					long current = indices.getAsLong();
+					completion.submit(() -> solve(current, board));
+					pending++;
+					read++;
+				}
+				results.accept(completion.take().get());
+				pending--;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		long elapsed = System.nanoTime() - start;
+		throughput = elapsed == 0 ? 0 : read * 1e9 / elapsed;
+		return read;
+	}
+
+	/**
+	 * Accessor for the throughput of the last batch.
+	 *
+	 * @return puzzles solved per second
+	 */
+	public double getThroughput() {
+		return throughput;
+	}
+
+	/**
+	 * Shuts down the threads once the puzzles being solved are finished.
+	 */
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Solves one puzzle, turning every outcome into a result.
+	 *
+	 * @param index position of the puzzle in the batch
+	 * @param board tile numbers, 0 for the blank tile
+	 * @return result
+	 */
+	private BatchResult solve(long index, int[][] board) {
+		long start = System.nanoTime();
+		try {
+			State state = State.of(board);
+			// Unsolvable puzzles are rejected without searching the half of the states reachable from them
+			Solution solution = state.isSolvable() ? search.solve(state) : null;
+			BatchResult.Status status = solution == null ? BatchResult.Status.UNSOLVABLE : BatchResult.Status.SOLVED;
+			return new BatchResult(index, status, solution, System.nanoTime() - start, null);
+		} catch (SearchAbortedException e) {
+			return new BatchResult(index, BatchResult.Status.ABORTED, null, System.nanoTime() - start, e.getMessage());
+		} catch (RuntimeException | OutOfMemoryError e) {
+			return new BatchResult(index, BatchResult.Status.FAILED, null, System.nanoTime() - start, e.toString());
+		}
+	}
+
+	/**
+	 * Method that solves a batch of random 15-puzzles and prints the results.
+	 * The first argument is the number of puzzles (default 100) and the
+	 * second the number of random moves used to scramble each one (default
+	 * 60).
+	 *
+	 * @param args command line arguments for count and scramble length
+	 * @throws IOException if the heuristic cannot be loaded
+	 */
+	public static void main(String[] args) throws IOException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int moves = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+		Random random = new Random();
+		List<int[][]> boards = Stream.generate(() -> PuzzleGenerator.walk(4, moves, random)).limit(count).collect(Collectors.toList());
+		try (BatchSolver solver = new BatchSolver("ida", "linear", 4)) {
+			for (BatchResult result : solver.solveAll(boards.stream()))
+				System.out.println(result);
+			System.out.printf("%d puzzles at %.1f puzzles per second%n", count, solver.getThroughput());
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test {@link BatchSolver} functionality.
+ */
+class BatchSolverTests {
+
+	/**
+	 * Solves a batch of scrambled 8-puzzles and checks that the results come
+	 * back in order with optimal solutions.
+	 */
+	@Test
+	void solveAllTest() {
+		Random random = new Random(8);
+		List<State> states = new ArrayList<>();
+		List<int[][]> boards = new ArrayList<>();
+		for (int i = 0; i < 50; ++i) {
+			State state = SearchTests.scramble(3, 100, random);
+			states.add(state);
+			boards.add(numbers(state));
+		}
+		try (BatchSolver solver = new BatchSolver(new IdaStarSearch(), 4)) {
+			List<BatchResult> results = solver.solveAll(boards.stream());
+			assertEquals(boards.size(), results.size(), "Every puzzle should have a result!");
+			for (int i = 0; i < results.size(); ++i) {
+				BatchResult result = results.get(i);
+				assertEquals(i, result.getIndex(), "Results are out of order!");
+				assertEquals(BatchResult.Status.SOLVED, result.getStatus(), "Puzzle was not solved!");
+				SearchTests.assertOptimal(new AStarSearch(), states.get(i), result.getLength());
+			}
+		}
+	}
+
+	/**
+	 * Solves a batch with a solver created from a mode and heuristic name, as
+	 * callers outside the package do, and checks the solutions are optimal.
+	 *
+	 * @throws IOException if the heuristic cannot be loaded
+	 */
+	@Test
+	void modeTest() throws IOException {
+		Random random = new Random(13);
+		List<State> states = new ArrayList<>();
+		List<int[][]> boards = new ArrayList<>();
+		for (int i = 0; i < 10; ++i) {
+			State state = SearchTests.scramble(3, 100, random);
+			states.add(state);
+			boards.add(numbers(state));
+		}
+		try (BatchSolver solver = new BatchSolver("astar", "linear", 3, 2)) {
+			List<BatchResult> results = solver.solveAll(boards.stream());
+			for (int i = 0; i < results.size(); ++i) {
+				assertEquals(BatchResult.Status.SOLVED, results.get(i).getStatus(), "Puzzle was not solved!");
+				SearchTests.assertOptimal(new AStarSearch(), states.get(i), results.get(i).getLength());
+			}
+		}
+		// A memory limit given with the mode applies to each puzzle
+		int[][] hard = numbers(SearchTests.state(8, 6, 7, 2, 5, 4, 3, 0, 1));
+		try (BatchSolver solver = new BatchSolver("astar:0.1", null, 3, 2)) {
+			List<BatchResult> results = solver.solveAll(List.of(hard, boards.get(0)).stream());
+			assertEquals(BatchResult.Status.ABORTED, results.get(0).getStatus(), "Hard puzzle should exceed the limit!");
+			assertEquals(BatchResult.Status.SOLVED, results.get(1).getStatus(), "Easy puzzle should be solved!");
+		}
+	}
+
+	/**
+	 * Solves puzzles that are malformed or need more memory than allowed and
+	 * checks that they are reported instead of stopping the batch.
+	 */
+	@Test
+	void failureTest() {
+		int[][] malformed = { { 1, 2 }, { 2, 0 } };
+		int[][] hard = numbers(SearchTests.state(8, 6, 7, 2, 5, 4, 3, 0, 1));
+		int[][] easy = numbers(SearchTests.state(1, 2, 3, 4, 5, 6, 7, 0, 8));
+		List<int[][]> boards = List.of(malformed, hard, easy);
+		try (BatchSolver solver = new BatchSolver(new AStarSearch(null, 10000), 2)) {
+			List<BatchResult> results = solver.solveAll(boards.stream());
+			assertEquals(BatchResult.Status.FAILED, results.get(0).getStatus(), "Malformed puzzle should fail!");
+			assertEquals(BatchResult.Status.ABORTED, results.get(1).getStatus(), "Hard puzzle should exceed the limit!");
+			assertEquals(BatchResult.Status.SOLVED, results.get(2).getStatus(), "Easy puzzle should be solved!");
+			assertEquals(1, results.get(2).getLength(), "Easy puzzle takes one move!");
+		}
+	}
+
+	/**
+	 * Converts a {@code State} to tile numbers with 0 for the blank tile.
+	 *
+	 * @param state state to convert
+	 * @return tile numbers
+	 */
+	private static int[][] numbers(State state) {
+		int size = state.getSize();
+		int[][] numbers = Board.unpack(state.getBoard(), size);
+		for (int[] row : numbers)
+			for (int j = 0; j < size; ++j)
+				if (row[j] == size * size)
+					row[j] = 0;
+		return numbers;
+	}
+}
@@ -0,0 +1,230 @@
+package puzzle;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bidirectional search that meets in the middle (MM), searching forwards
+ * from the starting state and backwards from the solved state at once.
+ * <p>
+ * Each direction orders its states by the larger of its total and twice
+ * its number of moves, so neither search goes further than half of the
+ * solution before they meet, and always expands the direction with the
+ * lower such priority.  Whenever a board reached by one direction has been
+ * reached by the other, the two paths joined there give an upper bound on
+ * the solution.  The search stops once no unexpanded pair of states can
+ * beat that bound, at which point the joined path is optimal as long as
+ * both heuristics never overestimate.
+ * <p>
+ * The forward search uses the given heuristic and the backward search
+ * always uses Manhattan distance towards the starting board, as the other
+ * heuristics only estimate the distance to the solved board.  With a
+ * stronger heuristic than Manhattan distance, the two frontiers are
+ * therefore uneven: the backward one grows faster and the search expands
+ * more states than it would with the same heuristic both ways.
+ */
+class BidirectionalSearch implements Search {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final Heuristic heuristic;		// Forward heuristic, or null for Manhattan distance
+	private final long memoryLimit;			// Most bytes of states and visited boards to keep
+
+	/**
+	 * Constructor for a search using Manhattan distance in both directions.
+	 */
+	BidirectionalSearch() {
+		this(null);
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic forwards.  Only the
+	 * forward direction uses it; the backward direction uses Manhattan
+	 * distance towards the starting board whatever the heuristic.
+	 *
+	 * @param heuristic heuristic for the size of the puzzles to solve
+	 *                  forwards, or null for Manhattan distance
+	 */
+	BidirectionalSearch(Heuristic heuristic) {
+		this(heuristic, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic forwards that gives
+	 * up rather than hold more than a given amount of memory.  Only the
+	 * forward direction uses the heuristic; the backward direction uses
+	 * Manhattan distance towards the starting board whatever the heuristic.
+	 *
+	 * @param heuristic   heuristic for the size of the puzzles to solve
+	 *                    forwards, or null for Manhattan distance
+	 * @param memoryLimit approximate number of bytes the search may use
+	 */
+	BidirectionalSearch(Heuristic heuristic, long memoryLimit) {
+		this.heuristic = heuristic;
+		this.memoryLimit = memoryLimit;
+	}
+
+	@Override
+	public Solution solve(State startingState) {
+		int size = startingState.getSize();
+		Heuristic heuristic = this.heuristic == null ? ManhattanDistance.forSize(size) : this.heuristic;
+		if (heuristic.getSize() != size)
+			throw new IllegalArgumentException("Heuristic is for a different puzzle size!");
+		State start = new State(startingState.getBoard(), size, heuristic,
+				startingState.getBlankRow(), startingState.getBlankColumn());
+		if (start.isSolved())
+			return new Solution(Collections.emptyList(), new SearchStatistics("bidirectional").finish(0));
+		Heuristic towardStart = ManhattanDistance.toward(start.getBoard(), size);
+		State goal = new State(Board.goal(size), size, towardStart, size - 1, size - 1);
+
+		Frontier forward = new Frontier(start, heuristic);
+		Frontier backward = new Frontier(goal, towardStart);
+		long stateBytes = State.bytes(size);
+		SearchStatistics statistics = new SearchStatistics("bidirectional");
+		int best = Integer.MAX_VALUE;	// Length of the shortest joined path so far
+		long[] meeting = null;			// Board where that path was joined
+
+		while (!forward.isEmpty() && !backward.isEmpty()) {
+			// No pair of unexpanded states can be joined by a path shorter than this
+			int bound = Math.max(Math.min(forward.minimumPriority(), backward.minimumPriority()),
+					Math.max(forward.minimumTotal(), backward.minimumTotal()));
+			bound = Math.max(bound, forward.minimumMoves() + backward.minimumMoves() + 1);
+			if (best <= bound)
+				break;
+			statistics.bound(bound);
+			Frontier frontier = forward.minimumPriority() <= backward.minimumPriority() ? forward : backward;
+			Frontier other = frontier == forward ? backward : forward;
+			State state = frontier.remove();
+			// Skip states that were reached again in fewer moves after being added
+			if (frontier.seen.get(state.getBoard()) < state.getDepth())
+				continue;
+			long closed = forward.seen.size() + backward.seen.size();
+			long open = forward.open.size() + backward.open.size();
+			statistics.expanded(state.getCost(), open, closed);
+			// States are only held by the queues, and their paths by the closed sets
+			if (open * stateBytes + forward.seen.bytes() + backward.seen.bytes() > memoryLimit) {
+				statistics.finish(-1);
+				throw new SearchAbortedException("Memory limit of " + memoryLimit + " bytes exceeded");
+			}
+			for (Direction direction : DIRECTIONS) {
+				if (state.canMove(direction) && !state.isReverse(direction)) {
+					State next = state.move(direction, frontier.heuristic);
+					statistics.generated();
+					if (!frontier.seen.put(next.getBoard(), next.getDepth(), direction))
+						statistics.duplicate();
+					else {
+						frontier.add(next);
+						int moves = other.seen.get(next.getBoard());
+						if (moves != ClosedSet.ABSENT && next.getDepth() + moves < best) {
+							best = next.getDepth() + moves;
+							meeting = next.getBoard();
+						}
+					}
+				}
+			}
+		}
+		//No solution was found
+		if (meeting == null) {
+			statistics.finish(-1);
+			return null;
+		}
+
+		// Join the forward path to the meeting board with the backward path reversed
+		List<Direction> moves = forward.seen.path(meeting);
+		List<Direction> backwardMoves = backward.seen.path(meeting);
+		for (int i = backwardMoves.size() - 1; i >= 0; --i)
+			moves.add(backwardMoves.get(i).inverse());
+		verify(start, moves, best);
+		return new Solution(moves, statistics.finish(best));
+	}
+
+	/**
+	 * Checks that joined moves solve the starting state in the expected
+	 * number of moves.
+	 *
+	 * @param start  starting state
+	 * @param moves  joined moves
+	 * @param length length of the shortest joined path
+	 * @throws IllegalStateException if the moves do not solve the state
+	 */
+	private static void verify(State start, List<Direction> moves, int length) {
+		State state = start;
+		for (Direction move : moves) {
+			if (!state.canMove(move))
+				throw new IllegalStateException("Joined path makes an impossible move!");
+			state = state.move(move);
+		}
+		if (!state.isSolved() || moves.size() != length)
+			throw new IllegalStateException("Joined path is not a shortest solution!");
+	}
+
+	/**
+	 * Open and closed states of one direction of the search.  Besides the
+	 * queue ordered by priority, it counts the open states with each total
+	 * and each number of moves so their minimums are known.  States that were
+	 * reached again in fewer moves stay counted until they are removed, which
+	 * can only lower the minimums and so keeps the stopping test safe.
+	 */
+	private static final class Frontier {
+		private final Heuristic heuristic;
+		private final BucketQueue<State> open = new BucketQueue<>();
+		private final ClosedSet seen;
+		private int[] totals = new int[64];		// Open states with each number of moves plus estimate
+		private int[] depths = new int[64];		// Open states with each number of moves
+		private int minimumTotal;
+		private int minimumMoves;
+
+		private Frontier(State root, Heuristic heuristic) {
+			this.heuristic = heuristic;
+			seen = new ClosedSet(root.getSize());
+			seen.put(root.getBoard(), 0, null);
+			minimumTotal = root.getCost();
+			add(root);
+		}
+
+		private boolean isEmpty() {
+			return open.isEmpty();
+		}
+
+		private void add(State state) {
+			int total = state.getDepth() + state.getCost();
+			open.add(state, Math.max(total, 2 * state.getDepth()), state.getDepth());
+			totals = count(totals, total, 1);
+			depths = count(depths, state.getDepth(), 1);
+			minimumTotal = Math.min(minimumTotal, total);
+			minimumMoves = Math.min(minimumMoves, state.getDepth());
+		}
+
+		private State remove() {
+			State state = open.remove();
+			count(totals, state.getDepth() + state.getCost(), -1);
+			count(depths, state.getDepth(), -1);
+			return state;
+		}
+
+		private int minimumPriority() {
+			return open.getMinimum();
+		}
+
+		private int minimumTotal() {
+			while (totals[minimumTotal] == 0)
+				minimumTotal++;
+			return minimumTotal;
+		}
+
+		private int minimumMoves() {
+			while (depths[minimumMoves] == 0)
+				minimumMoves++;
+			return minimumMoves;
+		}
+
+		// Adds to the count at an index, growing the array if needed
+		private static int[] count(int[] counts, int index, int change) {
+			if (index >= counts.length)
+				counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+			counts[index] += change;
+			return counts;
+		}
+	}
+}
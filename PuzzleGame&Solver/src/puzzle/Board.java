@@ -0,0 +1,242 @@
+package puzzle;
+
+import java.util.Arrays;
+
+/**
+ * Utility class for the packed board representation used by {@link State}.
+ * Each tile is stored as the position it occupies in the solved puzzle
+ * (one less than its number, with the blank tile stored as
+ * size*size - 1) in a fixed-width field of a {@code long[]}.  Boards up to
+ * 4 x 4 use 4 bits per tile, so a whole 15-puzzle fits in a single
+ * {@code long}; larger boards (up to 16 x 16) use 8 bits per tile.
+ */
+final class Board {
+
+	/**
+	 * Largest number of rows and columns that can be packed.
+	 */
+	static final int MAX_SIZE = 16;
+
+	// Solved boards for every supported size, indexed by size
+	private static final long[][] GOALS = new long[MAX_SIZE + 1][];
+
+	static {
+		for (int size = 1; size <= MAX_SIZE; ++size) {
+			long[] board = new long[words(size)];
+			for (int position = 0; position < size * size; ++position)
+				set(board, size, position, position);
+			GOALS[size] = board;
+		}
+	}
+
+	private Board() {
+	}
+
+	/**
+	 * Number of bits used to store each tile on a board of the given size.
+	 *
+	 * @param size number of rows and columns
+	 * @return 4 for boards up to 4 x 4, 8 otherwise
+	 */
+	static int bits(int size) {
+		return size <= 4 ? 4 : 8;
+	}
+
+	/**
+	 * Number of {@code long} words needed to pack a board of the given size.
+	 *
+	 * @param size number of rows and columns
+	 * @return length of the packed array
+	 */
+	static int words(int size) {
+		return (size * size * bits(size) + 63) >>> 6;
+	}
+
+	/**
+	 * Reads the tile at a position of a packed board.
+	 *
+	 * @param board    packed board
+	 * @param size     number of rows and columns
+	 * @param position row * size + column
+	 * @return goal position of the tile (size*size - 1 for the blank tile)
+	 */
+	static int get(long[] board, int size, int position) {
+		int bits = bits(size);
+		int offset = position * bits;
+		return (int) (board[offset >>> 6] >>> (offset & 63)) & ((1 << bits) - 1);
+	}
+
+	/**
+	 * Writes the tile at a position of a packed board.
+	 *
+	 * @param board    packed board
+	 * @param size     number of rows and columns
+	 * @param position row * size + column
+	 * @param tile     goal position of the tile
+	 */
+	static void set(long[] board, int size, int position, int tile) {
+		int bits = bits(size);
+		int offset = position * bits;
+		int shift = offset & 63;
+		long mask = ((1L << bits) - 1) << shift;
+		board[offset >>> 6] = (board[offset >>> 6] & ~mask) | ((long) tile << shift);
+	}
+
+	/**
+	 * Swaps the tiles at two positions of a packed board.
+	 *
+	 * @param board  packed board
+	 * @param size   number of rows and columns
+	 * @param first  first position
+	 * @param second second position
+	 */
+	static void swap(long[] board, int size, int first, int second) {
+		int tile = get(board, size, first);
+		set(board, size, first, get(board, size, second));
+		set(board, size, second, tile);
+	}
+
+	/**
+	 * Packs a 2D array of tile numbers (1 to size*size, with the blank tile
+	 * numbered size*size) into a packed board.
+	 *
+	 * @param state square array of tile numbers
+	 * @return packed board
+	 * @throws IllegalArgumentException if the array is not square, is too big
+	 *                                  or holds numbers out of range
+	 */
+	static long[] pack(int[][] state) {
+		int size = state.length;
+		if (size == 0 || size > MAX_SIZE)
+			throw new IllegalArgumentException("Unsupported puzzle size: " + size);
+		long[] board = new long[words(size)];
+		for (int i = 0; i < size; ++i) {
+			if (state[i].length != size)
+				throw new IllegalArgumentException("Puzzle must be square!");
+			for (int j = 0; j < size; ++j) {
+				int number = state[i][j];
+				if (number < 1 || number > size * size)
+					throw new IllegalArgumentException("Illegal tile number: " + number);
+				set(board, size, i * size + j, number - 1);
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Unpacks a packed board into a 2D array of tile numbers (1 to
+	 * size*size, with the blank tile numbered size*size).
+	 *
+	 * @param board packed board
+	 * @param size  number of rows and columns
+	 * @return square array of tile numbers
+	 */
+	static int[][] unpack(long[] board, int size) {
+		int[][] state = new int[size][size];
+		for (int i = 0; i < size; ++i)
+			for (int j = 0; j < size; ++j)
+				state[i][j] = get(board, size, i * size + j) + 1;
+		return state;
+	}
+
+	/**
+	 * Creates the packed board for a solved puzzle.
+	 *
+	 * @param size number of rows and columns
+	 * @return packed solved board
+	 */
+	static long[] goal(int size) {
+		return GOALS[size].clone();
+	}
+
+	/**
+	 * Determines whether a packed board is solved, with no allocation.
+	 *
+	 * @param board packed board
+	 * @param size  number of rows and columns
+	 * @return true if every tile is at its goal position, false otherwise
+	 */
+	static boolean isGoal(long[] board, int size) {
+		return Arrays.equals(board, GOALS[size]);
+	}
+
+	/**
+	 * Determines whether a packed board can be solved, in time linear in the
+	 * number of tiles.  Every move swaps the blank tile with a neighbour, so
+	 * it flips both the parity of the permutation of the tiles and the parity
+	 * of the blank tile's distance from its goal position.  A board is
+	 * solvable exactly when the two parities are equal; the parity of the
+	 * permutation is found by counting its cycles rather than its inversions.
+	 *
+	 * @param board packed board
+	 * @param size  number of rows and columns
+	 * @return true if the board can be solved, false otherwise
+	 */
+	static boolean isSolvable(long[] board, int size) {
+		int tiles = size * size;
+		long[] visited = new long[(tiles + 63) / 64];
+		// A permutation is even exactly when tiles minus its number of cycles is even
+		int parity = tiles;
+		int blank = -1;
+		for (int start = 0; start < tiles; ++start) {
+			if ((visited[start >>> 6] & 1L << start) != 0)
+				continue;
+			parity++;
+			for (int position = start; (visited[position >>> 6] & 1L << position) == 0;
+					position = get(board, size, position)) {
+				visited[position >>> 6] |= 1L << position;
+				if (get(board, size, position) == tiles - 1)
+					blank = position;
+			}
+		}
+		int distance = (size - 1 - blank / size) + (size - 1 - blank % size);
+		return (parity & 1) == (distance & 1);
+	}
+
+	/**
+	 * Reflects a packed board in its main diagonal, renumbering the tiles so
+	 * that the solved board stays solved.  The reflected board needs as many
+	 * moves as the original, each mirrored the same way.
+	 *
+	 * @param board packed board
+	 * @param size  number of rows and columns
+	 * @return new reflected board
+	 */
+	static long[] transpose(long[] board, int size) {
+		long[] transposed = new long[board.length];
+		for (int position = 0; position < size * size; ++position) {
+			int tile = get(board, size, position);
+			set(transposed, size, position % size * size + position / size, tile % size * size + tile / size);
+		}
+		return transposed;
+	}
+
+	/**
+	 * Hashes a packed board by mixing its words, with no allocation.
+	 *
+	 * @param board packed board
+	 * @return hash code
+	 */
+	static int hash(long[] board) {
+		long hash = 0;
+		for (long word : board)
+			hash = mix(hash ^ word);
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	/**
+	 * Finalization step of MurmurHash3, which spreads every input bit over
+	 * the whole output.
+	 *
+	 * @param value value to mix
+	 * @return mixed value
+	 */
+	static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
@@ -0,0 +1,130 @@
+package puzzle;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Priority queue for searches whose priorities are small non-negative
+ * integers, such as the number of moves made plus the estimated cost.
+ * <p>
+ * Items are kept in an array of buckets indexed by priority, each holding
+ * one stack per number of moves made, so adding and removing take constant
+ * time instead of the logarithmic time of {@link java.util.PriorityQueue}.
+ * Among items of equal priority, the one with the most moves made (the
+ * deepest one, closest to a solution) is removed first.
+ *
+ * @param <T> type of items
+ */
+final class BucketQueue<T> {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private Bucket[] buckets = new Bucket[64];	// Buckets indexed by priority
+	private int minimum;						// No bucket below this priority holds items
+	private int size;							// Number of items
+
+	/**
+	 * Adds an item.
+	 *
+	 * @param item     item to add
+	 * @param priority priority of the item, lower priorities are removed first
+	 * @param moves    number of moves made to reach the item, no greater than its
+	 *                 priority
+	 */
+	void add(T item, int priority, int moves) {
+		if (priority >= buckets.length)
+			buckets = Arrays.copyOf(buckets, Math.max(priority + 1, buckets.length * 2));
+		Bucket bucket = buckets[priority];
+		if (bucket == null)
+			bucket = buckets[priority] = new Bucket();
+		bucket.push(item, moves);
+		if (size == 0 || priority < minimum)
+			minimum = priority;
+		size++;
+	}
+
+	/**
+	 * Removes the item with the lowest priority, preferring the one with the
+	 * most moves made among equal priorities.
+	 *
+	 * @return removed item
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	T remove() {
+		int priority = getMinimum();
+		size--;
+		return (T) buckets[priority].pop();
+	}
+
+	/**
+	 * Accessor for the lowest priority of any item.
+	 *
+	 * @return lowest priority
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	int getMinimum() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		while (buckets[minimum] == null || buckets[minimum].isEmpty())
+			minimum++;
+		return minimum;
+	}
+
+	/**
+	 * Determines whether the queue is empty.
+	 *
+	 * @return true if there are no items, false otherwise
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Number of items in the queue.
+	 *
+	 * @return number of items
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Stacks of the items of one priority, indexed by moves made.
+	 */
+	private static final class Bucket {
+		private Object[][] stacks = new Object[0][];
+		private int[] counts = new int[0];
+		private int deepest = -1;		// No stack above this index holds items
+
+		private void push(Object item, int moves) {
+			if (moves >= stacks.length) {
+				int length = Math.max(moves + 1, stacks.length * 2);
+				stacks = Arrays.copyOf(stacks, length);
+				counts = Arrays.copyOf(counts, length);
+			}
+			Object[] stack = stacks[moves];
+			if (stack == null)
+				stack = stacks[moves] = new Object[INITIAL_CAPACITY];
+			else if (counts[moves] == stack.length)
+				stack = stacks[moves] = Arrays.copyOf(stack, stack.length * 2);
+			stack[counts[moves]++] = item;
+			if (moves > deepest)
+				deepest = moves;
+		}
+
+		private Object pop() {
+			Object[] stack = stacks[deepest];
+			int index = --counts[deepest];
+			Object item = stack[index];
+			stack[index] = null;
+			while (deepest >= 0 && counts[deepest] == 0)
+				deepest--;
+			return item;
+		}
+
+		private boolean isEmpty() {
+			return deepest < 0;
+		}
+	}
+}
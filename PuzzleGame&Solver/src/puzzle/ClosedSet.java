@@ -0,0 +1,335 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Hash set of packed boards (see {@link Board}) visited during a search,
+ * storing the best number of moves found to reach each board and the move
+ * that arrived there.
+ * <p>
+ * Boards are kept in flat primitive arrays with open addressing and linear
+ * probing, so an entry costs one packed board plus a single {@code int}
+ * instead of a {@code State} and a {@code HashMap} entry.  The table doubles
+ * whenever it is three quarters full, so each board is rehashed only a
+ * constant number of times on average.
+ * <p>
+ * The arrival moves are all a search needs to recover its path, so the
+ * states it generates need not point back to the states they came from
+ * (see {@link #path(long[])}).
+ * <p>
+ * The table can instead be kept in {@link OffHeapMemory}, each slot holding
+ * the words of its board followed by its value, so the set can grow beyond
+ * the heap without adding to the work of the garbage collector.
+ */
+final class ClosedSet {
+
+	/**
+	 * Value returned by {@link #get(long[])} for boards that are not in the
+	 * set.
+	 */
+	static final int ABSENT = -1;
+
+	private static final int MINIMUM_CAPACITY = 16;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final int size;			// Number of rows and columns of the boards
+	private final int width;		// Words per packed board
+	private final OffHeapMemory memory;	// Memory holding the table, or null for the heap
+	private long[] keys;			// Packed boards, width words per slot
+	private int[] values;			// (moves + 1) << 3 | arrival move code, 0 for empty slots
+	private OffHeapMemory.LongArray table;	// Slots of the board and its value, when off the heap
+	private int mask;				// Capacity - 1, capacity is a power of two
+	private int count;				// Number of boards in the set
+	private int threshold;			// Count at which the table grows
+
+	/**
+	 * Constructor for an empty set of boards of a given size.
+	 *
+	 * @param size number of rows and columns of the boards
+	 */
+	ClosedSet(int size) {
+		this(size, MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Constructor for an empty set of boards of a given size, presized to hold
+	 * an expected number of boards without growing.
+	 *
+	 * @param size     number of rows and columns of the boards
+	 * @param expected expected number of boards
+	 */
+	ClosedSet(int size, int expected) {
+		this(size, expected, null);
+	}
+
+	/**
+	 * Constructor for an empty set of boards of a given size, presized to hold
+	 * an expected number of boards without growing, with its table in memory
+	 * off the heap.
+	 *
+	 * @param size     number of rows and columns of the boards
+	 * @param expected expected number of boards
+	 * @param memory   memory to hold the table, or null for the heap
+	 * @throws SearchAbortedException if the memory cannot hold the table
+	 */
+	ClosedSet(int size, int expected, OffHeapMemory memory) {
+		this.size = size;
+		this.memory = memory;
+		width = Board.words(size);
+		int capacity = MINIMUM_CAPACITY;
+		while (capacity < MAXIMUM_CAPACITY && capacity * 3L / 4 < expected)
+			capacity <<= 1;
+		allocate(capacity);
+	}
+
+	/**
+	 * Number of boards in the set.
+	 *
+	 * @return number of boards
+	 */
+	int size() {
+		return count;
+	}
+
+	/**
+	 * Approximate memory used by the table.
+	 *
+	 * @return size of the backing arrays in bytes
+	 */
+	long bytes() {
+		if (memory != null)
+			return table.length() * Long.BYTES;
+		return (long) keys.length * Long.BYTES + (long) values.length * Integer.BYTES;
+	}
+
+	/**
+	 * Finds the number of moves stored for a board.
+	 *
+	 * @param board packed board
+	 * @return number of moves or {@link #ABSENT} if the board is not in the set
+	 */
+	int get(long[] board) {
+		int value = value(find(board));
+		return value == 0 ? ABSENT : (value >>> 3) - 1;
+	}
+
+	/**
+	 * Determines whether a board is in the set.
+	 *
+	 * @param board packed board
+	 * @return true if the board is in the set, false otherwise
+	 */
+	boolean contains(long[] board) {
+		return value(find(board)) != 0;
+	}
+
+	/**
+	 * Finds the move that arrived at a board.
+	 *
+	 * @param board packed board
+	 * @return arrival move, or null for a starting board or one that is not in
+	 *         the set
+	 */
+	Direction getMove(long[] board) {
+		int code = value(find(board)) & 7;
+		return code == 0 ? null : DIRECTIONS[code - 1];
+	}
+
+	/**
+	 * Adds a board to the set if it is not already there.
+	 *
+	 * @param board packed board
+	 * @param moves number of moves taken to reach the board
+	 * @param move  move that arrived at the board, null for a starting board
+	 * @return true if the board was added, false if it was already in the set
+	 */
+	boolean add(long[] board, int moves, Direction move) {
+		int slot = find(board);
+		if (value(slot) != 0)
+			return false;
+		insert(slot, board, moves, move);
+		return true;
+	}
+
+	/**
+	 * Adds a board to the set, or updates it if it was reached in fewer moves
+	 * than before.
+	 *
+	 * @param board packed board
+	 * @param moves number of moves taken to reach the board
+	 * @param move  move that arrived at the board, null for a starting board
+	 * @return true if the board was added or updated, false if it was already
+	 *         reached in at most as many moves
+	 */
+	boolean put(long[] board, int moves, Direction move) {
+		int slot = find(board);
+		int value = value(slot);
+		if (value == 0) {
+			insert(slot, board, moves, move);
+			return true;
+		}
+		if ((value >>> 3) - 1 <= moves)
+			return false;
+		setValue(slot, encode(moves, move));
+		return true;
+	}
+
+	/**
+	 * Lists the moves from a starting board to a board in the set, by
+	 * undoing the stored arrival moves one after another.  A board is only
+	 * ever updated to fewer moves, so every board on the way was reached in
+	 * fewer moves than the one after it, and the path is no longer than the
+	 * moves stored for the board.
+	 *
+	 * @param board packed board in the set
+	 * @return moves from a starting board to the board
+	 */
+	List<Direction> path(long[] board) {
+		return path(board, size, current -> this);
+	}
+
+	/**
+	 * Lists the moves from a starting board to a board, by undoing the
+	 * arrival moves stored in whichever of several sets holds each board on
+	 * the way, as when each thread of a search keeps its own part of the
+	 * boards.
+	 *
+	 * @param board packed board
+	 * @param size  number of rows and columns
+	 * @param sets  finds the set holding a board
+	 * @return moves from a starting board to the board
+	 */
+	static List<Direction> path(long[] board, int size, Function<long[], ClosedSet> sets) {
+		long[] current = board.clone();
+		int blank = 0;
+		while (Board.get(current, size, blank) != size * size - 1)
+			blank++;
+		List<Direction> moves = new ArrayList<>();
+		Direction move;
+		while ((move = sets.apply(current).getMove(current)) != null) {
+			moves.add(move);
+			// Undo the move by moving the blank tile back
+			int previous = blank - move.getRowChange() * size - move.getColumnChange();
+			Board.swap(current, size, blank, previous);
+			blank = previous;
+		}
+		Collections.reverse(moves);
+		return moves;
+	}
+
+	/**
+	 * Removes every board from the set, keeping its capacity.
+	 */
+	void clear() {
+		if (memory == null)
+			Arrays.fill(values, 0);
+		else
+			for (int slot = 0; slot <= mask; ++slot)
+				setValue(slot, 0);
+		count = 0;
+	}
+
+	// Stores a new board in an empty slot, growing the table if needed
+	private void insert(int slot, long[] board, int moves, Direction move) {
+		setKey(slot, board);
+		setValue(slot, encode(moves, move));
+		if (++count > threshold)
+			grow();
+	}
+
+	private int value(int slot) {
+		if (memory == null)
+			return values[slot];
+		return (int) table.get((long) slot * (width + 1) + width);
+	}
+
+	private void setValue(int slot, int value) {
+		if (memory == null)
+			values[slot] = value;
+		else
+			table.set((long) slot * (width + 1) + width, value);
+	}
+
+	private void setKey(int slot, long[] board) {
+		if (memory == null)
+			System.arraycopy(board, 0, keys, slot * width, width);
+		else
+			for (int i = 0; i < width; ++i)
+				table.set((long) slot * (width + 1) + i, board[i]);
+	}
+
+	private static int encode(int moves, Direction move) {
+		return (moves + 1) << 3 | (move == null ? 0 : move.ordinal() + 1);
+	}
+
+	// Finds the slot holding a board or the empty slot where it belongs
+	private int find(long[] board) {
+		int slot = Board.hash(board) & mask;
+		while (value(slot) != 0 && !matches(slot, board))
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private boolean matches(int slot, long[] board) {
+		if (memory != null) {
+			long offset = (long) slot * (width + 1);
+			for (int i = 0; i < width; ++i)
+				if (table.get(offset + i) != board[i])
+					return false;
+			return true;
+		}
+		int offset = slot * width;
+		for (int i = 0; i < width; ++i)
+			if (keys[offset + i] != board[i])
+				return false;
+		return true;
+	}
+
+	private void allocate(int capacity) {
+		if (memory != null)
+			table = memory.allocate((long) capacity * (width + 1));
+		else if ((long) capacity * width > Integer.MAX_VALUE - 8)
+			throw new OutOfMemoryError("Closed set cannot hold more than " + count + " boards");
+		else {
+			keys = new long[capacity * width];
+			values = new int[capacity];
+		}
+		mask = capacity - 1;
+		threshold = capacity / 4 * 3;
+	}
+
+	// Doubles the capacity, moving every entry to its slot in the new table
+	private void grow() {
+		if (mask + 1 == MAXIMUM_CAPACITY)
+			throw new OutOfMemoryError("Closed set cannot hold more than " + count + " boards");
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		OffHeapMemory.LongArray oldTable = table;
+		int oldCapacity = mask + 1;
+		allocate(oldCapacity << 1);
+		long[] board = new long[width];
+		for (int oldSlot = 0; oldSlot < oldCapacity; ++oldSlot) {
+			long offset = (long) oldSlot * (width + 1);
+			int value = oldTable == null ? oldValues[oldSlot] : (int) oldTable.get(offset + width);
+			if (value != 0) {
+				if (oldTable == null)
+					System.arraycopy(oldKeys, oldSlot * width, board, 0, width);
+				else
+					for (int i = 0; i < width; ++i)
+						board[i] = oldTable.get(offset + i);
+				int slot = Board.hash(board) & mask;
+				while (value(slot) != 0)
+					slot = (slot + 1) & mask;
+				setKey(slot, board);
+				setValue(slot, value);
+			}
+		}
+		if (oldTable != null)
+			memory.release(oldTable);
+	}
+}
@@ -0,0 +1,150 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test {@link ClosedSet} functionality.
+ */
+class ClosedSetTests {
+
+	/**
+	 * Adds boards to a {@code ClosedSet} and checks that their moves and
+	 * arrival directions are kept.
+	 */
+	@Test
+	void addTest() {
+		ClosedSet set = new ClosedSet(3);
+		long[] goal = Board.goal(3);
+		// The starting board has no arrival move
+		assertTrue(set.add(goal, 0, null), "Could not add a new board!");
+		assertFalse(set.add(goal, 5, Direction.UP), "Added the same board twice!");
+		assertEquals(0, set.get(goal), "Stored moves are incorrect!");
+		assertNull(set.getMove(goal), "Starting board should have no move!");
+		// A board one move away from the goal
+		long[] moved = goal.clone();
+		Board.swap(moved, 3, 8, 7);
+		assertEquals(ClosedSet.ABSENT, set.get(moved), "Board should not be in the set!");
+		assertTrue(set.add(moved, 1, Direction.RIGHT), "Could not add a new board!");
+		assertEquals(Direction.RIGHT, set.getMove(moved), "Stored move is incorrect!");
+		assertEquals(2, set.size(), "Set should hold two boards!");
+	}
+
+	/**
+	 * Puts a board in a {@code ClosedSet} and checks that it is only updated
+	 * when it is reached in fewer moves.
+	 */
+	@Test
+	void putTest() {
+		ClosedSet set = new ClosedSet(4);
+		long[] board = Board.goal(4);
+		assertTrue(set.put(board, 10, Direction.LEFT), "Could not put a new board!");
+		assertFalse(set.put(board, 12, Direction.DOWN), "Updated with more moves!");
+		assertTrue(set.put(board, 8, Direction.DOWN), "Did not update with fewer moves!");
+		assertEquals(8, set.get(board), "Stored moves are incorrect!");
+		assertEquals(Direction.DOWN, set.getMove(board), "Stored move is incorrect!");
+	}
+
+	/**
+	 * Adds enough random 5 x 5 boards to make a {@code ClosedSet} grow
+	 * several times and checks that they can all still be found.
+	 */
+	@Test
+	void growTest() {
+		ClosedSet set = new ClosedSet(5);
+		Random random = new Random(1);
+		long[][] boards = new long[10000][];
+		for (int i = 0; i < boards.length; ++i) {
+			// Multi-word boards with a random first word are distinct with high probability
+			boards[i] = Board.goal(5);
+			boards[i][0] = random.nextLong();
+			set.add(boards[i], i, Direction.values()[i % 4]);
+		}
+		assertEquals(boards.length, set.size(), "Set should hold every board!");
+		for (int i = 0; i < boards.length; ++i) {
+			assertEquals(i, set.get(boards[i]), "Stored moves are incorrect!");
+			assertEquals(Direction.values()[i % 4], set.getMove(boards[i]), "Stored move is incorrect!");
+		}
+	}
+
+	/**
+	 * Adds enough random 5 x 5 boards to make a {@code ClosedSet} grow off
+	 * the heap, in direct buffers and in a scratch file, and checks that they
+	 * can all still be found and that the tables it outgrew are released.
+	 *
+	 * @throws IOException if the scratch file cannot be created
+	 */
+	@Test
+	void offHeapTest() throws IOException {
+		Path directory = Files.createTempDirectory("closed");
+		try {
+			for (Path scratch : new Path[] { null, directory }) {
+				try (OffHeapMemory memory = new OffHeapMemory(1 << 24, scratch)) {
+					ClosedSet set = new ClosedSet(5, 16, memory);
+					Random random = new Random(1);
+					long[][] boards = new long[10000][];
+					for (int i = 0; i < boards.length; ++i) {
+						boards[i] = Board.goal(5);
+						boards[i][0] = random.nextLong();
+						set.add(boards[i], i, Direction.values()[i % 4]);
+					}
+					assertEquals(boards.length, set.size(), "Set should hold every board!");
+					for (int i = 0; i < boards.length; ++i) {
+						assertEquals(i, set.get(boards[i]), "Stored moves are incorrect!");
+						assertEquals(Direction.values()[i % 4], set.getMove(boards[i]), "Stored move is incorrect!");
+					}
+					assertEquals(set.bytes(), memory.getUsed(), "Outgrown tables were not released!");
+					set.clear();
+					assertEquals(ClosedSet.ABSENT, set.get(boards[0]), "Board should not be in the set!");
+				}
+			}
+			try (var files = Files.list(directory)) {
+				assertEquals(0, files.count(), "Scratch files were left behind!");
+			}
+		} finally {
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Makes moves from a starting board, recording each arrival in a
+	 * {@code ClosedSet}, and checks that the path it recovers replays them,
+	 * leaving out moves to boards that were reached in fewer moves before.
+	 */
+	@Test
+	void pathTest() {
+		assertEquals(List.of(Direction.UP, Direction.LEFT, Direction.DOWN, Direction.RIGHT),
+				path(Direction.UP, Direction.LEFT, Direction.DOWN, Direction.RIGHT), "Path does not replay the moves!");
+		// Moving right after moving left returns to a board reached in one move
+		assertEquals(List.of(Direction.UP, Direction.RIGHT),
+				path(Direction.UP, Direction.LEFT, Direction.RIGHT, Direction.RIGHT), "Path does not skip the detour!");
+	}
+
+	/**
+	 * Makes moves from the middle of an 8-puzzle, putting each board reached
+	 * in a {@code ClosedSet}, and recovers the path to the last one.
+	 *
+	 * @param moves moves to make
+	 * @return path found by the set
+	 */
+	private static List<Direction> path(Direction... moves) {
+		ClosedSet set = new ClosedSet(3);
+		State state = SearchTests.state(1, 2, 3, 4, 0, 5, 6, 7, 8);
+		set.put(state.getBoard(), 0, null);
+		for (Direction move : moves) {
+			state = state.move(move);
+			set.put(state.getBoard(), state.getDepth(), move);
+		}
+		return set.path(state.getBoard());
+	}
+}
@@ -0,0 +1,46 @@
+package puzzle;
+
+/**
+ * Enum values for puzzle moves.
+ * Each value has a corresponding row change
+ * and column change of the blank tile.
+ */
+public enum Direction { UP, DOWN, LEFT, RIGHT;
+
+	/**
+	 * Accessor for row change for the direction.
+	 * @return change in row (-1, 0, 1)
+	 */
+	public int getRowChange() {
+		switch(this) {			
+		case UP: return 1;
+		case DOWN: return -1;
+		default: return 0;			
+		}		
+	}
+
+	/**
+	 * Accessor for column change for the direction.
+	 * @return change in column (-1, 0, 1)
+	 */
+	public int getColumnChange() {
+		switch(this) {			
+		case LEFT: return 1;
+		case RIGHT: return -1;
+		default: return 0;			
+		}		
+	}	
+
+	/**
+	 * Accessor for the direction that undoes a move in this direction.
+	 * @return opposite direction
+	 */
+	public Direction inverse() {
+		switch(this) {
+		case UP: return DOWN;
+		case DOWN: return UP;
+		case LEFT: return RIGHT;
+		default: return LEFT;
+		}
+	}
+}
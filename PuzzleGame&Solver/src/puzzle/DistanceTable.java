@@ -0,0 +1,516 @@
+package puzzle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Table of the fewest moves needed to solve every solvable arrangement of a
+ * small puzzle, which may have different numbers of rows and columns.
+ * Looking up the arrangements one move away finds a move towards the
+ * solved puzzle, so following the table solves any puzzle optimally with a
+ * constant amount of work per move and no search at all.
+ * <p>
+ * Arrangements are numbered by the position of the blank tile and the
+ * Lehmer code of the other tiles in reading order.  Only half of the
+ * arrangements with the blank tile in a given place are solvable, and
+ * which half is decided by the parity of the Lehmer code, so its last two
+ * digits are left out and the table has one entry per solvable
+ * arrangement.  Each entry takes four bits, holding the distance modulo
+ * {@value #MODULUS}: the arrangements one move away are always one move
+ * closer or one move further, and those two distances differ modulo
+ * {@value #MODULUS}, so the one that is closer can still be told apart.
+ * <p>
+ * Tables are built by breadth-first search from the solved puzzle.  The
+ * table itself is written straight into a memory-mapped file, and each
+ * level of the search is streamed to and from a file of arrangement
+ * numbers, so the 239,500,800 arrangements of the 3 x 4 puzzle can be
+ * built in far less memory than they take.
+ */
+public final class DistanceTable implements Search {
+
+	/**
+	 * Most positions a table can be built for.  The table for 3 x 4 takes
+	 * 120 MB, and one more position would multiply that by 13.
+	 */
+	static final int MAXIMUM_POSITIONS = 12;
+
+	private static final int MAGIC = 0x44535431; // "DST1"
+	private static final int HEADER = 16;		// Magic, rows, columns and depth
+	private static final int MODULUS = 15;
+	private static final int UNSEEN = 15;		// Entry of arrangements not reached yet
+	private static final Direction[] DIRECTIONS = Direction.values();
+	// Numbers per blank position for each number of positions, (positions - 1)! / 2
+	private static final int[] HALVES = new int[MAXIMUM_POSITIONS + 1];
+
+	static {
+		for (int positions = 3; positions <= MAXIMUM_POSITIONS; ++positions)
+			HALVES[positions] = (int) (arrangements(positions) / positions);
+	}
+
+	private final int rows;
+	private final int columns;
+	private final int depth;		// Most moves needed to solve any arrangement
+	private final ByteBuffer table;	// Two entries per byte, the even one in the low bits
+
+	/**
+	 * Method that generates a distance table file.
+	 * The arguments are the number of rows, the number of columns and the
+	 * file to write.
+	 *
+	 * @param args command line arguments for rows, columns and file
+	 * @throws IOException if a file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.out.println("Usage: DistanceTable rows columns file");
+			return;
+		}
+		int rows = Integer.parseInt(args[0]);
+		int columns = Integer.parseInt(args[1]);
+		long start = System.nanoTime();
+		DistanceTable table = generate(rows, columns, Paths.get(args[2]));
+		System.out.printf("Wrote %d arrangements up to %d moves from solved to %s in %.1f seconds%n",
+				table.arrangements(), table.getDepth(), args[2], (System.nanoTime() - start) / 1e9);
+	}
+
+	/**
+	 * Name of the file the table for a puzzle size is looked for in by
+	 * {@link Solver}.
+	 *
+	 * @param rows    number of rows
+	 * @param columns number of columns
+	 * @return file name
+	 */
+	static String fileName(int rows, int columns) {
+		return "distances-" + rows + "x" + columns + ".dst";
+	}
+
+	/**
+	 * Constructor for a table of distances.
+	 *
+	 * @param rows    number of rows
+	 * @param columns number of columns
+	 * @param depth   most moves needed to solve any arrangement
+	 * @param table   distance of every arrangement, two per byte
+	 */
+	private DistanceTable(int rows, int columns, int depth, ByteBuffer table) {
+		this.rows = rows;
+		this.columns = columns;
+		this.depth = depth;
+		this.table = table;
+	}
+
+	/**
+	 * Accessor for the number of rows.
+	 *
+	 * @return number of rows
+	 */
+	int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Accessor for the number of columns.
+	 *
+	 * @return number of columns
+	 */
+	int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Accessor for the most moves needed to solve any arrangement.
+	 *
+	 * @return depth of the breadth-first search
+	 */
+	int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Accessor for the number of solvable arrangements, one entry each.
+	 *
+	 * @return number of arrangements
+	 */
+	long arrangements() {
+		return arrangements(rows * columns);
+	}
+
+	/**
+	 * Looks up the distance of an arrangement.
+	 *
+	 * @param tiles goal position of the tile at each position, row by row,
+	 *              with positions - 1 for the blank tile
+	 * @return fewest moves needed to solve it, modulo 15
+	 * @throws IllegalArgumentException if the arrangement is not solvable
+	 */
+	int distance(int[] tiles) {
+		int distance = isSolvable(tiles, rows, columns) ? get(table, rank(tiles, rows, columns)) : UNSEEN;
+		if (distance == UNSEEN)
+			throw new IllegalArgumentException("Arrangement is not solvable!");
+		return distance;
+	}
+
+	@Override
+	public Solution solve(State startingState) {
+		int size = startingState.getSize();
+		if (size != rows || size != columns)
+			throw new IllegalArgumentException("Table is for a different puzzle size!");
+		int[] tiles = new int[size * size];
+		for (int position = 0; position < tiles.length; ++position)
+			tiles[position] = Board.get(startingState.getBoard(), size, position);
+		SearchStatistics statistics = new SearchStatistics("distance table");
+		if (!isSolvable(tiles, rows, columns)) {
+			statistics.finish(-1);
+			return null;
+		}
+		List<Direction> moves = solve(tiles, startingState.getBlankRow() * size + startingState.getBlankColumn(),
+				statistics);
+		return new Solution(moves, statistics.finish(moves.size()));
+	}
+
+	/**
+	 * Follows the table from an arrangement to the solved one, making each
+	 * move to the neighboring arrangement that is one move closer.
+	 *
+	 * @param tiles      solvable arrangement, changed into the solved one
+	 * @param blank      position of the blank tile
+	 * @param statistics statistics to record the lookups in
+	 * @return moves solving the arrangement
+	 */
+	private List<Direction> solve(int[] tiles, int blank, SearchStatistics statistics) {
+		List<Direction> moves = new ArrayList<>();
+		int last = tiles.length - 1;
+		int distance = get(table, rank(tiles, rows, columns));
+		// Distances repeat every 15 moves, so look for the solved arrangement itself
+		while (!isSolved(tiles)) {
+			statistics.expanded(distance, 0, 0);
+			int closer = (distance + MODULUS - 1) % MODULUS;
+			int moved = moves.size();
+			for (Direction direction : DIRECTIONS) {
+				int next = neighbor(blank, direction, rows, columns);
+				if (next < 0)
+					continue;
+				statistics.generated();
+				tiles[blank] = tiles[next];
+				tiles[next] = last;
+				if (get(table, rank(tiles, rows, columns)) == closer) {
+					moves.add(direction);
+					blank = next;
+					distance = closer;
+					break;
+				}
+				tiles[next] = tiles[blank];
+				tiles[blank] = last;
+			}
+			if (moves.size() == moved)
+				throw new IllegalStateException("No move leads closer to the solved puzzle!");
+		}
+		return moves;
+	}
+
+	private static boolean isSolved(int[] tiles) {
+		for (int position = 0; position < tiles.length; ++position)
+			if (tiles[position] != position)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Determines whether an arrangement can be solved, by comparing the
+	 * parity of the number of inversions among the tiles in reading order
+	 * with the parity the position of the blank tile calls for.  Every
+	 * arrangement of a puzzle with at least two rows and two columns that
+	 * passes can be solved; a single row or column has fewer still.
+	 *
+	 * @param tiles   goal position of the tile at each position
+	 * @param rows    number of rows
+	 * @param columns number of columns
+	 * @return true if the parity matches, false otherwise
+	 */
+	static boolean isSolvable(int[] tiles, int rows, int columns) {
+		int last = tiles.length - 1;
+		int blank = 0;
+		int parity = 0;
+		int used = 0;
+		for (int position = 0; position < tiles.length; ++position) {
+			int tile = tiles[position];
+			if (tile == last) {
+				blank = position;
+				continue;
+			}
+			// Tiles above this one that came before it
+			parity ^= Integer.bitCount(used & ~((2 << tile) - 1)) & 1;
+			used |= 1 << tile;
+		}
+		return parity == ((columns - 1) * (rows - 1 - blank / columns) & 1);
+	}
+
+	/**
+	 * Builds the table for a puzzle size by breadth-first search from the
+	 * solved puzzle, writing it to a file.  Each level of the search is kept
+	 * in a temporary file next to it.
+	 *
+	 * @param rows    number of rows
+	 * @param columns number of columns
+	 * @param file    file to write
+	 * @return table, memory mapped from the file
+	 * @throws IOException if the files cannot be written
+	 * @throws IllegalArgumentException if the puzzle has fewer than 3 or more
+	 *                                  than {@value #MAXIMUM_POSITIONS} positions
+	 */
+	static DistanceTable generate(int rows, int columns, Path file) throws IOException {
+		int positions = rows * columns;
+		if (rows < 1 || columns < 1 || positions < 3 || positions > MAXIMUM_POSITIONS)
+			throw new IllegalArgumentException("Puzzle must have 3 to " + MAXIMUM_POSITIONS + " positions!");
+		long bytes = (arrangements(positions) + 1) / 2;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + bytes);
+			mapped.putInt(MAGIC).putInt(rows).putInt(columns).putInt(0);
+			// Every entry starts out unseen
+			ByteBuffer table = mapped.slice();
+			byte[] unseen = new byte[(int) Math.min(bytes, 1 << 16)];
+			Arrays.fill(unseen, (byte) (UNSEEN << 4 | UNSEEN));
+			while (table.hasRemaining())
+				table.put(unseen, 0, Math.min(unseen.length, table.remaining()));
+			table.clear();
+
+			int[] tiles = new int[positions];
+			for (int position = 0; position < positions; ++position)
+				tiles[position] = position;
+			Path directory = file.toAbsolutePath().getParent();
+			Path frontier = Files.createTempFile(directory, "frontier", ".tmp");
+			Path next = Files.createTempFile(directory, "frontier", ".tmp");
+			try {
+				int solved = rank(tiles, rows, columns);
+				set(table, solved, 0);
+				try (DataOutputStream output = open(frontier)) {
+					output.writeInt(solved);
+				}
+				long count = 1;
+				int depth = 0;
+				while (true) {
+					long nextCount = expand(frontier, count, next, (depth + 1) % MODULUS, table, rows, columns);
+					if (nextCount == 0)
+						break;
+					depth++;
+					count = nextCount;
+					Path swap = frontier;
+					frontier = next;
+					next = swap;
+				}
+				mapped.putInt(12, depth);
+				mapped.force();
+				return new DistanceTable(rows, columns, depth, table);
+			} finally {
+				Files.deleteIfExists(frontier);
+				Files.deleteIfExists(next);
+			}
+		}
+	}
+
+	/**
+	 * Expands one level of the breadth-first search, marking every unseen
+	 * arrangement one move away from it and writing it to the next level.
+	 *
+	 * @param frontier file of the arrangement numbers of the level
+	 * @param count    number of arrangements in the level
+	 * @param next     file to write the next level to
+	 * @param distance distance of the next level, modulo 15
+	 * @param table    table to mark the arrangements in
+	 * @param rows     number of rows
+	 * @param columns  number of columns
+	 * @return number of arrangements in the next level
+	 * @throws IOException if a file cannot be read or written
+	 */
+	private static long expand(Path frontier, long count, Path next, int distance, ByteBuffer table,
+			int rows, int columns) throws IOException {
+		int[] tiles = new int[rows * columns];
+		int last = tiles.length - 1;
+		long nextCount = 0;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(frontier), 1 << 16));
+				DataOutputStream output = open(next)) {
+			for (long i = 0; i < count; ++i) {
+				int blank = unrank(input.readInt(), tiles, rows, columns);
+				for (Direction direction : DIRECTIONS) {
+					int neighbor = neighbor(blank, direction, rows, columns);
+					if (neighbor < 0)
+						continue;
+					tiles[blank] = tiles[neighbor];
+					tiles[neighbor] = last;
+					int index = rank(tiles, rows, columns);
+					if (get(table, index) == UNSEEN) {
+						set(table, index, distance);
+						output.writeInt(index);
+						nextCount++;
+					}
+					tiles[neighbor] = tiles[blank];
+					tiles[blank] = last;
+				}
+			}
+		}
+		return nextCount;
+	}
+
+	private static DataOutputStream open(Path file) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+	}
+
+	/**
+	 * Loads a table by memory mapping a file written by
+	 * {@link #generate(int, int, Path)}.
+	 *
+	 * @param file file to read
+	 * @return distance table
+	 * @throws IOException if the file cannot be read or is not a distance
+	 *                     table
+	 */
+	static DistanceTable load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (mapped.remaining() < HEADER || mapped.getInt() != MAGIC)
+				throw new IOException(file + " is not a distance table");
+			int rows = mapped.getInt();
+			int columns = mapped.getInt();
+			int depth = mapped.getInt();
+			if (rows < 1 || columns < 1 || rows * columns < 3 || rows * columns > MAXIMUM_POSITIONS
+					|| mapped.remaining() != (arrangements(rows * columns) + 1) / 2)
+				throw new IOException(file + " is truncated");
+			// The mapping stays valid after the channel is closed
+			return new DistanceTable(rows, columns, depth, mapped.slice());
+		}
+	}
+
+	/**
+	 * Number of solvable arrangements of a puzzle.
+	 *
+	 * @param positions number of positions
+	 * @return positions! / 2
+	 */
+	static long arrangements(int positions) {
+		long count = 1;
+		for (int i = 3; i <= positions; ++i)
+			count *= i;
+		return count;
+	}
+
+	/**
+	 * Finds the position the blank tile moves to.
+	 *
+	 * @param blank     position of the blank tile
+	 * @param direction direction of the move
+	 * @param rows      number of rows
+	 * @param columns   number of columns
+	 * @return new position of the blank tile, or -1 if the move is illegal
+	 */
+	private static int neighbor(int blank, Direction direction, int rows, int columns) {
+		int row = blank / columns + direction.getRowChange();
+		int column = blank % columns + direction.getColumnChange();
+		if (row < 0 || row >= rows || column < 0 || column >= columns)
+			return -1;
+		return row * columns + column;
+	}
+
+	/**
+	 * Numbers a solvable arrangement.  The number is the blank tile's
+	 * position times (positions - 1)! / 2, plus the Lehmer code of the other
+	 * tiles in reading order without its last two digits, which are always
+	 * 0 and decided by parity.
+	 *
+	 * @param tiles   goal position of the tile at each position, row by row,
+	 *                with positions - 1 for the blank tile
+	 * @param rows    number of rows
+	 * @param columns number of columns
+	 * @return number of the arrangement, from 0 to positions! / 2 - 1
+	 */
+	static int rank(int[] tiles, int rows, int columns) {
+		int last = tiles.length - 1;
+		int blank = 0;
+		int index = 0;
+		int used = 0;
+		int digits = 0;
+		for (int position = 0; position < tiles.length; ++position) {
+			int tile = tiles[position];
+			if (tile == last) {
+				blank = position;
+				continue;
+			}
+			if (digits < last - 2) {
+				// Count the tiles below this one that are still to come
+				index = index * (last - digits) + tile - Integer.bitCount(used & ((1 << tile) - 1));
+				used |= 1 << tile;
+			}
+			digits++;
+		}
+		return blank * HALVES[tiles.length] + index;
+	}
+
+	/**
+	 * Finds a solvable arrangement from its number, reversing
+	 * {@link #rank(int[], int, int)}.
+	 *
+	 * @param number  number of the arrangement
+	 * @param tiles   array to fill with the goal position of the tile at each
+	 *                position
+	 * @param rows    number of rows
+	 * @param columns number of columns
+	 * @return position of the blank tile
+	 */
+	static int unrank(int number, int[] tiles, int rows, int columns) {
+		int last = tiles.length - 1;
+		int half = HALVES[tiles.length];
+		int blank = number / half;
+		int index = number % half;
+		// Moving the blank tile up past a row moves one tile past columns - 1 others
+		int parity = (columns - 1) * (rows - 1 - blank / columns) & 1;
+		int[] digits = new int[last];
+		for (int i = last - 3; i >= 0; --i) {
+			digits[i] = index % (last - i);
+			index /= last - i;
+			parity ^= digits[i] & 1;
+		}
+		// The second last digit makes the number of inversions match the parity
+		digits[last - 2] = parity;
+		int used = 0;
+		int position = 0;
+		for (int i = 0; i < last; ++i) {
+			if (position == blank)
+				tiles[position++] = last;
+			// Take the free tile with the given number of free tiles below it
+			int tile = -1;
+			for (int digit = digits[i]; digit >= 0; )
+				if ((used >>> ++tile & 1) == 0)
+					digit--;
+			used |= 1 << tile;
+			tiles[position++] = tile;
+		}
+		if (position == blank)
+			tiles[position] = last;
+		return blank;
+	}
+
+	private static int get(ByteBuffer table, int index) {
+		return table.get(index >>> 1) >>> ((index & 1) << 2) & 0xF;
+	}
+
+	private static void set(ByteBuffer table, int index, int distance) {
+		int shift = (index & 1) << 2;
+		int value = table.get(index >>> 1);
+		table.put(index >>> 1, (byte) (value & ~(0xF << shift) | distance << shift));
+	}
+}
@@ -0,0 +1,103 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test {@link DistanceTable}.
+ */
+class DistanceTableTests {
+
+	/**
+	 * Checks that every number of a 2 x 3 and a 3 x 2 puzzle is the number of
+	 * a different solvable arrangement that ranks back to it.
+	 */
+	@Test
+	void rankTest() {
+		for (int[] shape : new int[][] { { 2, 3 }, { 3, 2 }, { 3, 3 } }) {
+			int rows = shape[0];
+			int columns = shape[1];
+			int[] tiles = new int[rows * columns];
+			for (int number = 0; number < DistanceTable.arrangements(tiles.length); ++number) {
+				int blank = DistanceTable.unrank(number, tiles, rows, columns);
+				assertEquals(tiles.length - 1, tiles[blank], "Blank tile is misplaced!");
+				assertTrue(DistanceTable.isSolvable(tiles, rows, columns), "Arrangement is not solvable!");
+				assertEquals(number, DistanceTable.rank(tiles, rows, columns), "Rank does not match!");
+			}
+		}
+		int[] solved = { 0, 1, 2, 3, 4, 5, 6, 7, 8 };
+		int[] swapped = { 1, 0, 2, 3, 4, 5, 6, 7, 8 };
+		assertTrue(DistanceTable.isSolvable(solved, 3, 3), "Solved puzzle should be solvable!");
+		assertTrue(!DistanceTable.isSolvable(swapped, 3, 3), "Swapped tiles should not be solvable!");
+	}
+
+	/**
+	 * Builds the 8-puzzle table, then checks its depth and that it solves
+	 * the hardest positions and random puzzles optimally, before and after
+	 * loading it from its file.
+	 *
+	 * @throws IOException if the file cannot be written or read
+	 */
+	@Test
+	void tableTest() throws IOException {
+		Path directory = Files.createTempDirectory("dst");
+		Path file = directory.resolve(DistanceTable.fileName(3, 3));
+		try {
+			DistanceTable table = DistanceTable.generate(3, 3, file);
+			assertEquals(31, table.getDepth(), "8-puzzles need up to 31 moves!");
+			assertEquals(0, table.distance(new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8 }), "Solved puzzle should be 0!");
+			try (var files = Files.list(directory)) {
+				assertEquals(1, files.count(), "Frontier files were left behind!");
+			}
+			DistanceTable loaded = DistanceTable.load(file);
+			assertEquals(31, loaded.getDepth(), "Depth was not saved!");
+			for (Search search : new Search[] { table, loaded }) {
+				SearchTests.assertOptimal(search, SearchTests.state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+				SearchTests.assertOptimal(search, SearchTests.state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+				SearchTests.assertOptimal(search, SearchTests.state(1, 2, 3, 4, 5, 6, 7, 8, 0), 0);
+				assertNull(search.solve(SearchTests.state(2, 1, 3, 4, 5, 6, 7, 8, 0)), "Solved an unsolvable puzzle!");
+			}
+			Random random = new Random(23);
+			for (int i = 0; i < 20; ++i) {
+				State state = State.of(PuzzleGenerator.uniform(3, random));
+				SearchTests.assertOptimal(loaded, state, new IdaStarSearch().solve(state).length());
+			}
+		} finally {
+			Files.deleteIfExists(file);
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Builds the table of a 2 x 4 puzzle, which is not square, and checks
+	 * its depth and the moves it finds for an arrangement.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	void rectangleTest() throws IOException {
+		Path file = Files.createTempFile("dst", ".dst");
+		try {
+			DistanceTable table = DistanceTable.generate(2, 4, file);
+			assertEquals(36, table.getDepth(), "2 x 4 puzzles need up to 36 moves!");
+			// One move from solved, with the blank tile moved left
+			assertEquals(1, table.distance(new int[] { 0, 1, 2, 3, 4, 5, 7, 6 }), "Distance is incorrect!");
+			int[] tiles = new int[8];
+			int blank = DistanceTable.unrank(0, tiles, 2, 4);
+			// With the blank tile a row up, the other tiles need an odd number of inversions
+			assertArrayEquals(new int[] { 7, 0, 1, 2, 3, 4, 6, 5 }, tiles, "First arrangement is incorrect!");
+			assertEquals(0, blank, "Blank tile is misplaced!");
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
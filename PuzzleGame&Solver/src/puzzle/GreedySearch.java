@@ -0,0 +1,77 @@
+package puzzle;
+
+import java.util.PriorityQueue;
+
+/**
+ * Greedy best-first search, which always expands the {@link State} with the
+ * lowest estimated cost.  It is fast on small puzzles but its solutions are
+ * usually far from the shortest.
+ */
+class GreedySearch implements Search {
+
+	private final long memoryLimit;		// Most bytes of states and visited boards to keep
+
+	/**
+	 * Constructor for a search with no memory limit.
+	 */
+	GreedySearch() {
+		this(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Constructor for a search that gives up rather than hold more than a
+	 * given amount of memory.
+	 *
+	 * @param memoryLimit approximate number of bytes the search may use
+	 */
+	GreedySearch(long memoryLimit) {
+		this.memoryLimit = memoryLimit;
+	}
+
+	@Override
+	public Solution solve(State startingState) {
+		//Creating queue and adding the startingState to it
+		PriorityQueue<State> priorityQueue = new PriorityQueue<>();
+		priorityQueue.add(startingState);
+		//Creating set of visited boards
+		ClosedSet set = new ClosedSet(startingState.getSize());
+		long stateBytes = State.bytes(startingState.getSize());
+		SearchStatistics statistics = new SearchStatistics("greedy");
+		//While queue is not empty it decides if the state isSolved or canMove
+		//If the state canMove then it moves in that direction, unless that undoes its last move
+		while (!priorityQueue.isEmpty()) {
+			State state = priorityQueue.remove();
+			if (set.add(state.getBoard(), state.getDepth(), state.getMove())) {
+				if (state.isSolved()) {
+					return new Solution(set.path(state.getBoard()), statistics.finish(state.getDepth()));
+				}
+				statistics.expanded(state.getCost(), priorityQueue.size(), set.size());
+				//States are only held by the queue, and their paths by the set of visited boards
+				if (priorityQueue.size() * stateBytes + set.bytes() > memoryLimit) {
+					statistics.finish(-1);
+					throw new SearchAbortedException("Memory limit of " + memoryLimit + " bytes exceeded");
+				}
+				if (state.canMove(Direction.LEFT) && !state.isReverse(Direction.LEFT)) {
+					priorityQueue.add(state.move(Direction.LEFT));
+					statistics.generated();
+				}
+				if (state.canMove(Direction.RIGHT) && !state.isReverse(Direction.RIGHT)) {
+					priorityQueue.add(state.move(Direction.RIGHT));
+					statistics.generated();
+				}
+				if (state.canMove(Direction.UP) && !state.isReverse(Direction.UP)) {
+					priorityQueue.add(state.move(Direction.UP));
+					statistics.generated();
+				}
+				if (state.canMove(Direction.DOWN) && !state.isReverse(Direction.DOWN)) {
+					priorityQueue.add(state.move(Direction.DOWN));
+					statistics.generated();
+				}
+			} else
+				statistics.duplicate();
+		}
+		//No solution was found
+		statistics.finish(-1);
+		return null;
+	}
+}
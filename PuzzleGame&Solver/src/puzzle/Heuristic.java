@@ -0,0 +1,88 @@
+package puzzle;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Estimate of the number of moves needed to solve a packed board (see
+ * {@link Board}) of one size.  Searches accept any implementation; the
+ * optimal ones need estimates that never exceed the real number of moves
+ * and never drop by more than one per move.
+ * <p>
+ * Besides estimating a board from scratch, a heuristic can estimate a board
+ * from the estimate of the board one move before it.  Heuristics where a
+ * single move only changes a few terms should override
+ * {@link #update(long[], int, int, int, int)} so that generating a
+ * successor does not rescan the whole board.
+ * <p>
+ * Boards are arrays of {@code long} holding, for each position (row * size
+ * + column), the goal position of the tile there (tile number - 1, with the
+ * blank tile as size*size - 1).  Tiles take 4 bits each up to 4 x 4 and 8
+ * bits each above, and {@link #tile(long[], int, int)} reads them.
+ */
+public interface Heuristic {
+
+	/**
+	 * Creates a heuristic from its name: "manhattan", "linear" (Manhattan
+	 * distance plus linear conflicts), "walking" (walking distance, up to
+	 * 4 x 4), or the path of a directory of pattern databases.
+	 *
+	 * @param name name of the heuristic
+	 * @param size number of rows and columns
+	 * @return heuristic for that size
+	 * @throws IOException if the pattern databases cannot be read
+	 */
+	static Heuristic forName(String name, int size) throws IOException {
+		switch (name.toLowerCase()) {
+		case "manhattan": return ManhattanDistance.forSize(size);
+		case "linear": return new LinearConflict(size);
+		case "walking": return WalkingDistance.forSize(size);
+		default: return PatternDatabaseHeuristic.load(Paths.get(name), size);
+		}
+	}
+
+	/**
+	 * Reads the tile at a position of a packed board.
+	 *
+	 * @param board    packed board
+	 * @param size     number of rows and columns
+	 * @param position row * size + column
+	 * @return goal position of the tile (size*size - 1 for the blank tile)
+	 */
+	static int tile(long[] board, int size, int position) {
+		return Board.get(board, size, position);
+	}
+
+	/**
+	 * Accessor for the number of rows and columns of the boards this
+	 * heuristic estimates.
+	 *
+	 * @return size of puzzle
+	 */
+	int getSize();
+
+	/**
+	 * Estimates the cost in moves of solving a board.
+	 *
+	 * @param board packed board
+	 * @return estimated cost in moves
+	 */
+	int estimate(long[] board);
+
+	/**
+	 * Estimates the cost in moves of solving a board that was reached by
+	 * sliding one tile into the blank position, given the estimate of the
+	 * board before the move.
+	 *
+	 * @param board    packed board after the move
+	 * @param estimate estimate of the board before the move
+	 * @param tile     goal position of the tile that moved
+	 * @param from     position of the tile before the move
+	 * @param to       position of the tile after the move (where the blank
+	 *                 tile was)
+	 * @return estimated cost in moves
+	 */
+	default int update(long[] board, int estimate, int tile, int from, int to) {
+		return estimate(board);
+	}
+}
@@ -0,0 +1,120 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test {@link Heuristic} implementations.
+ */
+class HeuristicTests {
+
+	/**
+	 * Generates 8-puzzle pattern databases and checks that they never
+	 * estimate less than Manhattan distance and that updates match estimates
+	 * from scratch.
+	 */
+	@Test
+	void patternDatabaseTest() {
+		Heuristic heuristic = new PatternDatabaseHeuristic(generate(3));
+		assertEquals(0, heuristic.estimate(Board.goal(3)), "Solved board should cost 0!");
+		assertUpdates(heuristic);
+	}
+
+	/**
+	 * Solves the two hardest 8-puzzle positions with pattern databases that
+	 * were saved and memory mapped, and checks that the solutions are optimal.
+	 *
+	 * @throws IOException if the files cannot be written or read
+	 */
+	@Test
+	void patternDatabaseFileTest() throws IOException {
+		Path directory = Files.createTempDirectory("pdb");
+		List<Path> files = new ArrayList<>();
+		try {
+			for (PatternDatabase database : generate(3)) {
+				files.add(directory.resolve(database.getFileName()));
+				database.save(files.get(files.size() - 1));
+			}
+			Heuristic heuristic = PatternDatabaseHeuristic.load(directory, 3);
+			SearchTests.assertOptimal(new IdaStarSearch(heuristic), SearchTests.state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+			SearchTests.assertOptimal(new AStarSearch(heuristic), SearchTests.state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+		} finally {
+			for (Path file : files)
+				Files.deleteIfExists(file);
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Checks that linear conflict estimates match known values and that
+	 * updates match estimates from scratch.
+	 */
+	@Test
+	void linearConflictTest() {
+		Heuristic heuristic = new LinearConflict(3);
+		// Tiles 2 and 1 are swapped in the top row: Manhattan distance 2 plus one conflict
+		assertEquals(4, heuristic.estimate(SearchTests.state(2, 1, 3, 4, 5, 6, 7, 8, 0).getBoard()), "Estimate is incorrect!");
+		// Tiles 3, 2 and 1 are reversed in the top row: Manhattan distance 4 plus two conflicts
+		assertEquals(8, heuristic.estimate(SearchTests.state(3, 2, 1, 4, 5, 6, 7, 8, 0).getBoard()), "Estimate is incorrect!");
+		assertUpdates(heuristic);
+		assertUpdates(new LinearConflict(4));
+		assertUpdates(new LinearConflict(5));
+	}
+
+	/**
+	 * Checks that walking distance updates match estimates from scratch and
+	 * that it solves the two hardest 8-puzzle positions optimally.
+	 */
+	@Test
+	void walkingDistanceTest() {
+		assertEquals(0, WalkingDistance.forSize(4).estimate(Board.goal(4)), "Solved board should cost 0!");
+		assertUpdates(WalkingDistance.forSize(3));
+		assertUpdates(WalkingDistance.forSize(4));
+		SearchTests.assertOptimal(new IdaStarSearch(WalkingDistance.forSize(3)), SearchTests.state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+		SearchTests.assertOptimal(new IdaStarSearch(new LinearConflict(3)), SearchTests.state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+	}
+
+	/**
+	 * Makes random moves from a solved puzzle and checks that each updated
+	 * estimate matches a full estimate and is at least Manhattan distance.
+	 *
+	 * @param heuristic heuristic to check
+	 */
+	private static void assertUpdates(Heuristic heuristic) {
+		int size = heuristic.getSize();
+		Heuristic manhattan = ManhattanDistance.forSize(size);
+		State state = new State(Board.goal(size), size, heuristic, size - 1, size - 1);
+		Random random = new Random(size);
+		for (int i = 0; i < 2000; ++i) {
+			Direction direction = Direction.values()[random.nextInt(4)];
+			if (state.canMove(direction)) {
+				state = state.move(direction, heuristic);
+				// The updated cost must match a full estimate
+				assertEquals(heuristic.estimate(state.getBoard()), state.getCost(), "The updated cost is incorrect!");
+				assertTrue(state.getCost() >= manhattan.estimate(state.getBoard()), "Estimate is below Manhattan distance!");
+			}
+		}
+	}
+
+	/**
+	 * Generates the default pattern databases for a puzzle size.
+	 *
+	 * @param size number of rows and columns
+	 * @return pattern databases
+	 */
+	private static List<PatternDatabase> generate(int size) {
+		List<PatternDatabase> databases = new ArrayList<>();
+		for (int[] pattern : PatternDatabase.defaultPartition(size))
+			databases.add(PatternDatabase.generate(size, pattern));
+		return databases;
+	}
+}
@@ -0,0 +1,389 @@
+package puzzle;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hints for a player solving a puzzle by hand: the next move of a shortest
+ * solution from the board the player has reached, given within a time
+ * budget.
+ * <p>
+ * The engine keeps a plan of moves to the goal, along with a lower bound on
+ * the number of moves left before each move of it, and plans on its own
+ * thread while the player thinks.  The plan is optimal once its length
+ * reaches the bound, and a hint is then just its first move.  Following the
+ * plan keeps it optimal.  Any other move is undone by the plan, which is
+ * then at most two moves too long, so the planner only searches the depths
+ * below its length with IDA* to either find a shorter plan or prove it
+ * optimal.  The bound is raised after every depth searched, so no depth is
+ * searched twice for the same board.
+ * <p>
+ * If the plan is not known to be optimal when the budget runs out, the hint
+ * is its first move anyway or, before there is any plan, the move with the
+ * lowest estimate, and it is marked as not known to be optimal.  Puzzles
+ * too large to solve optimally in reasonable time can be given an engine
+ * that does not plan at all and only gives such guesses.
+ */
+final class HintEngine {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int CHECK_INTERVAL = 4096;	// Expansions between checks for a moved board
+
+	/**
+	 * Move suggested to the player.
+	 */
+	static final class Hint {
+		private final Direction move;
+		private final int movesLeft;
+		private final boolean optimal;
+
+		private Hint(Direction move, int movesLeft, boolean optimal) {
+			this.move = move;
+			this.movesLeft = movesLeft;
+			this.optimal = optimal;
+		}
+
+		/**
+		 * Accessor for the move to make.
+		 *
+		 * @return direction the tile slides in
+		 */
+		Direction getMove() {
+			return move;
+		}
+
+		/**
+		 * Accessor for the length of the plan the move starts.
+		 *
+		 * @return number of moves to the goal, or -1 if there is no plan yet
+		 */
+		int getMovesLeft() {
+			return movesLeft;
+		}
+
+		/**
+		 * Determines whether the move is known to start a shortest solution.
+		 *
+		 * @return true if the plan is optimal, false otherwise
+		 */
+		boolean isOptimal() {
+			return optimal;
+		}
+	}
+
+	private final Heuristic heuristic;
+	private final int size;
+
+	// Guarded by this, and only changed by the player's moves or a finished search
+	private long[] board;
+	private int blankRow;
+	private int blankColumn;
+	private Deque<Direction> plan;				// Moves to the goal, or null before the first plan
+	private int lowerBound;						// Fewest moves the current board can be solved in
+	private final Deque<Integer> laterBounds = new ArrayDeque<>();	// Bounds after each move of the plan but the last
+	private volatile boolean closed;			// Read by the search without the lock
+	private volatile int version;				// Changed by every move, so searches of older boards stop
+
+	/**
+	 * Constructor for an engine using the given heuristic, hinting the
+	 * solved puzzle until it is given a board.
+	 *
+	 * @param heuristic heuristic for the size of the puzzles to play
+	 */
+	HintEngine(Heuristic heuristic) {
+		this(heuristic, true);
+	}
+
+	/**
+	 * Constructor for an engine using the given heuristic, hinting the
+	 * solved puzzle until it is given a board.
+	 *
+	 * @param heuristic heuristic for the size of the puzzles to play
+	 * @param planning  true to plan on a thread of its own, false to only
+	 *                  give the move with the lowest estimate
+	 */
+	HintEngine(Heuristic heuristic, boolean planning) {
+		this.heuristic = heuristic;
+		size = heuristic.getSize();
+		board = Board.goal(size);
+		blankRow = size - 1;
+		blankColumn = size - 1;
+		if (!planning) {
+			closed = true;
+			return;
+		}
+		Thread planner = new Thread(this::plan, "Hint planner");
+		planner.setDaemon(true);
+		planner.start();
+	}
+
+	/**
+	 * Starts over from a new board, dropping the plan.
+	 *
+	 * @param numbers square array of tile numbers, 0 for the blank tile
+	 * @throws IllegalArgumentException if the numbers are not an arrangement
+	 *                                  of the engine's size
+	 */
+	synchronized void reset(int[][] numbers) {
+		State state = State.of(numbers);
+		if (state.getSize() != size)
+			throw new IllegalArgumentException("Board is for a different puzzle size!");
+		board = state.getBoard().clone();
+		blankRow = state.getBlankRow();
+		blankColumn = state.getBlankColumn();
+		plan = null;
+		laterBounds.clear();
+		lowerBound = heuristic.estimate(board);
+		version++;
+		notifyAll();
+	}
+
+	/**
+	 * Records a move the player made, keeping the plan if it was its first
+	 * move and otherwise adding the move undoing it to the plan.
+	 *
+	 * @param direction direction the tile slid in
+	 * @throws IllegalArgumentException if the move is not possible
+	 */
+	synchronized void moved(Direction direction) {
+		int row = blankRow + direction.getRowChange();
+		int column = blankColumn + direction.getColumnChange();
+		if (row < 0 || row >= size || column < 0 || column >= size)
+			throw new IllegalArgumentException("No tile can slide " + direction + "!");
+		Board.swap(board, size, blankRow * size + blankColumn, row * size + column);
+		blankRow = row;
+		blankColumn = column;
+		version++;
+
+		// One move changes the fewest moves left by exactly one
+		if (plan != null && !plan.isEmpty() && plan.peekFirst() == direction) {
+			plan.removeFirst();
+			Integer later = laterBounds.pollFirst();
+			lowerBound = Math.max(lowerBound - 1, later == null ? 0 : later);
+		} else {
+			if (plan != null) {
+				plan.addFirst(direction.inverse());
+				laterBounds.addFirst(lowerBound);
+			}
+			lowerBound = Math.max(lowerBound - 1, heuristic.estimate(board));
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Suggests the next move, waiting up to a time budget for the plan to be
+	 * known to be optimal.
+	 *
+	 * @param budget longest time to wait
+	 * @return hint, or null if the puzzle is solved
+	 */
+	synchronized Hint hint(Duration budget) {
+		long deadline = System.nanoTime() + budget.toNanos();
+		try {
+			long left;
+			while (needsPlanning() && (left = deadline - System.nanoTime()) > 0)
+				TimeUnit.NANOSECONDS.timedWait(this, left);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (Board.isGoal(board, size))
+			return null;
+		if (plan != null)
+			return new Hint(plan.peekFirst(), plan.size(), lowerBound == plan.size());
+		return new Hint(guess(), -1, false);
+	}
+
+	/**
+	 * Stops the planning thread, abandoning any search in progress.  Hints
+	 * are still given from the plan as it is.
+	 */
+	synchronized void close() {
+		closed = true;
+		version++;
+		notifyAll();
+	}
+
+	/**
+	 * Determines whether the current board needs more searching.  Must be
+	 * called holding the lock.
+	 *
+	 * @return true if the plan is missing or not known to be optimal
+	 */
+	private boolean needsPlanning() {
+		if (closed || Board.isGoal(board, size) || !Board.isSolvable(board, size))
+			return false;
+		return plan == null || lowerBound < plan.size();
+	}
+
+	/**
+	 * Finds the move to the board with the lowest estimate.  Must be called
+	 * holding the lock.
+	 *
+	 * @return direction of the move
+	 */
+	private Direction guess() {
+		Direction best = null;
+		int bestEstimate = Integer.MAX_VALUE;
+		int blank = blankRow * size + blankColumn;
+		for (Direction direction : DIRECTIONS) {
+			int row = blankRow + direction.getRowChange();
+			int column = blankColumn + direction.getColumnChange();
+			if (row < 0 || row >= size || column < 0 || column >= size)
+				continue;
+			int position = row * size + column;
+			Board.swap(board, size, blank, position);
+			int estimate = heuristic.estimate(board);
+			Board.swap(board, size, blank, position);
+			if (estimate < bestEstimate) {
+				best = direction;
+				bestEstimate = estimate;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Body of the planning thread, which searches each board that needs it
+	 * until the engine is closed.
+	 */
+	private void plan() {
+		// Built here rather than by the constructor, as it takes about a second the first time
+		MoveAutomaton automaton = MoveAutomaton.standard();
+		while (true) {
+			Iteration iteration;
+			int bound;
+			int limit;
+			synchronized (this) {
+				try {
+					while (!closed && !needsPlanning())
+						wait();
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (closed)
+					return;
+				iteration = new Iteration(board, blankRow, blankColumn, version, automaton);
+				bound = lowerBound;
+				limit = plan == null ? Integer.MAX_VALUE : plan.size();
+			}
+
+			// Search each depth below the length of the plan, until the board changes
+			int estimate = heuristic.estimate(iteration.board);
+			while (bound < limit) {
+				boolean found = iteration.search(0, estimate, bound, MoveAutomaton.START);
+				synchronized (this) {
+					if (closed || version != iteration.version)
+						break;
+					if (found) {
+						install(iteration);
+						break;
+					}
+					bound = iteration.nextBound;
+					iteration.nextBound = Integer.MAX_VALUE;
+					lowerBound = Math.max(lowerBound, Math.min(bound, limit));
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the plan with the shortest one found by a search.  Must be
+	 * called holding the lock.
+	 *
+	 * @param iteration search that found the plan
+	 */
+	private void install(Iteration iteration) {
+		plan = new ArrayDeque<>(iteration.length);
+		laterBounds.clear();
+		for (int i = 0; i < iteration.length; ++i) {
+			plan.addLast(DIRECTIONS[iteration.path[i]]);
+			if (i > 0)
+				laterBounds.addLast(iteration.length - i);
+		}
+		lowerBound = iteration.length;
+		notifyAll();
+	}
+
+	/**
+	 * Depth-first search bounded by moves made plus estimated cost, as in
+	 * {@link IdaStarSearch}, that gives up once the player moves.
+	 */
+	private final class Iteration {
+		private final MoveAutomaton automaton;
+		private final long[] board;			// Board as it is at the current node
+		private int blankRow;				// Row of blank tile at the current node
+		private int blankColumn;			// Column of blank tile at the current node
+		private final int version;			// Version of the board searched
+		private byte[] path = new byte[64];	// Moves from the start to the current node
+		private int length;					// Length of the plan once found
+		private int nextBound = Integer.MAX_VALUE;	// Smallest total that exceeded the bound
+		private long expanded;
+
+		private Iteration(long[] board, int blankRow, int blankColumn, int version, MoveAutomaton automaton) {
+			this.board = board.clone();
+			this.blankRow = blankRow;
+			this.blankColumn = blankColumn;
+			this.version = version;
+			this.automaton = automaton;
+		}
+
+		/**
+		 * Depth-first search from the current node.
+		 *
+		 * @param moves    number of moves made to reach the current node
+		 * @param estimate estimated cost of the current node
+		 * @param bound    largest total of moves and estimate to search
+		 * @param pruning  state of the automaton after the moves to the
+		 *                 current node
+		 * @return true if a plan was found or the search is stale, false
+		 *         otherwise
+		 */
+		private boolean search(int moves, int estimate, int bound, int pruning) {
+			int total = moves + estimate;
+			if (total > bound) {
+				if (total < nextBound)
+					nextBound = total;
+				return false;
+			}
+			if (estimate == 0 && Board.isGoal(board, size)) {
+				length = moves;
+				return true;
+			}
+			// Unwind as if a plan was found; the caller sees the board changed
+			if (++expanded % CHECK_INTERVAL == 0 && (closed || version != HintEngine.this.version))
+				return true;
+			if (moves == path.length)
+				path = Arrays.copyOf(path, moves * 2);
+
+			int blank = blankRow * size + blankColumn;
+			for (int move = 0; move < DIRECTIONS.length; ++move) {
+				int next = automaton.next(pruning, move);
+				if (next == MoveAutomaton.PRUNED)
+					continue;
+				int row = blankRow + DIRECTIONS[move].getRowChange();
+				int column = blankColumn + DIRECTIONS[move].getColumnChange();
+				if (row < 0 || row >= size || column < 0 || column >= size)
+					continue;
+
+				int position = row * size + column;
+				int tile = Board.get(board, size, position);
+				Board.swap(board, size, blank, position);
+				blankRow = row;
+				blankColumn = column;
+				path[moves] = (byte) move;
+
+				if (search(moves + 1, heuristic.update(board, estimate, tile, position, blank), bound, next))
+					return true;
+
+				Board.swap(board, size, blank, position);
+				blankRow = blank / size;
+				blankColumn = blank % size;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test {@link HintEngine}.
+ */
+class HintEngineTests {
+
+	/**
+	 * Plays random 8-puzzles, sometimes following the hint and sometimes
+	 * making another move, and checks that each hint starts a shortest
+	 * solution and that following the hints solves the puzzle.
+	 */
+	@Test
+	void hintTest() {
+		Random random = new Random(6);
+		Search search = new IdaStarSearch(new LinearConflict(3));
+		HintEngine engine = new HintEngine(new LinearConflict(3));
+		try {
+			for (int puzzle = 0; puzzle < 10; ++puzzle) {
+				int[][] numbers = PuzzleGenerator.uniform(3, random);
+				State state = State.of(numbers);
+				engine.reset(numbers);
+				HintEngine.Hint hint;
+				while ((hint = engine.hint(Duration.ofSeconds(10))) != null) {
+					int fewest = search.solve(state).length();
+					assertTrue(hint.isOptimal(), "Hint should be optimal once planned!");
+					assertEquals(fewest, hint.getMovesLeft(), "Plan is not the shortest!");
+					assertEquals(fewest - 1, search.solve(state.move(hint.getMove())).length(),
+							"Hint does not start a shortest solution!");
+
+					// Deviate from the plan a third of the time, while far enough from the goal
+					Direction move = hint.getMove();
+					if (fewest > 4 && random.nextInt(3) == 0) {
+						List<Direction> others = new ArrayList<>();
+						for (Direction direction : Direction.values())
+							if (direction != move && state.canMove(direction))
+								others.add(direction);
+						move = others.get(random.nextInt(others.size()));
+					}
+					engine.moved(move);
+					state = state.move(move);
+				}
+				assertTrue(state.isSolved(), "No hint before the puzzle is solved!");
+			}
+		} finally {
+			engine.close();
+		}
+	}
+
+	/**
+	 * Checks that a hint is given within its budget before any plan is
+	 * found, as the move with the lowest estimate.
+	 */
+	@Test
+	void budgetTest() {
+		int[][] numbers = { { 0, 12, 9, 13 }, { 15, 11, 10, 14 }, { 3, 7, 2, 5 }, { 4, 8, 6, 1 } };
+		HintEngine engine = new HintEngine(new LinearConflict(4));
+		try {
+			engine.reset(numbers);
+			long start = System.nanoTime();
+			HintEngine.Hint hint = engine.hint(Duration.ofMillis(50));
+			long elapsed = System.nanoTime() - start;
+			assertTrue(elapsed < 500_000_000L, "Hint took " + elapsed / 1_000_000 + " ms!");
+			assertTrue(!hint.isOptimal(), "80-move puzzle cannot be planned that fast!");
+			assertTrue(State.of(numbers).canMove(hint.getMove()), "Hint is not a legal move!");
+			engine.reset(new int[][] { { 1, 2, 3, 4 }, { 5, 6, 7, 8 }, { 9, 10, 11, 12 }, { 13, 14, 15, 0 } });
+			assertNull(engine.hint(Duration.ofMillis(50)), "Solved puzzle needs no hint!");
+		} finally {
+			engine.close();
+		}
+	}
+
+	/**
+	 * Checks that an engine that does not plan gives its guess at once,
+	 * without waiting out the budget.
+	 */
+	@Test
+	void guessTest() {
+		int[][] numbers = PuzzleGenerator.uniform(5, new Random(7));
+		HintEngine engine = new HintEngine(new LinearConflict(5), false);
+		engine.reset(numbers);
+		long start = System.nanoTime();
+		HintEngine.Hint hint = engine.hint(Duration.ofSeconds(10));
+		long elapsed = System.nanoTime() - start;
+		assertTrue(elapsed < 1_000_000_000L, "Hint took " + elapsed / 1_000_000 + " ms!");
+		assertEquals(-1, hint.getMovesLeft(), "Engine should not have planned!");
+		assertTrue(State.of(numbers).canMove(hint.getMove()), "Hint is not a legal move!");
+	}
+}
@@ -0,0 +1,302 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Iterative-deepening A* search, which runs depth-first searches bounded by
+ * the number of moves made plus the estimated cost, raising the bound to the
+ * smallest value that exceeded it until a solution is found.  Solutions are
+ * optimal as long as the heuristic never overestimates.
+ * <p>
+ * Each search slides tiles on a single packed board and slides them back
+ * when it returns, updating the heuristic incrementally, so no objects are
+ * created per node and memory only grows with the length of the solution.
+ * <p>
+ * With no closed set to catch states reached twice, moves are pruned with a
+ * {@link MoveAutomaton} run along the current path.  The default one only
+ * skips moving straight back; one recognizing longer duplicate sequences
+ * skips more of the states reached again by another path.
+ * <p>
+ * Alternatively, the search can remember what it learned in a
+ * {@link TranspositionTable}.  Once the subtree of a board has been searched,
+ * the table holds the fewest moves it could have left, which is usually more
+ * than the heuristic's estimate and cuts the board off sooner when it is
+ * reached again in the same or a later iteration.  A board reached again in
+ * the same iteration with no fewer moves made is skipped outright, as its
+ * subtree was already searched with at least as many moves to spare.
+ * <p>
+ * The fewest moves left are only learned soundly from subtrees searched in
+ * full, so with a table the only moves skipped are those straight back, and
+ * the board moved back to still counts towards the moves left.
+ */
+class IdaStarSearch implements Search {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int FOUND = -1;		// Returned by a search with a table that found a solution
+
+	private static final MoveAutomaton INVERSES = new MoveAutomaton(2);	// Only skips moving straight back
+
+	private final Heuristic heuristic;		// Heuristic, or null for Manhattan distance
+	private final MoveAutomaton automaton;	// Duplicate move sequences to skip
+	private final TranspositionTable table;	// What earlier searches learned, or null for none
+
+	/**
+	 * Constructor for a search using Manhattan distance.
+	 */
+	IdaStarSearch() {
+		this(null);
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic.
+	 *
+	 * @param heuristic heuristic for the size of the puzzles to solve
+	 */
+	IdaStarSearch(Heuristic heuristic) {
+		this(heuristic, INVERSES);
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic that skips the
+	 * duplicate move sequences recognized by an automaton.
+	 *
+	 * @param heuristic heuristic for the size of the puzzles to solve
+	 * @param automaton automaton recognizing duplicate move sequences (see
+	 *                  {@link MoveAutomaton#standard()})
+	 */
+	IdaStarSearch(Heuristic heuristic, MoveAutomaton automaton) {
+		this.heuristic = heuristic;
+		this.automaton = automaton;
+		table = null;
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic that keeps what it
+	 * learns about the boards it searches in a table.  The table can be
+	 * shared with other searches of the same puzzle size, including ones
+	 * running at the same time, as the fewest moves left from a board do not
+	 * depend on where the search started.
+	 *
+	 * @param heuristic heuristic for the size of the puzzles to solve
+	 * @param table     table of boards searched
+	 */
+	IdaStarSearch(Heuristic heuristic, TranspositionTable table) {
+		this.heuristic = heuristic;
+		automaton = INVERSES;
+		this.table = table;
+	}
+
+	@Override
+	public Solution solve(State startingState) {
+		int size = startingState.getSize();
+		Heuristic heuristic = this.heuristic == null ? ManhattanDistance.forSize(size) : this.heuristic;
+		if (heuristic.getSize() != size)
+			throw new IllegalArgumentException("Heuristic is for a different puzzle size!");
+
+		Iteration iteration = new Iteration(startingState, heuristic, automaton, table);
+		int estimate = heuristic.estimate(iteration.board);
+		int bound = estimate;
+		iteration.statistics.bound(bound);
+		// Each iteration searches every state whose estimated total is at most bound
+		while (!iteration.search(estimate, bound)) {
+			if (iteration.nextBound == Integer.MAX_VALUE) {
+				iteration.statistics.finish(-1);
+				return null;
+			}
+			bound = iteration.nextBound;
+			iteration.nextBound = Integer.MAX_VALUE;
+			iteration.statistics.bound(bound);
+		}
+
+		List<Direction> moves = new ArrayList<>(iteration.length);
+		for (int i = 0; i < iteration.length; ++i)
+			moves.add(DIRECTIONS[iteration.path[i]]);
+		return new Solution(moves, iteration.statistics.finish(iteration.length));
+	}
+
+	/**
+	 * Working state of one call to {@link IdaStarSearch#solve(State)}.
+	 */
+	private static final class Iteration {
+		private final Heuristic heuristic;
+		private final MoveAutomaton automaton;
+		private final TranspositionTable table;
+		private final int size;
+		private final long[] board;			// Board as it is at the current node
+		private int blankRow;				// Row of blank tile at the current node
+		private int blankColumn;			// Column of blank tile at the current node
+		private byte[] path;				// Moves from the start to the current node
+		private int length;					// Length of the solution once found
+		private int nextBound = Integer.MAX_VALUE;	// Smallest total that exceeded the bound
+		private int pass;					// Number of the table iteration being searched
+		private final SearchStatistics statistics = new SearchStatistics("IDA*");
+
+		private Iteration(State startingState, Heuristic heuristic, MoveAutomaton automaton, TranspositionTable table) {
+			this.heuristic = heuristic;
+			this.automaton = automaton;
+			this.table = table;
+			size = startingState.getSize();
+			board = startingState.getBoard().clone();
+			blankRow = startingState.getBlankRow();
+			blankColumn = startingState.getBlankColumn();
+			path = new byte[64];
+		}
+
+		/**
+		 * Depth-first search from the starting node.
+		 *
+		 * @param estimate estimated cost of the starting node
+		 * @param bound    largest total of moves and estimate to search
+		 * @return true if a solution was found, false otherwise
+		 */
+		private boolean search(int estimate, int bound) {
+			if (table == null)
+				return search(0, estimate, bound, MoveAutomaton.START);
+			pass = table.iteration();
+			return search(0, estimate, bound, -1, 0) == FOUND;
+		}
+
+		/**
+		 * Depth-first search from the current node.
+		 *
+		 * @param moves    number of moves made to reach the current node
+		 * @param estimate estimated cost of the current node
+		 * @param bound    largest total of moves and estimate to search
+		 * @param pruning  state of the automaton after the moves to the
+		 *                 current node
+		 * @return true if a solution was found, false otherwise
+		 */
+		private boolean search(int moves, int estimate, int bound, int pruning) {
+			int total = moves + estimate;
+			if (total > bound) {
+				if (total < nextBound)
+					nextBound = total;
+				return false;
+			}
+			// A solved board is always estimated at 0
+			if (estimate == 0 && Board.isGoal(board, size)) {
+				length = moves;
+				return true;
+			}
+			statistics.expanded(estimate, moves, 0);
+			if (moves == path.length)
+				path = Arrays.copyOf(path, moves * 2);
+
+			int blank = blankRow * size + blankColumn;
+			for (int move = 0; move < DIRECTIONS.length; ++move) {
+				// Skip moves that complete a duplicate sequence, such as moving back the way we came
+				int next = automaton.next(pruning, move);
+				if (next == MoveAutomaton.PRUNED)
+					continue;
+				int row = blankRow + DIRECTIONS[move].getRowChange();
+				int column = blankColumn + DIRECTIONS[move].getColumnChange();
+				if (row < 0 || row >= size || column < 0 || column >= size)
+					continue;
+
+				// Slide the tile into the blank position
+				statistics.generated();
+				int position = row * size + column;
+				int tile = Board.get(board, size, position);
+				Board.swap(board, size, blank, position);
+				blankRow = row;
+				blankColumn = column;
+				path[moves] = (byte) move;
+
+				if (search(moves + 1, heuristic.update(board, estimate, tile, position, blank), bound, next))
+					return true;
+
+				// Slide it back
+				Board.swap(board, size, blank, position);
+				blankRow = blank / size;
+				blankColumn = blank % size;
+			}
+			return false;
+		}
+
+		/**
+		 * Depth-first search from the current node that looks up and stores
+		 * the fewest moves left from each board in the table.
+		 *
+		 * @param moves        number of moves made to reach the current node
+		 * @param estimate     estimated cost of the current node
+		 * @param bound        largest total of moves and estimate to search
+		 * @param back         move back to the previous node, or -1 at the
+		 *                     starting node
+		 * @param backEstimate fewest moves known to be left from the previous
+		 *                     node
+		 * @return {@link #FOUND} if a solution was found, or otherwise the
+		 *         fewest moves known to be left from the current node
+		 */
+		private int search(int moves, int estimate, int bound, int back, int backEstimate) {
+			int total = moves + estimate;
+			if (total > bound) {
+				if (total < nextBound)
+					nextBound = total;
+				return estimate;
+			}
+			if (estimate == 0 && Board.isGoal(board, size)) {
+				length = moves;
+				return FOUND;
+			}
+
+			long key = TranspositionTable.key(board);
+			long entry = table.get(key);
+			int known = estimate;				// Fewest moves left known so far
+			if (entry != 0) {
+				known = Math.max(estimate, TranspositionTable.lowerBound(entry));
+				total = moves + known;
+				if (total > bound) {
+					if (total < nextBound)
+						nextBound = total;
+					statistics.duplicate();
+					return known;
+				}
+				// Searched already in this iteration with as many moves to spare
+				if (TranspositionTable.iteration(entry) == pass && TranspositionTable.moves(entry) <= moves) {
+					statistics.duplicate();
+					return known;
+				}
+			}
+			statistics.expanded(estimate, moves, 0);
+			if (moves == path.length)
+				path = Arrays.copyOf(path, moves * 2);
+
+			int left = Integer.MAX_VALUE;		// Fewest moves left through any neighbour
+			int blank = blankRow * size + blankColumn;
+			for (int move = 0; move < DIRECTIONS.length; ++move) {
+				int row = blankRow + DIRECTIONS[move].getRowChange();
+				int column = blankColumn + DIRECTIONS[move].getColumnChange();
+				if (row < 0 || row >= size || column < 0 || column >= size)
+					continue;
+				// Moving back is skipped, but a solution could still start with it
+				if (move == back) {
+					left = Math.min(left, backEstimate + 1);
+					continue;
+				}
+
+				statistics.generated();
+				int position = row * size + column;
+				int tile = Board.get(board, size, position);
+				Board.swap(board, size, blank, position);
+				blankRow = row;
+				blankColumn = column;
+				path[moves] = (byte) move;
+
+				int result = search(moves + 1, heuristic.update(board, estimate, tile, position, blank), bound,
+						DIRECTIONS[move].inverse().ordinal(), known);
+				if (result == FOUND)
+					return FOUND;
+				left = Math.min(left, result + 1);
+
+				Board.swap(board, size, blank, position);
+				blankRow = blank / size;
+				blankColumn = blank % size;
+			}
+			known = Math.max(known, left);
+			table.put(key, known, moves, bound - moves, pass);
+			return known;
+		}
+	}
+}
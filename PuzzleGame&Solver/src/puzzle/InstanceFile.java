@@ -0,0 +1,267 @@
+package puzzle;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * File of puzzles read one at a time through memory-mapped windows, so
+ * files of millions of puzzles are solved without holding them on the heap.
+ * <p>
+ * Two formats are read:
+ * <ul>
+ * <li>Text, with one puzzle per line given as its tile numbers row by row,
+ * separated by commas or whitespace with 0 for the blank tile.  Empty lines
+ * and anything after a {@code #} are ignored.  The size of each puzzle is
+ * the square root of its number of tiles, so sizes can be mixed.
+ * <li>Binary, starting with the bytes {@code PZB1} and the size of every
+ * puzzle as a 4-byte integer, followed by one byte per tile, row by row,
+ * for each puzzle.  Files in this format are written by
+ * {@link #write(Path, int, Iterator)}.
+ * </ul>
+ * Puzzles are numbered from 0 in the order they appear, and the number of
+ * the puzzle last returned is given by {@link #getIndex()}.
+ */
+final class InstanceFile implements Iterator<int[][]>, AutoCloseable {
+
+	private static final byte[] MAGIC = { 'P', 'Z', 'B', '1' };
+	private static final int HEADER = 8;			// Magic and size
+	private static final long WINDOW = 1 << 26;		// Bytes mapped at a time
+
+	private final FileChannel channel;
+	private final long length;
+	private final int size;					// Size of every puzzle in a binary file, 0 for text
+	private MappedByteBuffer buffer;		// Window of the file being read
+	private long offset;					// Position of the window in the file
+	private long position;					// Position of the next byte to read
+	private int[] tiles = new int[16];		// Tiles of the line being read
+	private BitSet skipped = new BitSet();	// Indices of puzzles not to return
+	private int[][] next;					// Next puzzle to return, or null if not read yet
+	private long nextIndex;					// Index of the next puzzle to read
+	private long index = -1;				// Index of the puzzle last returned
+
+	/**
+	 * Opens a file of puzzles, in either format.
+	 *
+	 * @param file file to read
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if a binary file has an invalid size
+	 */
+	InstanceFile(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		length = channel.size();
+		map(0);
+		byte[] magic = new byte[MAGIC.length];
+		if (length >= HEADER)
+			buffer.get(0, magic);
+		if (Arrays.equals(magic, MAGIC)) {
+			size = buffer.getInt(MAGIC.length);
+			if (size < 2 || size > Board.MAX_SIZE) {
+				channel.close();
+				throw new IllegalArgumentException("Puzzle size " + size + " is out of range!");
+			}
+			tiles = new int[size * size];
+			position = HEADER;
+		} else
+			size = 0;
+	}
+
+	/**
+	 * Writes puzzles of one size in the binary format.
+	 *
+	 * @param file   file to write
+	 * @param size   number of rows and columns of every puzzle
+	 * @param boards puzzles to write, 0 for the blank tile
+	 * @return number of puzzles written
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalArgumentException if a puzzle has a different size
+	 */
+	static long write(Path file, int size, Iterator<int[][]> boards) throws IOException {
+		long count = 0;
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			output.write(MAGIC);
+			output.writeInt(size);
+			while (boards.hasNext()) {
+				int[][] numbers = boards.next();
+				if (numbers.length != size)
+					throw new IllegalArgumentException("Puzzle " + count + " is not " + size + " x " + size + "!");
+				for (int[] row : numbers)
+					for (int number : row)
+						output.write(number);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Sets the puzzles to pass over, as when resuming an interrupted run.
+	 * Puzzles of a binary file are passed over without reading their tiles.
+	 *
+	 * @param indices indices of the puzzles not to return
+	 */
+	void skip(BitSet indices) {
+		skipped = indices;
+	}
+
+	/**
+	 * Accessor for the index of the puzzle last returned by {@link #next()}.
+	 *
+	 * @return index counting from 0, or -1 before the first puzzle
+	 */
+	long getIndex() {
+		return index;
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			while (next == null) {
+				// Indices beyond those a BitSet holds are never skipped
+				boolean skip = nextIndex < Integer.MAX_VALUE && skipped.get((int) nextIndex);
+				if (skip ? !pass() : (next = read()) == null)
+					return false;
+				nextIndex++;
+			}
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public int[][] next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		int[][] board = next;
+		next = null;
+		index = nextIndex - 1;
+		return board;
+	}
+
+	/**
+	 * Closes the file.
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Reads the next puzzle.
+	 *
+	 * @return tile numbers, 0 for the blank tile, or null at the end of the
+	 *         file
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if a line of a text file does not have
+	 *                                  a square number of tiles
+	 */
+	private int[][] read() throws IOException {
+		int count;
+		int size = this.size;
+		if (size > 0) {
+			count = size * size;
+			if (position + count > length)
+				return null;
+			for (int i = 0; i < count; ++i)
+				tiles[i] = read(position++) & 0xFF;
+		} else {
+			count = line();
+			if (count == 0)
+				return null;
+			size = (int) Math.round(Math.sqrt(count));
+			if (size * size != count)
+				throw new IllegalArgumentException("Puzzle " + nextIndex + " has " + count + " tiles, which is not a square!");
+		}
+		int[][] numbers = new int[size][size];
+		for (int i = 0; i < count; ++i)
+			numbers[i / size][i % size] = tiles[i];
+		return numbers;
+	}
+
+	/**
+	 * Passes over the next puzzle.
+	 *
+	 * @return true if there was one, false at the end of the file
+	 * @throws IOException if the file cannot be read
+	 */
+	private boolean pass() throws IOException {
+		if (size > 0) {
+			if (position + size * size > length)
+				return false;
+			position += size * size;
+			return true;
+		}
+		return line() > 0;
+	}
+
+	/**
+	 * Reads the tile numbers of the next line of a text file that has any.
+	 *
+	 * @return number of tiles read, 0 at the end of the file
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the line has other characters
+	 */
+	private int line() throws IOException {
+		int count = 0;
+		int number = -1;		// Number being read, -1 between numbers
+		boolean comment = false;
+		while (true) {
+			int c = position < length ? read(position++) & 0xFF : -1;
+			if (c >= '0' && c <= '9' && !comment) {
+				number = (number < 0 ? 0 : number * 10) + c - '0';
+				continue;
+			}
+			if (number >= 0) {
+				if (count == tiles.length)
+					tiles = Arrays.copyOf(tiles, count * 2);
+				tiles[count++] = number;
+				number = -1;
+			}
+			if (c == -1 || c == '\n') {
+				if (count > 0 || c == -1)
+					return count;
+				comment = false;
+			} else if (c == '#')
+				comment = true;
+			else if (!comment && c != ',' && c != ' ' && c != '\t' && c != '\r')
+				throw new IllegalArgumentException("Unexpected character '" + (char) c + "' in puzzle " + nextIndex + "!");
+		}
+	}
+
+	/**
+	 * Reads a byte of the file, mapping the window holding it if needed.
+	 *
+	 * @param at position of the byte
+	 * @return byte
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private byte read(long at) throws IOException {
+		if (at - offset >= buffer.limit())
+			map(at);
+		return buffer.get((int) (at - offset));
+	}
+
+	/**
+	 * Maps the window of the file starting at a position.
+	 *
+	 * @param start position of the window
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private void map(long start) throws IOException {
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, length - start));
+		offset = start;
+	}
+}
@@ -0,0 +1,231 @@
+package puzzle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Class to solve every puzzle of an {@link InstanceFile}, streaming the
+ * results to an output file as each one finishes.
+ * <p>
+ * Puzzles are read, solved and written as a pipeline: the calling thread
+ * reads a puzzle only when a {@link BatchSolver} thread is about to be free
+ * for it, and writes each result as soon as it is done, so neither the
+ * puzzles nor the results are held in memory.  Results are written in the
+ * order the puzzles finish, one line each:
+ *
+ * <pre>
+ * index	status	moves	path	expanded	milliseconds	[message]
+ * </pre>
+ *
+ * separated by tabs, where the path is the moves as the letters U, D, L and
+ * R, or "-" unless the puzzle was solved.  The output is flushed at least
+ * every {@value #FLUSH_MILLIS} milliseconds, and when the run is
+ * interrupted (for example with Ctrl-C), the results already finished are
+ * flushed before the JVM exits.  Running again with {@code --resume} skips
+ * the puzzles the output already has results for.
+ */
+public final class InstanceSolver {
+
+	private static final long FLUSH_MILLIS = 100;
+	private static final long SHUTDOWN_MILLIS = 5000;	// Longest wait to flush when interrupted
+	private static final int TAIL = 1 << 16;			// Bytes read to find the last complete line
+
+	private InstanceSolver() {
+	}
+
+	/**
+	 * Method that solves the puzzles of a file.  The arguments are the input
+	 * and output files, preceded by any of "--search" followed by the
+	 * search mode (as for {@link Solver#main(String[])}; "ida" by
+	 * default), "--heuristic" followed by the heuristic ("linear" by
+	 * default), "--threads" followed by the number of puzzles to solve at
+	 * once (one per core by default), and "--resume" to keep the results
+	 * in the output and only solve the puzzles missing from it.
+	 * <p>
+	 * Alternatively, "--generate" followed by a count, a size, a number of
+	 * random moves (0 for uniformly random puzzles) and a file writes that
+	 * many random puzzles to a binary instance file.
+	 *
+	 * @param args command line arguments
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 5 && args[0].equals("--generate")) {
+			long count = Long.parseLong(args[1]);
+			int size = Integer.parseInt(args[2]);
+			int moves = Integer.parseInt(args[3]);
+			Random random = new Random();
+			Stream<int[][]> boards = Stream.generate(
+					() -> moves == 0 ? PuzzleGenerator.uniform(size, random) : PuzzleGenerator.walk(size, moves, random));
+			InstanceFile.write(Paths.get(args[4]), size, boards.limit(count).iterator());
+			return;
+		}
+
+		String mode = "ida";
+		String heuristic = "linear";
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean resume = false;
+		int i = 0;
+		for (; i < args.length && args[i].startsWith("--"); ++i) {
+			switch (args[i]) {
+			case "--search": mode = args[++i]; break;
+			case "--heuristic": heuristic = args[++i]; break;
+			case "--threads": threads = Integer.parseInt(args[++i]); break;
+			case "--resume": resume = true; break;
+			default: throw new IllegalArgumentException("Unknown argument " + args[i]);
+			}
+		}
+		if (args.length - i != 2)
+			throw new IllegalArgumentException("Expected an input and an output file!");
+
+		Thread main = Thread.currentThread();
+		// On Ctrl-C, stop reading puzzles and wait for the finished results to be written
+		Thread hook = new Thread(() -> {
+			main.interrupt();
+			try {
+				main.join(SHUTDOWN_MILLIS);
+			} catch (InterruptedException e) {
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(hook);
+		Map<BatchResult.Status, Long> counts = solve(Paths.get(args[i]), Paths.get(args[i + 1]),
+				searches(mode, heuristic, Solver.memoryPerSearch(threads)), threads, resume);
+		System.err.println(counts);
+	}
+
+	/**
+	 * Solves the puzzles of a file, writing the results as they finish.  If
+	 * the calling thread is interrupted, the results finished so far are
+	 * written and the method returns without waiting for the others.
+	 *
+	 * @param input   instance file
+	 * @param output  file to write the results to
+	 * @param search  search used to solve each puzzle
+	 * @param threads number of puzzles to solve at once
+	 * @param resume  true to keep the results in the output and skip their
+	 *                puzzles, false to start over
+	 * @return number of results written with each status
+	 * @throws IOException if a file cannot be read or written
+	 */
+	static Map<BatchResult.Status, Long> solve(Path input, Path output, Search search, int threads, boolean resume)
+			throws IOException {
+		BitSet finished = resume && Files.exists(output) ? finished(output) : new BitSet();
+		Map<BatchResult.Status, Long> counts = new EnumMap<>(BatchResult.Status.class);
+		// A stream rather than a channel, which an interrupt would close before the results are written
+		try (InstanceFile instances = new InstanceFile(input);
+				BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+						new FileOutputStream(output.toFile(), resume), StandardCharsets.UTF_8));
+				BatchSolver solver = new BatchSolver(search, threads)) {
+			instances.skip(finished);
+			long[] flushed = { System.nanoTime() };
+			solver.solve(instances, instances::getIndex, result -> {
+				try {
+					write(writer, result);
+					counts.merge(result.getStatus(), 1L, Long::sum);
+					long now = System.nanoTime();
+					if (now - flushed[0] >= FLUSH_MILLIS * 1_000_000) {
+						writer.flush();
+						flushed[0] = now;
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		return counts;
+	}
+
+	/**
+	 * Creates a search that solves puzzles of any size with the search and
+	 * heuristic for that size, created the first time a puzzle of the size
+	 * is solved.
+	 *
+	 * @param mode      search mode (see {@link Solver#search(String, String, int)})
+	 * @param heuristic name of the heuristic
+	 * @param memory    approximate number of bytes each solve may use, for
+	 *                  the modes that keep a memory limit
+	 * @return search
+	 */
+	static Search searches(String mode, String heuristic, long memory) {
+		Map<Integer, Search> searches = new ConcurrentHashMap<>();
+		return state -> searches.computeIfAbsent(state.getSize(), size -> {
+			try {
+				return Solver.search(mode, heuristic, size, memory);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}).solve(state);
+	}
+
+	/**
+	 * Writes the line of a result.
+	 *
+	 * @param writer output
+	 * @param result result to write
+	 * @throws IOException if the output cannot be written
+	 */
+	private static void write(Writer writer, BatchResult result) throws IOException {
+		StringBuilder line = new StringBuilder();
+		line.append(result.getIndex()).append('\t').append(result.getStatus()).append('\t').append(result.getLength())
+				.append('\t');
+		if (result.getSolution() == null)
+			line.append('-');
+		for (Direction move : result.getMoves())
+			line.append(move.name().charAt(0));
+		line.append('\t').append(result.getNodesExpanded())
+				.append('\t').append(String.format("%.3f", result.getElapsedNanos() / 1e6));
+		if (result.getMessage() != null)
+			line.append('\t').append(result.getMessage().replace('\t', ' ').replace('\n', ' '));
+		writer.write(line.append('\n').toString());
+	}
+
+	/**
+	 * Finds the puzzles an earlier run wrote results for, first cutting off
+	 * any line it was interrupted in the middle of.
+	 *
+	 * @param output output of the earlier run
+	 * @return indices of the puzzles with results
+	 * @throws IOException if the output cannot be read or truncated
+	 */
+	private static BitSet finished(Path output) throws IOException {
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long length = channel.size();
+			int tail = (int) Math.min(length, TAIL);
+			ByteBuffer buffer = ByteBuffer.allocate(tail);
+			while (buffer.hasRemaining() && channel.read(buffer, length - tail + buffer.position()) >= 0)
+				;
+			int end = tail;
+			while (end > 0 && buffer.get(end - 1) != '\n')
+				end--;
+			channel.truncate(length - tail + end);
+		}
+		BitSet finished = new BitSet();
+		try (BufferedReader reader = Files.newBufferedReader(output, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int tab = line.indexOf('\t');
+				if (tab > 0)
+					finished.set(Integer.parseInt(line.substring(0, tab)));
+			}
+		}
+		return finished;
+	}
+}
@@ -0,0 +1,123 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test {@link InstanceSolver} and
+ * {@link InstanceFile}.
+ */
+class InstanceSolverTests {
+
+	/**
+	 * Reads the same puzzles from a text and a binary file, skipping some,
+	 * and checks they come back in order with their indices.
+	 *
+	 * @throws IOException if the files cannot be written or read
+	 */
+	@Test
+	void readTest() throws IOException {
+		Random random = new Random(11);
+		List<int[][]> boards = new ArrayList<>();
+		StringBuilder text = new StringBuilder("# Random 8-puzzles\n\n");
+		for (int i = 0; i < 100; ++i) {
+			int[][] numbers = PuzzleGenerator.uniform(3, random);
+			boards.add(numbers);
+			for (int[] row : numbers)
+				for (int number : row)
+					text.append(number).append(i % 2 == 0 ? "," : " \t");
+			text.append(i % 3 == 0 ? "\r\n" : "  # comment 1 2 3\n");
+		}
+		Path textFile = Files.createTempFile("instances", ".txt");
+		Path binaryFile = Files.createTempFile("instances", ".pzb");
+		try {
+			Files.write(textFile, text.toString().getBytes(StandardCharsets.US_ASCII));
+			assertEquals(100, InstanceFile.write(binaryFile, 3, boards.iterator()), "Not every puzzle was written!");
+			BitSet skipped = new BitSet();
+			skipped.set(0);
+			skipped.set(10, 20);
+			skipped.set(99);
+			for (Path file : new Path[] { textFile, binaryFile }) {
+				try (InstanceFile instances = new InstanceFile(file)) {
+					instances.skip(skipped);
+					int index = 0;
+					while (instances.hasNext()) {
+						int[][] numbers = instances.next();
+						index = skipped.nextClearBit(index);
+						assertEquals(index, instances.getIndex(), "Index does not match the puzzle!");
+						assertArrayEquals(boards.get(index), numbers, "Puzzle " + index + " was misread!");
+						index++;
+					}
+					assertEquals(99, index, "Puzzles are missing!");
+				}
+			}
+		} finally {
+			Files.delete(textFile);
+			Files.delete(binaryFile);
+		}
+	}
+
+	/**
+	 * Solves a file of 8-puzzles, cuts the output off in the middle of a
+	 * line as an interrupted run would leave it, and checks that resuming
+	 * solves only the missing puzzles, optimally.
+	 *
+	 * @throws IOException if the files cannot be written or read
+	 */
+	@Test
+	void resumeTest() throws IOException {
+		Random random = new Random(12);
+		List<State> states = new ArrayList<>();
+		List<int[][]> boards = new ArrayList<>();
+		for (int i = 0; i < 40; ++i) {
+			int[][] numbers = PuzzleGenerator.uniform(3, random);
+			boards.add(numbers);
+			states.add(State.of(numbers));
+		}
+		Path input = Files.createTempFile("instances", ".pzb");
+		Path output = Files.createTempFile("results", ".tsv");
+		try {
+			InstanceFile.write(input, 3, boards.iterator());
+			Search search = InstanceSolver.searches("ida", "linear", Solver.memoryPerSearch(1));
+			Map<BatchResult.Status, Long> counts = InstanceSolver.solve(input, output, search, 4, false);
+			assertEquals(Long.valueOf(40), counts.get(BatchResult.Status.SOLVED), "Every puzzle should be solved!");
+
+			// Keep the first 25 results and half of the next line
+			List<String> lines = Files.readAllLines(output);
+			String cut = String.join("\n", lines.subList(0, 25)) + "\n" + lines.get(25).substring(0, 5);
+			Files.write(output, cut.getBytes(StandardCharsets.UTF_8));
+			counts = InstanceSolver.solve(input, output, search, 4, true);
+			assertEquals(Long.valueOf(15), counts.get(BatchResult.Status.SOLVED), "Only the missing puzzles should be solved!");
+
+			lines = Files.readAllLines(output);
+			assertEquals(40, lines.size(), "Every puzzle should have one result!");
+			BitSet seen = new BitSet();
+			for (String line : lines) {
+				String[] fields = line.split("\t");
+				int index = Integer.parseInt(fields[0]);
+				assertTrue(!seen.get(index), "Puzzle " + index + " was solved twice!");
+				seen.set(index);
+				assertEquals("SOLVED", fields[1], "Puzzle was not solved!");
+				int length = Integer.parseInt(fields[2]);
+				assertEquals(length, fields[3].length(), "Path does not match its length!");
+				SearchTests.assertOptimal(new AStarSearch(), states.get(index), length);
+			}
+		} finally {
+			Files.delete(input);
+			Files.delete(output);
+		}
+	}
+}
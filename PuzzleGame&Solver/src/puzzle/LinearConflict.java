@@ -0,0 +1,92 @@
+package puzzle;
+
+/**
+ * Heuristic that adds linear conflicts to Manhattan distance.  Two tiles are
+ * in linear conflict when they are in the row (or column) where they both
+ * belong but in the wrong order, so one of them has to leave the line and
+ * come back, costing two extra moves.  For each line this counts the fewest
+ * tiles that must leave it, which is the number of tiles belonging there
+ * minus the longest run of them already in increasing goal order, found
+ * with no allocation.
+ * <p>
+ * A move only changes the tile order of the line the tile left and the line
+ * it entered (moving along a line keeps the order), so an update rescans
+ * just those two lines.
+ */
+final class LinearConflict implements Heuristic {
+
+	private final int size;
+	private final ManhattanDistance manhattan;
+
+	/**
+	 * Constructor for a heuristic for a puzzle size.
+	 *
+	 * @param size number of rows and columns
+	 */
+	LinearConflict(int size) {
+		this.size = size;
+		manhattan = ManhattanDistance.forSize(size);
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public int estimate(long[] board) {
+		int conflicts = 0;
+		for (int line = 0; line < size; ++line)
+			conflicts += conflicts(board, line, false, -1, -1) + conflicts(board, line, true, -1, -1);
+		return manhattan.estimate(board) + 2 * conflicts;
+	}
+
+	@Override
+	public int update(long[] board, int estimate, int tile, int from, int to) {
+		estimate += manhattan.distance(tile, to) - manhattan.distance(tile, from);
+		// A vertical move changes two rows, a horizontal one two columns
+		boolean vertical = from % size == to % size;
+		int fromLine = vertical ? from / size : from % size;
+		int toLine = vertical ? to / size : to % size;
+		// Reading the board with the two positions swapped gives the board before the move
+		int before = conflicts(board, fromLine, !vertical, from, to) + conflicts(board, toLine, !vertical, from, to);
+		int after = conflicts(board, fromLine, !vertical, -1, -1) + conflicts(board, toLine, !vertical, -1, -1);
+		return estimate + 2 * (after - before);
+	}
+
+	/**
+	 * Counts the fewest tiles that must leave a line to put the tiles that
+	 * belong there in order.
+	 *
+	 * @param board  packed board
+	 * @param line   row or column number
+	 * @param column true to count a column, false to count a row
+	 * @param first  position to read as if swapped with second, -1 for none
+	 * @param second position to read as if swapped with first, -1 for none
+	 * @return number of tiles that must leave the line
+	 */
+	private int conflicts(long[] board, int line, boolean column, int first, int second) {
+		int count = 0;
+		// Patience sorting on a bit set: the set bits are the smallest last goal
+		// coordinates of increasing runs of each length, so there are as many
+		// of them as the length of the longest run
+		long tails = 0;
+		for (int i = 0; i < size; ++i) {
+			int position = column ? i * size + line : line * size + i;
+			if (position == first)
+				position = second;
+			else if (position == second)
+				position = first;
+			int tile = Board.get(board, size, position);
+			if (tile == size * size - 1 || (column ? tile % size != line : tile / size != line))
+				continue;
+			int goal = column ? tile / size : tile % size;
+			long above = tails & (-1L << goal);
+			if (above != 0)
+				tails &= ~Long.lowestOneBit(above);
+			tails |= 1L << goal;
+			count++;
+		}
+		return count - Long.bitCount(tails);
+	}
+}
@@ -0,0 +1,95 @@
+package puzzle;
+
+/**
+ * Heuristic that adds up, for every tile except the blank tile, the number
+ * of rows and columns between where it is and where it should be.
+ * <p>
+ * The distances are precomputed for every tile and position, so a move only
+ * costs the difference of two table entries.
+ */
+final class ManhattanDistance implements Heuristic {
+
+	// Shared instances, indexed by size
+	private static final ManhattanDistance[] INSTANCES = new ManhattanDistance[Board.MAX_SIZE + 1];
+
+	private final int size;
+	private final int[] distances; // Distance of tile t at position p, at t * size*size + p
+
+	/**
+	 * Accessor for the shared instance for a board size.
+	 *
+	 * @param size number of rows and columns
+	 * @return Manhattan distance heuristic for that size
+	 */
+	static ManhattanDistance forSize(int size) {
+		synchronized (INSTANCES) {
+			if (INSTANCES[size] == null)
+				INSTANCES[size] = new ManhattanDistance(Board.goal(size), size);
+			return INSTANCES[size];
+		}
+	}
+
+	/**
+	 * Creates a heuristic estimating the moves from a board to a target board
+	 * rather than to the solved board, as needed when searching backwards
+	 * from the solved board towards a starting board.
+	 *
+	 * @param target packed target board
+	 * @param size   number of rows and columns
+	 * @return Manhattan distance heuristic towards the target
+	 */
+	static ManhattanDistance toward(long[] target, int size) {
+		return new ManhattanDistance(target, size);
+	}
+
+	/**
+	 * Constructor that builds the distance table for a board size.
+	 *
+	 * @param target packed board holding each tile where it should be
+	 * @param size   number of rows and columns
+	 */
+	private ManhattanDistance(long[] target, int size) {
+		this.size = size;
+		int tiles = size * size;
+		distances = new int[tiles * tiles];
+		for (int goal = 0; goal < tiles; ++goal) {
+			int tile = Board.get(target, size, goal);
+			// The blank tile (tiles - 1) keeps a distance of 0 everywhere
+			if (tile != tiles - 1)
+				for (int position = 0; position < tiles; ++position)
+					distances[tile * tiles + position] = Math.abs(goal / size - position / size)
+							+ Math.abs(goal % size - position % size);
+		}
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public int estimate(long[] board) {
+		int tiles = size * size;
+		int total = 0;
+		for (int position = 0; position < tiles; ++position)
+			total += distances[Board.get(board, size, position) * tiles + position];
+		return total;
+	}
+
+	@Override
+	public int update(long[] board, int estimate, int tile, int from, int to) {
+		int row = tile * size * size;
+		return estimate - distances[row + from] + distances[row + to];
+	}
+
+	/**
+	 * Distance of a tile from its goal position.
+	 *
+	 * @param tile     goal position of the tile
+	 * @param position position of the tile
+	 * @return number of rows and columns away from the goal position
+	 */
+	int distance(int tile, int position) {
+		return distances[tile * size * size + position];
+	}
+}
@@ -0,0 +1,320 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Simplified memory-bounded A* (SMA*), which searches like A* until it holds
+ * as many nodes as its memory budget allows, and then makes room by
+ * forgetting the worst leaves: those with the highest total of moves made
+ * and estimated cost, the shallowest first.
+ * <p>
+ * A forgotten node leaves its total behind in its parent, which goes back on
+ * the open list to generate it again once that total is the lowest left.
+ * Totals are also backed up the tree whenever a node is expanded, so every
+ * node carries the lowest total of any leaf below it, and a regenerated node
+ * starts at the total its parent remembered for it rather than at its
+ * estimate, so totals never drop.
+ * Solutions are optimal as long as the heuristic never overestimates and the
+ * shortest solution fits in memory, as the nodes of the path must all be
+ * held at once.  Paths too long to fit are given up, and if no solution
+ * fits, the search stops with a {@link SearchAbortedException}.
+ * <p>
+ * Like {@link IdaStarSearch}, it searches a tree and only skips moving
+ * straight back, so memory is never spent on boards it will not expand
+ * again.  Its memory never exceeds the budget, whatever the puzzle, and hard
+ * puzzles cost re-expansions rather than an {@link OutOfMemoryError}.
+ */
+class MemoryBoundedSearch implements Search {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int INFINITE = Integer.MAX_VALUE - 1;	// Total of nodes too deep to fit
+	private static final int NONE = Integer.MAX_VALUE;			// Pending total of nodes with nothing to generate
+
+	// Expand the lowest pending total first, the deepest on ties, and forget from the other end
+	private static final Comparator<Node> ORDER = (a, b) -> {
+		if (a.pending != b.pending)
+			return Integer.compare(a.pending, b.pending);
+		if (a.moves != b.moves)
+			return Integer.compare(b.moves, a.moves);
+		return Long.compare(a.id, b.id);
+	};
+
+	private final Heuristic heuristic;	// Heuristic, or null for Manhattan distance
+	private final long memoryLimit;		// Most bytes of nodes to hold
+
+	/**
+	 * Node of the search tree.
+	 */
+	private static final class Node {
+		private final long[] board;
+		private final int blank;		// Position of the blank tile
+		private final int moves;		// Number of moves made to reach the node
+		private final int estimate;		// Estimated cost from the node
+		private final Node parent;		// Node it was generated from, or null for the root
+		private final int move;			// Ordinal of the move from the parent, or -1 for the root
+		private final long id;			// Order of generation, to break ties
+		private int total;				// Lowest total of any leaf below, at least moves + estimate
+		private int pending;			// Lowest total of the children still to generate, or NONE
+		private Node[] children;		// Children held, by move, or null before the first expansion
+		private int[] forgotten;		// Totals of the children not held, by move, or NONE
+		private int held;				// Number of children held
+
+		private Node(long[] board, int blank, int moves, int estimate, Node parent, int move, long id) {
+			this.board = board;
+			this.blank = blank;
+			this.moves = moves;
+			this.estimate = estimate;
+			this.parent = parent;
+			this.move = move;
+			this.id = id;
+		}
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic and memory budget.
+	 *
+	 * @param heuristic   heuristic for the size of the puzzles to solve, or
+	 *                    null for Manhattan distance
+	 * @param memoryLimit approximate number of bytes the nodes may use
+	 */
+	MemoryBoundedSearch(Heuristic heuristic, long memoryLimit) {
+		this.heuristic = heuristic;
+		this.memoryLimit = memoryLimit;
+	}
+
+	/**
+	 * Approximate heap memory held by a node of a given size, counting its
+	 * packed tiles, its arrays of children and their totals, and its entries
+	 * in the open list and the list of leaves.
+	 *
+	 * @param size number of rows and columns
+	 * @return number of bytes
+	 */
+	static long bytes(int size) {
+		// Object header and fields, three arrays, and two tree set entries
+		return 64 + 16 + 8L * Board.words(size) + 32 + 32 + 2 * 40;
+	}
+
+	@Override
+	public Solution solve(State startingState) {
+		int size = startingState.getSize();
+		Heuristic heuristic = this.heuristic == null ? ManhattanDistance.forSize(size) : this.heuristic;
+		if (heuristic.getSize() != size)
+			throw new IllegalArgumentException("Heuristic is for a different puzzle size!");
+		long capacity = Math.min(memoryLimit / bytes(size), Integer.MAX_VALUE);
+		if (capacity < 2)
+			throw new IllegalArgumentException("Memory limit of " + memoryLimit + " bytes holds no search!");
+		return new Run(startingState, heuristic, (int) capacity).solve();
+	}
+
+	/**
+	 * Working state of one call to {@link MemoryBoundedSearch#solve(State)}.
+	 */
+	private static final class Run {
+		private final Heuristic heuristic;
+		private final int size;
+		private final int capacity;			// Most nodes to hold
+		private final Node root;
+		private final TreeSet<Node> open = new TreeSet<>(ORDER);	// Nodes with children to generate
+		private final TreeSet<Node> leaves = new TreeSet<>(ORDER);	// Nodes but the root with no children held
+		private int count;					// Number of nodes held
+		private long generated;				// Number of nodes ever generated
+		private final SearchStatistics statistics = new SearchStatistics("SMA*");
+
+		private Run(State startingState, Heuristic heuristic, int capacity) {
+			this.heuristic = heuristic;
+			this.capacity = capacity;
+			size = startingState.getSize();
+			long[] board = startingState.getBoard().clone();
+			int estimate = heuristic.estimate(board);
+			root = new Node(board, startingState.getBlankRow() * size + startingState.getBlankColumn(), 0, estimate,
+					null, -1, generated++);
+			root.total = estimate;
+			root.pending = estimate;
+			open.add(root);
+			count = 1;
+		}
+
+		/**
+		 * Expands the node with the lowest pending total until it is a
+		 * solution.
+		 *
+		 * @return solution
+		 * @throws SearchAbortedException if no solution fits in memory
+		 */
+		private Solution solve() {
+			while (true) {
+				Node best = open.first();
+				if (best.pending >= INFINITE) {
+					statistics.finish(-1);
+					throw new SearchAbortedException("No solution fits in " + capacity + " nodes");
+				}
+				if (best.estimate == 0 && Board.isGoal(best.board, size))
+					return new Solution(path(best), statistics.finish(best.moves));
+				statistics.bound(best.pending);
+				statistics.expanded(best.estimate, open.size(), count);
+				expand(best);
+			}
+		}
+
+		/**
+		 * Generates the children of a node that are not held, forgetting
+		 * the worst leaves to make room for them.
+		 *
+		 * @param node node to expand
+		 */
+		private void expand(Node node) {
+			open.remove(node);
+			leaves.remove(node);
+			boolean first = node.children == null;
+			if (first) {
+				node.children = new Node[DIRECTIONS.length];
+				node.forgotten = new int[DIRECTIONS.length];
+				Arrays.fill(node.forgotten, NONE);
+			}
+			node.pending = NONE;
+
+			int row = node.blank / size;
+			int column = node.blank % size;
+			for (int move = 0; move < DIRECTIONS.length; ++move) {
+				// Generate every child the first time, and then those forgotten that could still fit
+				int floor = first ? node.total : node.forgotten[move];
+				if (floor == INFINITE) {
+					node.pending = INFINITE;
+					continue;
+				}
+				if (floor == NONE || node.parent != null && DIRECTIONS[node.move].inverse().ordinal() == move)
+					continue;
+				int childRow = row + DIRECTIONS[move].getRowChange();
+				int childColumn = column + DIRECTIONS[move].getColumnChange();
+				if (childRow < 0 || childRow >= size || childColumn < 0 || childColumn >= size)
+					continue;
+
+				statistics.generated();
+				int position = childRow * size + childColumn;
+				long[] board = node.board.clone();
+				int tile = Board.get(board, size, position);
+				Board.swap(board, size, node.blank, position);
+				int estimate = heuristic.update(board, node.estimate, tile, position, node.blank);
+				Node child = new Node(board, position, node.moves + 1, estimate, node, move, generated++);
+				node.forgotten[move] = NONE;
+				// A path that fills memory before reaching the goal can never be completed
+				if (child.moves >= capacity - 1 && !(estimate == 0 && Board.isGoal(board, size))) {
+					remember(node, move, INFINITE);
+					continue;
+				}
+				child.total = Math.max(child.moves + estimate, floor);
+				child.pending = child.total;
+				if (!makeRoom(child, node)) {
+					remember(node, move, child.total);
+					continue;
+				}
+				node.children[move] = child;
+				node.held++;
+				open.add(child);
+				leaves.add(child);
+				count++;
+			}
+
+			if (node.pending != NONE) {
+				open.add(node);
+				if (node.held == 0 && node != root)
+					leaves.add(node);
+			}
+			backUp(node);
+		}
+
+		/**
+		 * Forgets the worst leaves until there is room for a new node, unless
+		 * the new node is worse than all of them.
+		 *
+		 * @param child     node to make room for
+		 * @param expanding node being expanded, which is in neither list
+		 * @return true if there is room, false if the new node should be
+		 *         forgotten instead
+		 */
+		private boolean makeRoom(Node child, Node expanding) {
+			while (count >= capacity) {
+				Node worst = leaves.isEmpty() ? null : leaves.last();
+				if (worst == null || ORDER.compare(child, worst) >= 0)
+					return false;
+				forget(worst, expanding);
+			}
+			return true;
+		}
+
+		/**
+		 * Removes a leaf from memory, leaving its total with its parent.
+		 *
+		 * @param leaf      leaf to forget
+		 * @param expanding node being expanded, which is in neither list
+		 */
+		private void forget(Node leaf, Node expanding) {
+			open.remove(leaf);
+			leaves.remove(leaf);
+			count--;
+			Node parent = leaf.parent;
+			parent.children[leaf.move] = null;
+			parent.held--;
+			if (parent == expanding) {
+				remember(parent, leaf.move, leaf.total);
+				return;
+			}
+			open.remove(parent);
+			remember(parent, leaf.move, leaf.total);
+			open.add(parent);
+			if (parent.held == 0 && parent != root)
+				leaves.add(parent);
+		}
+
+		/**
+		 * Records the total of a child that is not held.  The parent must be
+		 * in neither list.
+		 *
+		 * @param parent parent of the child
+		 * @param move   ordinal of the move to the child
+		 * @param total  total of the child
+		 */
+		private static void remember(Node parent, int move, int total) {
+			parent.forgotten[move] = total;
+			parent.pending = Math.min(parent.pending, total);
+		}
+
+		/**
+		 * Raises the totals of a node and its ancestors to the lowest total
+		 * of their children, held or still to generate.
+		 *
+		 * @param node node whose children changed
+		 */
+		private static void backUp(Node node) {
+			for (; node != null; node = node.parent) {
+				int total = node.pending;
+				for (Node child : node.children)
+					if (child != null && child.total < total)
+						total = child.total;
+				if (total <= node.total)
+					return;
+				node.total = Math.min(total, INFINITE);
+			}
+		}
+
+		/**
+		 * Lists the moves from the root to a node.
+		 *
+		 * @param node node reached
+		 * @return moves in order
+		 */
+		private static List<Direction> path(Node node) {
+			List<Direction> moves = new ArrayList<>(node.moves);
+			for (; node.parent != null; node = node.parent)
+				moves.add(DIRECTIONS[node.move]);
+			Collections.reverse(moves);
+			return moves;
+		}
+	}
+}
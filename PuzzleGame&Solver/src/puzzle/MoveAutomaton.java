@@ -0,0 +1,299 @@
+package puzzle;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finite state machine that recognizes sequences of moves leading to the
+ * same board as a shorter sequence, or as an equally long one that comes
+ * first in the order of {@link Direction}.  A depth-first search that keeps
+ * the machine's state along its path can skip such moves before making
+ * them, which catches most of the duplicate states that a closed set would
+ * otherwise be needed for, including moving straight back.
+ * <p>
+ * The duplicate sequences are found by making every sequence of moves up
+ * to a given length on a board large enough that its edges are never
+ * reached, and comparing where the tiles end up.  A sequence only counts
+ * as a duplicate of one whose blank tile stays inside the rows and columns
+ * its own blank tile visited, so the other sequence can be made on any
+ * board where the duplicate can.  The machine is built from those
+ * sequences as an Aho-Corasick automaton, so it matches them anywhere in a
+ * path, and it applies to puzzles of every size.
+ * <p>
+ * Every part of a shortest path that comes first in that order is itself
+ * such a path, so no move on it is ever skipped.
+ */
+final class MoveAutomaton {
+
+	/**
+	 * State returned by {@link #next(int, int)} for a move that should be
+	 * skipped.
+	 */
+	static final int PRUNED = -1;
+
+	/**
+	 * State of the machine before any move has been made.
+	 */
+	static final int START = 0;
+
+	private static final int DEFAULT_LENGTH = 10;
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int MOVES = DIRECTIONS.length;
+	private static final int BLANK = Character.MAX_VALUE;	// Beyond any position of Effects
+
+	private static MoveAutomaton standard;	// Shared machine for DEFAULT_LENGTH
+
+	private final int[] transitions;		// Next state at state * MOVES + move, or PRUNED
+	private final int duplicates;			// Number of duplicate sequences recognized
+
+	/**
+	 * Accessor for the shared machine for duplicate sequences of up to ten
+	 * moves, building it the first time.  Building it takes about a second;
+	 * each sequence longer than that would triple the time.
+	 *
+	 * @return shared machine
+	 */
+	static synchronized MoveAutomaton standard() {
+		if (standard == null)
+			standard = new MoveAutomaton(DEFAULT_LENGTH);
+		return standard;
+	}
+
+	/**
+	 * Constructor that finds the duplicate sequences of up to a given number
+	 * of moves and builds the machine recognizing them.
+	 *
+	 * @param length longest sequence to look for
+	 */
+	MoveAutomaton(int length) {
+		List<byte[]> found = findDuplicates(length);
+		duplicates = found.size();
+		transitions = build(found);
+	}
+
+	/**
+	 * Finds the state after a move.
+	 *
+	 * @param state current state
+	 * @param move  ordinal of the move
+	 * @return next state, or {@link #PRUNED} if the move completes a
+	 *         duplicate sequence
+	 */
+	int next(int state, int move) {
+		return transitions[state * MOVES + move];
+	}
+
+	/**
+	 * Accessor for the number of states of the machine.
+	 *
+	 * @return number of states
+	 */
+	int states() {
+		return transitions.length / MOVES;
+	}
+
+	/**
+	 * Accessor for the number of duplicate sequences the machine recognizes,
+	 * not counting those containing a shorter one.
+	 *
+	 * @return number of duplicate sequences
+	 */
+	int getDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * Makes every sequence of moves in order of length and then of
+	 * {@link Direction}, skipping those that contain a duplicate found
+	 * before, and collects those that lead to the same tiles as an earlier
+	 * sequence whose blank tile stayed within its bounds.
+	 *
+	 * @param length longest sequence to make
+	 * @return duplicate sequences of move ordinals
+	 */
+	private static List<byte[]> findDuplicates(int length) {
+		List<byte[]> duplicates = new ArrayList<>();
+		Effects effects = new Effects(length);
+		// Bounds of the sequences seen so far that lead to each arrangement
+		Map<String, List<int[]>> seen = new HashMap<>();
+		seen.computeIfAbsent(effects.of(new byte[0]), key -> new ArrayList<>()).add(bounds(new byte[0]));
+		List<byte[]> level = new ArrayList<>();
+		level.add(new byte[0]);
+		for (int moves = 1; moves <= length && !level.isEmpty(); ++moves) {
+			// Sequences containing a shorter duplicate end with one that is already known
+			int[] known = build(duplicates);
+			List<byte[]> nextLevel = new ArrayList<>();
+			// Going through each level in order gives sequences in order of length and then of Direction
+			for (byte[] sequence : level) {
+				int state = START;
+				for (byte move : sequence)
+					state = known[state * MOVES + move];
+				for (int move = 0; move < MOVES; ++move) {
+					if (known[state * MOVES + move] == PRUNED)
+						continue;
+					byte[] next = Arrays.copyOf(sequence, moves);
+					next[moves - 1] = (byte) move;
+					int[] bounds = bounds(next);
+					List<int[]> earlier = seen.computeIfAbsent(effects.of(next), key -> new ArrayList<>());
+					boolean duplicate = false;
+					for (int[] other : earlier)
+						duplicate |= other[0] >= bounds[0] && other[1] <= bounds[1]
+								&& other[2] >= bounds[2] && other[3] <= bounds[3];
+					if (duplicate)
+						duplicates.add(next);
+					else {
+						earlier.add(bounds);
+						nextLevel.add(next);
+					}
+				}
+			}
+			level = nextLevel;
+		}
+		return duplicates;
+	}
+
+	/**
+	 * Finds the rows and columns the blank tile visits during a sequence,
+	 * relative to where it starts.
+	 *
+	 * @param sequence move ordinals
+	 * @return lowest row, highest row, lowest column and highest column
+	 */
+	private static int[] bounds(byte[] sequence) {
+		int[] bounds = new int[4];
+		int row = 0;
+		int column = 0;
+		for (byte move : sequence) {
+			row += DIRECTIONS[move].getRowChange();
+			column += DIRECTIONS[move].getColumnChange();
+			bounds[0] = Math.min(bounds[0], row);
+			bounds[1] = Math.max(bounds[1], row);
+			bounds[2] = Math.min(bounds[2], column);
+			bounds[3] = Math.max(bounds[3], column);
+		}
+		return bounds;
+	}
+
+	/**
+	 * Board large enough that sequences of moves starting in its middle
+	 * never reach its edges, used to compare where sequences leave the
+	 * tiles.
+	 */
+	private static final class Effects {
+		private final int width;
+		private final int[] tiles;			// Tile at each position, named after where it started
+		private final int[] changed;		// Positions moved through by the current sequence
+		private final char[] description;
+
+		private Effects(int length) {
+			width = 2 * length + 1;
+			tiles = new int[width * width];
+			for (int i = 0; i < tiles.length; ++i)
+				tiles[i] = i;
+			changed = new int[length + 1];
+			description = new char[2 * (length + 1)];
+		}
+
+		/**
+		 * Describes where the tiles end up after a sequence, by listing the
+		 * positions whose tile changed along with the tile now there.
+		 *
+		 * @param sequence move ordinals
+		 * @return description that is equal for sequences with the same effect
+		 */
+		private String of(byte[] sequence) {
+			int blank = (width * width) / 2;
+			int count = 0;
+			changed[count++] = blank;
+			tiles[blank] = BLANK;
+			for (byte move : sequence) {
+				int next = blank + DIRECTIONS[move].getRowChange() * width + DIRECTIONS[move].getColumnChange();
+				tiles[blank] = tiles[next];
+				tiles[next] = BLANK;
+				blank = next;
+				changed[count++] = next;
+			}
+			Arrays.sort(changed, 0, count);
+			int length = 0;
+			for (int i = 0; i < count; ++i) {
+				int position = changed[i];
+				// Skip repeated positions, and put the tiles back for the next sequence
+				if ((i > 0 && position == changed[i - 1]) || tiles[position] == position)
+					continue;
+				description[length++] = (char) position;
+				description[length++] = (char) tiles[position];
+				tiles[position] = position;
+			}
+			return new String(description, 0, length);
+		}
+	}
+
+	/**
+	 * Builds the Aho-Corasick automaton for a set of sequences: a trie of the
+	 * sequences, where a move with no child follows the longest suffix of
+	 * the path that is also in the trie.  States whose path ends with any of
+	 * the sequences are never entered; moves to them are pruned instead.
+	 *
+	 * @param sequences sequences to recognize
+	 * @return transition table
+	 */
+	private static int[] build(List<byte[]> sequences) {
+		// Build the trie, with -1 for missing children
+		int[] children = new int[MOVES];
+		Arrays.fill(children, -1);
+		boolean[] end = new boolean[1];
+		int states = 1;
+		for (byte[] sequence : sequences) {
+			int state = START;
+			for (byte move : sequence) {
+				if (children[state * MOVES + move] < 0) {
+					if ((states + 1) * MOVES > children.length) {
+						int capacity = children.length * 2;
+						children = Arrays.copyOf(children, capacity);
+						Arrays.fill(children, states * MOVES, capacity, -1);
+						end = Arrays.copyOf(end, capacity / MOVES);
+					}
+					children[state * MOVES + move] = states++;
+				}
+				state = children[state * MOVES + move];
+			}
+			end[state] = true;
+		}
+
+		// Fill in the missing moves breadth first, following the failure links
+		int[] transitions = Arrays.copyOf(children, states * MOVES);
+		int[] failure = new int[states];
+		Queue<Integer> queue = new ArrayDeque<>();
+		for (int move = 0; move < MOVES; ++move) {
+			if (transitions[move] < 0)
+				transitions[move] = START;
+			else {
+				failure[transitions[move]] = START;
+				queue.add(transitions[move]);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.remove();
+			// A path ending with a sequence ending at the failure state also ends with that sequence
+			end[state] |= end[failure[state]];
+			for (int move = 0; move < MOVES; ++move) {
+				int child = transitions[state * MOVES + move];
+				if (child < 0)
+					transitions[state * MOVES + move] = transitions[failure[state] * MOVES + move];
+				else {
+					failure[child] = transitions[failure[state] * MOVES + move];
+					queue.add(child);
+				}
+			}
+		}
+		for (int i = 0; i < transitions.length; ++i)
+			if (end[transitions[i]])
+				transitions[i] = PRUNED;
+		return transitions;
+	}
+}
@@ -0,0 +1,131 @@
+package puzzle;
+
+import java.nio.file.Path;
+
+/**
+ * A* search whose open and closed lists are held off the heap, for searches
+ * of more states than the heap can hold.
+ * <p>
+ * The open list is a {@link PackedQueue} and the closed list a
+ * {@link ClosedSet}, both in {@link OffHeapMemory} of a given size, either
+ * direct buffers or a memory-mapped scratch file.  States are never objects:
+ * each one is popped into a reusable array, and its children are made by
+ * sliding tiles on another, so the search creates no garbage however many
+ * states it holds.  Memory is limited by the budget rather than by
+ * {@code -Xmx}, and by RAM and disk rather than by the budget once it is a
+ * scratch file.  When the budget is used up, the search stops with a
+ * {@link SearchAbortedException}.
+ * <p>
+ * Solutions are optimal under the same conditions as {@link AStarSearch},
+ * which it matches state for state.
+ */
+class OffHeapAStarSearch implements Search {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int EXPECTED = 1 << 16;	// Boards the closed set starts out holding
+
+	private final Heuristic heuristic;		// Heuristic, or null for Manhattan distance
+	private final long memoryLimit;			// Most bytes of memory to hold
+	private final Path directory;			// Directory for scratch files, or null for direct buffers
+
+	/**
+	 * Constructor for a search using the given heuristic, holding its states
+	 * in direct buffers or a scratch file.
+	 *
+	 * @param heuristic   heuristic for the size of the puzzles to solve, or
+	 *                    null for Manhattan distance
+	 * @param memoryLimit number of bytes the states may use
+	 * @param directory   directory to create the scratch file in, or null
+	 *                    to use direct buffers
+	 */
+	OffHeapAStarSearch(Heuristic heuristic, long memoryLimit, Path directory) {
+		this.heuristic = heuristic;
+		this.memoryLimit = memoryLimit;
+		this.directory = directory;
+	}
+
+	@Override
+	public Solution solve(State startingState) {
+		int size = startingState.getSize();
+		Heuristic heuristic = this.heuristic == null ? ManhattanDistance.forSize(size) : this.heuristic;
+		if (heuristic.getSize() != size)
+			throw new IllegalArgumentException("Heuristic is for a different puzzle size!");
+		SearchStatistics statistics = new SearchStatistics("off-heap A*");
+
+		try (OffHeapMemory memory = new OffHeapMemory(memoryLimit, directory)) {
+			PackedQueue open = new PackedQueue(size, memory);
+			ClosedSet seen = new ClosedSet(size, EXPECTED, memory);
+			long[] board = startingState.getBoard().clone();
+			long[] child = new long[board.length];
+			int estimate = heuristic.estimate(board);
+			int blank = startingState.getBlankRow() * size + startingState.getBlankColumn();
+			open.add(board, pack(0, estimate, blank, -1), estimate, 0);
+			seen.put(board, 0, null);
+
+			while (!open.isEmpty()) {
+				long data = open.remove(board);
+				int moves = moves(data);
+				estimate = estimate(data);
+				blank = blank(data);
+				// Skip boards that were reached again in fewer moves after being added
+				if (seen.get(board) < moves)
+					continue;
+				if (estimate == 0 && Board.isGoal(board, size))
+					return new Solution(seen.path(board), statistics.finish(moves));
+				statistics.bound(moves + estimate);
+				statistics.expanded(estimate, open.size(), seen.size());
+
+				int arrival = arrival(data);
+				int row = blank / size;
+				int column = blank % size;
+				for (int move = 0; move < DIRECTIONS.length; ++move) {
+					if (arrival >= 0 && DIRECTIONS[arrival].inverse().ordinal() == move)
+						continue;
+					int childRow = row + DIRECTIONS[move].getRowChange();
+					int childColumn = column + DIRECTIONS[move].getColumnChange();
+					if (childRow < 0 || childRow >= size || childColumn < 0 || childColumn >= size)
+						continue;
+
+					statistics.generated();
+					int position = childRow * size + childColumn;
+					System.arraycopy(board, 0, child, 0, board.length);
+					int tile = Board.get(child, size, position);
+					Board.swap(child, size, blank, position);
+					int childEstimate = heuristic.update(child, estimate, tile, position, blank);
+					if (seen.put(child, moves + 1, DIRECTIONS[move]))
+						open.add(child, pack(moves + 1, childEstimate, position, move), moves + 1 + childEstimate,
+								moves + 1);
+					else
+						statistics.duplicate();
+				}
+			}
+		} catch (SearchAbortedException e) {
+			statistics.finish(-1);
+			throw e;
+		}
+		//No solution was found
+		statistics.finish(-1);
+		return null;
+	}
+
+	// The data word kept with each board: arrival move + 1, blank position, estimate and moves
+	private static long pack(int moves, int estimate, int blank, int arrival) {
+		return (long) moves << 32 | (long) estimate << 16 | blank << 3 | (arrival + 1);
+	}
+
+	private static int moves(long data) {
+		return (int) (data >>> 32);
+	}
+
+	private static int estimate(long data) {
+		return (int) data >>> 16;
+	}
+
+	private static int blank(long data) {
+		return (int) data >>> 3 & 0x1FFF;
+	}
+
+	private static int arrival(long data) {
+		return ((int) data & 7) - 1;
+	}
+}
@@ -0,0 +1,178 @@
+package puzzle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory outside the Java heap for the nodes of a search, handed out as
+ * arrays of {@code long} words up to a fixed budget.
+ * <p>
+ * The words are held either in direct buffers, which count against
+ * {@code -XX:MaxDirectMemorySize} rather than {@code -Xmx}, or in a scratch
+ * file in a given directory, memory-mapped so the operating system pages it
+ * between RAM and disk and deleted when the memory is closed.  Either way,
+ * the garbage collector sees a handful of buffer objects however many nodes
+ * they hold.  Arrays are split into buffers of {@value #CHUNK_BYTES} bytes,
+ * as a single buffer cannot exceed 2 GB.
+ */
+final class OffHeapMemory implements AutoCloseable {
+
+	private static final int CHUNK_SHIFT = 24;			// Words per buffer as a power of two
+	private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+	private static final long CHUNK_BYTES = (long) Long.BYTES << CHUNK_SHIFT;
+
+	/**
+	 * Fixed-length array of words, initially all 0.
+	 */
+	static final class LongArray {
+		private final LongBuffer[] chunks;
+		private final long length;
+		private final FileChannel channel;	// Scratch file, or null for direct buffers
+
+		private LongArray(long length, Path directory) throws IOException {
+			this.length = length;
+			chunks = new LongBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT)];
+			if (directory == null) {
+				channel = null;
+				for (int i = 0; i < chunks.length; ++i)
+					chunks[i] = ByteBuffer.allocateDirect((int) (chunkLength(i) * Long.BYTES))
+							.order(ByteOrder.nativeOrder()).asLongBuffer();
+				return;
+			}
+			// The file is sparse, so pages are only written once they are used
+			channel = FileChannel.open(Files.createTempFile(directory, "search", ".tmp"), StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+			for (int i = 0; i < chunks.length; ++i)
+				chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * CHUNK_BYTES, chunkLength(i) * Long.BYTES)
+						.order(ByteOrder.nativeOrder()).asLongBuffer();
+		}
+
+		/**
+		 * Reads a word.
+		 *
+		 * @param index index of the word
+		 * @return word
+		 */
+		long get(long index) {
+			return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) index & CHUNK_MASK);
+		}
+
+		/**
+		 * Writes a word.
+		 *
+		 * @param index index of the word
+		 * @param value word to write
+		 */
+		void set(long index, long value) {
+			chunks[(int) (index >>> CHUNK_SHIFT)].put((int) index & CHUNK_MASK, value);
+		}
+
+		/**
+		 * Accessor for the number of words.
+		 *
+		 * @return length of the array
+		 */
+		long length() {
+			return length;
+		}
+
+		private long chunkLength(int chunk) {
+			return Math.min(length - ((long) chunk << CHUNK_SHIFT), 1L << CHUNK_SHIFT);
+		}
+
+		private void close() throws IOException {
+			if (channel != null)
+				channel.close();
+		}
+	}
+
+	private final long limit;			// Most bytes to hand out
+	private final Path directory;		// Directory of scratch files, or null for direct buffers
+	private final List<LongArray> arrays = new ArrayList<>();
+	private long used;					// Bytes of the arrays not released
+
+	/**
+	 * Constructor for memory of at most the given size, held in direct
+	 * buffers or in scratch files.
+	 *
+	 * @param limit     most bytes to hand out
+	 * @param directory directory to create scratch files in, or null to use
+	 *                  direct buffers
+	 */
+	OffHeapMemory(long limit, Path directory) {
+		this.limit = limit;
+		this.directory = directory;
+	}
+
+	/**
+	 * Hands out an array of words.
+	 *
+	 * @param length number of words
+	 * @return array of words, all 0
+	 * @throws SearchAbortedException if the array would exceed the budget or
+	 *                                the memory available
+	 * @throws UncheckedIOException   if the scratch file cannot be created
+	 */
+	LongArray allocate(long length) {
+		long bytes = length * Long.BYTES;
+		if (used + bytes > limit)
+			throw new SearchAbortedException("Off-heap memory limit of " + limit + " bytes exceeded");
+		LongArray array;
+		try {
+			array = new LongArray(length, directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (OutOfMemoryError e) {
+			// Thrown for direct buffers beyond -XX:MaxDirectMemorySize
+			throw new SearchAbortedException("Out of off-heap memory after " + used + " bytes: " + e.getMessage());
+		}
+		arrays.add(array);
+		used += bytes;
+		return array;
+	}
+
+	/**
+	 * Gives back an array that is no longer used, so its bytes can be
+	 * handed out again.
+	 *
+	 * @param array array handed out by this memory
+	 */
+	void release(LongArray array) {
+		if (!arrays.remove(array))
+			return;
+		used -= array.length * Long.BYTES;
+		try {
+			array.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Accessor for the memory handed out and not released.
+	 *
+	 * @return number of bytes
+	 */
+	long getUsed() {
+		return used;
+	}
+
+	/**
+	 * Releases every array, deleting the scratch files.  The buffers
+	 * themselves are freed once they are garbage collected.
+	 */
+	@Override
+	public void close() {
+		while (!arrays.isEmpty())
+			release(arrays.get(arrays.size() - 1));
+	}
+}
@@ -0,0 +1,191 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Priority queue of packed boards (see {@link Board}) held in
+ * {@link OffHeapMemory}, ordered like a {@link BucketQueue}: lowest
+ * priority first and, among equal priorities, the most moves made first.
+ * <p>
+ * Each item is the words of its board followed by one word of data for the
+ * search, copied in when added and out when removed, so no object is created
+ * per item.  The items of each priority and number of moves form a stack of
+ * fixed-size blocks carved out of large arrays.  Blocks emptied by removals
+ * are kept on a free list and reused before more memory is taken, so the
+ * memory held follows the largest size of the queue.
+ */
+final class PackedQueue {
+
+	private static final int BLOCK = 1024;		// Items per block
+	private static final int SEGMENT = 256;		// Blocks per array of memory
+	private static final long NONE = -1;		// Block number ending a stack or the free list
+
+	private final OffHeapMemory memory;
+	private final int width;					// Words of a board
+	private final int blockWords;				// Link to the block below, then the items
+	private final List<OffHeapMemory.LongArray> segments = new ArrayList<>();
+	private long blocks;						// Number of blocks carved out
+	private long free = NONE;					// First block of the free list
+
+	// Stacks indexed by priority and moves: the top block and the items in it
+	private long[][] tops = new long[64][];
+	private int[][] counts = new int[64][];
+	private int[] deepest = new int[64];		// Most moves of any item of a priority, or -1
+	private int minimum;						// No priority below this has items
+	private long size;
+
+	/**
+	 * Constructor for an empty queue of boards of a given size.
+	 *
+	 * @param size   number of rows and columns of the boards
+	 * @param memory memory to hold the items
+	 */
+	PackedQueue(int size, OffHeapMemory memory) {
+		this.memory = memory;
+		width = Board.words(size);
+		blockWords = 1 + BLOCK * (width + 1);
+		Arrays.fill(deepest, -1);
+	}
+
+	/**
+	 * Adds a board.
+	 *
+	 * @param board    packed board, copied into the queue
+	 * @param data     word of data to keep with the board
+	 * @param priority priority of the board, lower priorities are removed
+	 *                 first
+	 * @param moves    number of moves made to reach the board
+	 * @throws SearchAbortedException if the memory cannot hold another block
+	 */
+	void add(long[] board, long data, int priority, int moves) {
+		if (priority >= tops.length) {
+			int length = Math.max(priority + 1, tops.length * 2);
+			tops = Arrays.copyOf(tops, length);
+			counts = Arrays.copyOf(counts, length);
+			int old = deepest.length;
+			deepest = Arrays.copyOf(deepest, length);
+			Arrays.fill(deepest, old, length, -1);
+		}
+		if (tops[priority] == null || moves >= tops[priority].length) {
+			int length = Math.max(moves + 1, tops[priority] == null ? 64 : tops[priority].length * 2);
+			int old = tops[priority] == null ? 0 : tops[priority].length;
+			tops[priority] = tops[priority] == null ? new long[length] : Arrays.copyOf(tops[priority], length);
+			counts[priority] = counts[priority] == null ? new int[length] : Arrays.copyOf(counts[priority], length);
+			Arrays.fill(tops[priority], old, length, NONE);
+		}
+
+		int count = counts[priority][moves];
+		if (tops[priority][moves] == NONE || count == BLOCK) {
+			long block = block();
+			write(block, 0, tops[priority][moves]);
+			tops[priority][moves] = block;
+			count = 0;
+		}
+		long block = tops[priority][moves];
+		int offset = 1 + count * (width + 1);
+		for (int i = 0; i < width; ++i)
+			write(block, offset + i, board[i]);
+		write(block, offset + width, data);
+		counts[priority][moves] = count + 1;
+
+		if (moves > deepest[priority])
+			deepest[priority] = moves;
+		if (size == 0 || priority < minimum)
+			minimum = priority;
+		size++;
+	}
+
+	/**
+	 * Removes the board with the lowest priority, preferring the one with
+	 * the most moves made among equal priorities.
+	 *
+	 * @param board array to copy the removed board into
+	 * @return data kept with the board
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	long remove(long[] board) {
+		int priority = getMinimum();
+		int moves = deepest[priority];
+		long block = tops[priority][moves];
+		int count = --counts[priority][moves];
+		int offset = 1 + count * (width + 1);
+		for (int i = 0; i < width; ++i)
+			board[i] = read(block, offset + i);
+		long data = read(block, offset + width);
+
+		// Return an emptied block to the free list, the one below being full
+		if (count == 0) {
+			long below = read(block, 0);
+			write(block, 0, free);
+			free = block;
+			tops[priority][moves] = below;
+			if (below != NONE)
+				counts[priority][moves] = BLOCK;
+			else
+				while (deepest[priority] >= 0 && tops[priority][deepest[priority]] == NONE)
+					deepest[priority]--;
+		}
+		size--;
+		return data;
+	}
+
+	/**
+	 * Accessor for the lowest priority of any board.
+	 *
+	 * @return lowest priority
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	int getMinimum() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		while (deepest[minimum] < 0)
+			minimum++;
+		return minimum;
+	}
+
+	/**
+	 * Determines whether the queue is empty.
+	 *
+	 * @return true if there are no boards, false otherwise
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Number of boards in the queue.
+	 *
+	 * @return number of boards
+	 */
+	long size() {
+		return size;
+	}
+
+	/**
+	 * Takes a block from the free list, or carves out a new one.
+	 *
+	 * @return number of the block
+	 * @throws SearchAbortedException if the memory cannot hold another block
+	 */
+	private long block() {
+		if (free != NONE) {
+			long block = free;
+			free = read(block, 0);
+			return block;
+		}
+		if (blocks == (long) segments.size() * SEGMENT)
+			segments.add(memory.allocate((long) SEGMENT * blockWords));
+		return blocks++;
+	}
+
+	private long read(long block, int offset) {
+		return segments.get((int) (block / SEGMENT)).get(block % SEGMENT * blockWords + offset);
+	}
+
+	private void write(long block, int offset, long value) {
+		segments.get((int) (block / SEGMENT)).set(block % SEGMENT * blockWords + offset, value);
+	}
+}
@@ -0,0 +1,59 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test {@link PackedQueue} functionality.
+ */
+class PackedQueueTests {
+
+	/**
+	 * Adds and removes random boards in a {@code PackedQueue} and a
+	 * {@code BucketQueue} at once, and checks that they come out in the same
+	 * order with their data, and that emptied blocks are reused.
+	 */
+	@Test
+	void orderTest() {
+		try (OffHeapMemory memory = new OffHeapMemory(1 << 26, null)) {
+			PackedQueue queue = new PackedQueue(5, memory);
+			BucketQueue<long[]> expected = new BucketQueue<>();
+			Random random = new Random(25);
+			int width = Board.words(5);
+			long[] board = new long[width];
+			long used = 0;
+			for (int round = 0; round < 2; ++round) {
+				// Few priorities and depths, so stacks fill several blocks
+				for (int i = 0; i < 20000; ++i) {
+					int moves = random.nextInt(4);
+					int priority = moves + random.nextInt(4);
+					// The board followed by its data
+					long[] item = random.longs(width + 1).toArray();
+					item[width] = i;
+					queue.add(Arrays.copyOf(item, width), i, priority, moves);
+					expected.add(item, priority, moves);
+					if (random.nextInt(3) == 0) {
+						long[] next = expected.remove();
+						assertEquals(next[width], queue.remove(board), "Removed in the wrong order!");
+					}
+				}
+				assertEquals(expected.size(), queue.size(), "Queue has the wrong size!");
+				while (!expected.isEmpty()) {
+					long[] next = expected.remove();
+					assertEquals(next[width], queue.remove(board), "Removed in the wrong order!");
+					assertArrayEquals(Arrays.copyOf(next, width), board, "Removed the wrong board!");
+				}
+				assertTrue(queue.isEmpty(), "Queue should be empty!");
+				if (round == 0)
+					used = memory.getUsed();
+			}
+			assertEquals(used, memory.getUsed(), "Emptied blocks were not reused!");
+		}
+	}
+}
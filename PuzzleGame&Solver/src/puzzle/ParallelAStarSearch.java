@@ -0,0 +1,302 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hash-distributed parallel A* search.  Every board is owned by one worker
+ * thread, chosen by hashing the board, and only its owner keeps it in an
+ * open list and closed set.  Successors owned by other workers are sent to
+ * them in batches through lock-free queues.
+ * <p>
+ * Workers may expand a state before its best path has arrived, so a state
+ * reached again in fewer moves is reopened.  Once a solution is found, the
+ * search continues until no worker holds a state whose total could beat it
+ * and no batches are in flight, which makes the solution optimal under the
+ * same conditions as {@link AStarSearch}.
+ * <p>
+ * Termination is detected with a single counter of outstanding work: each
+ * active worker holds one unit and each batch in flight another.  A batch's
+ * unit is only released when its receiver next runs out of work, after
+ * which the receiver no longer holds any, so the counter reaches zero
+ * exactly when every worker is idle and every queue is empty.
+ */
+class ParallelAStarSearch implements Search {
+
+	private static final int BATCH_SIZE = 64;			// States per batch sent to another worker
+	private static final int FLUSH_INTERVAL = 256;		// Expansions between sending partial batches
+
+	private final Heuristic heuristic;		// Heuristic, or null for Manhattan distance
+	private final int threads;
+
+	/**
+	 * Constructor for a search using Manhattan distance with one thread per
+	 * available core.
+	 */
+	ParallelAStarSearch() {
+		this(null, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor for a search using the given heuristic and number of
+	 * threads.
+	 *
+	 * @param heuristic heuristic for the size of the puzzles to solve
+	 * @param threads   number of worker threads
+	 */
+	ParallelAStarSearch(Heuristic heuristic, int threads) {
+		this.heuristic = heuristic;
+		this.threads = threads;
+	}
+
+	@Override
+	public Solution solve(State startingState) {
+		int size = startingState.getSize();
+		Heuristic heuristic = this.heuristic == null ? ManhattanDistance.forSize(size) : this.heuristic;
+		if (heuristic.getSize() != size)
+			throw new IllegalArgumentException("Heuristic is for a different puzzle size!");
+		State start = new State(startingState.getBoard(), size, heuristic,
+				startingState.getBlankRow(), startingState.getBlankColumn());
+
+		Shared shared = new Shared(threads);
+		Worker[] workers = new Worker[threads];
+		for (int i = 0; i < threads; ++i)
+			workers[i] = new Worker(i, shared, heuristic);
+		shared.workers = workers;
+		// The starting state is a batch sent to its owner
+		List<State> first = new ArrayList<>();
+		first.add(start);
+		shared.work.incrementAndGet();
+		workers[owner(start.getBoard(), threads)].inbox.add(first);
+
+		Thread[] running = new Thread[threads];
+		for (int i = 0; i < threads; ++i) {
+			running[i] = new Thread(workers[i], "parallel-astar-" + i);
+			running[i].setDaemon(true);
+			running[i].start();
+		}
+		SearchStatistics statistics = new SearchStatistics("parallel A*");
+		long closed = 0;
+		try {
+			for (int i = 0; i < threads; ++i) {
+				running[i].join();
+				statistics.add(workers[i].statistics);
+				closed += workers[i].seen.size();
+			}
+		} catch (InterruptedException e) {
+			shared.done = true;
+			Thread.currentThread().interrupt();
+			throw new SearchAbortedException("Interrupted");
+		}
+		// Closed sets never shrink, so together they are largest at the end
+		statistics.sizes(shared.peakOpen.get(), closed);
+		if (shared.failure.get() != null)
+			throw new IllegalStateException("Worker failed", shared.failure.get());
+
+		State best = shared.best.get();
+		statistics.finish(best == null ? -1 : best.getDepth());
+		if (best == null)
+			return null;
+		// Each board's arrival move is kept by the thread owning it
+		return new Solution(ClosedSet.path(best.getBoard(), size, board -> workers[owner(board, threads)].seen),
+				statistics);
+	}
+
+	/**
+	 * Chooses the worker owning a board.  This uses the high bits of a
+	 * multiplicative hash, since each {@link ClosedSet} indexes by the low
+	 * bits of the board hash and would otherwise only fill a fraction of its
+	 * slots.
+	 *
+	 * @param board   packed board
+	 * @param threads number of workers
+	 * @return index of the owning worker
+	 */
+	private static int owner(long[] board, int threads) {
+		long hash = (Board.hash(board) * 0x9E3779B97F4A7C15L) >>> 32;
+		return (int) (hash * threads >>> 32);
+	}
+
+	/**
+	 * State shared by the workers of one call to
+	 * {@link ParallelAStarSearch#solve(State)}.
+	 */
+	private static final class Shared {
+		private Worker[] workers;
+		private final AtomicLong work;				// Active workers plus batches in flight
+		private final AtomicReference<State> best = new AtomicReference<>();	// Best solution found so far
+		private final AtomicInteger bestLength = new AtomicInteger(Integer.MAX_VALUE);
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+		private final AtomicLong peakOpen = new AtomicLong();	// Most states sampled in all open lists at once
+		private volatile boolean done;
+
+		private Shared(int threads) {
+			// Every worker starts out active
+			work = new AtomicLong(threads);
+		}
+
+		// Records a solution if it is shorter than the best one so far
+		private void offer(State solved) {
+			int length = solved.getDepth();
+			int current;
+			while (length < (current = bestLength.get()))
+				if (bestLength.compareAndSet(current, length)) {
+					best.set(solved);
+					return;
+				}
+		}
+	}
+
+	/**
+	 * Worker thread owning the boards that hash to it.
+	 */
+	private static final class Worker implements Runnable {
+		private final int index;
+		private final Shared shared;
+		private final Heuristic heuristic;
+		private final Queue<List<State>> inbox = new ConcurrentLinkedQueue<>();
+		private final List<List<State>> outboxes = new ArrayList<>();	// Unsent batch for each worker
+		private final BucketQueue<State> open = new BucketQueue<>();
+		private final ClosedSet seen;
+		private long received;			// Batches taken from the inbox since last going idle
+		private volatile long openSize;	// Size of the open list when last sampled
+		private final SearchStatistics statistics = new SearchStatistics("parallel A* worker");
+
+		private Worker(int index, Shared shared, Heuristic heuristic) {
+			this.index = index;
+			this.shared = shared;
+			this.heuristic = heuristic;
+			seen = new ClosedSet(heuristic.getSize());
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < shared.workers.length; ++i)
+					outboxes.add(new ArrayList<>(BATCH_SIZE));
+				search();
+			} catch (Throwable e) {
+				shared.failure.compareAndSet(null, e);
+				shared.done = true;
+			}
+		}
+
+		private void search() {
+			int sinceFlush = 0;
+			while (!shared.done) {
+				receive();
+				if (!open.isEmpty() && open.getMinimum() < shared.bestLength.get()) {
+					expand(open.remove());
+					if (++sinceFlush == FLUSH_INTERVAL) {
+						flush();
+						sample();
+						sinceFlush = 0;
+					}
+				} else {
+					flush();
+					sample();
+					sinceFlush = 0;
+					idle();
+				}
+			}
+		}
+
+		// Adds the states of every received batch to the open list
+		private void receive() {
+			List<State> batch;
+			while ((batch = inbox.poll()) != null) {
+				received++;
+				for (State state : batch)
+					add(state);
+			}
+		}
+
+		private void add(State state) {
+			if (state.getDepth() + state.getCost() >= shared.bestLength.get())
+				return;
+			if (seen.put(state.getBoard(), state.getDepth(), state.getMove()))
+				open.add(state, state.getDepth() + state.getCost(), state.getDepth());
+			else
+				statistics.duplicate();
+		}
+
+		private void expand(State state) {
+			// Skip states that were reached again in fewer moves after being added
+			if (seen.get(state.getBoard()) < state.getDepth())
+				return;
+			if (state.isSolved()) {
+				shared.offer(state);
+				return;
+			}
+			statistics.expanded(state.getCost(), open.size(), seen.size());
+			for (Direction direction : Direction.values()) {
+				if (state.canMove(direction) && !state.isReverse(direction)) {
+					State next = state.move(direction, heuristic);
+					statistics.generated();
+					int owner = owner(next.getBoard(), shared.workers.length);
+					if (owner == index)
+						add(next);
+					else {
+						List<State> outbox = outboxes.get(owner);
+						outbox.add(next);
+						if (outbox.size() == BATCH_SIZE)
+							send(owner);
+					}
+				}
+			}
+		}
+
+		// Publishes the size of the open list and raises the peak of the sizes of all of them
+		private void sample() {
+			openSize = open.size();
+			long total = 0;
+			for (Worker worker : shared.workers)
+				total += worker.openSize;
+			shared.peakOpen.accumulateAndGet(total, Math::max);
+		}
+
+		private void flush() {
+			for (int owner = 0; owner < outboxes.size(); ++owner)
+				if (!outboxes.get(owner).isEmpty())
+					send(owner);
+		}
+
+		private void send(int owner) {
+			// Count the batch before it can be seen, so the counter never drops to zero early
+			shared.work.incrementAndGet();
+			shared.workers[owner].inbox.add(outboxes.get(owner));
+			outboxes.set(owner, new ArrayList<>(BATCH_SIZE));
+		}
+
+		// Releases this worker's unit of work and waits for a batch or the end
+		private void idle() {
+			if (shared.work.addAndGet(-(received + 1)) == 0) {
+				shared.done = true;
+				return;
+			}
+			received = 0;
+			int spins = 0;
+			while (!shared.done) {
+				if (!inbox.isEmpty()) {
+					// Take a unit of work back before releasing the batch's unit
+					shared.work.incrementAndGet();
+					return;
+				}
+				if (shared.work.get() == 0) {
+					shared.done = true;
+					return;
+				}
+				if (++spins < 100)
+					Thread.onSpinWait();
+				else
+					LockSupport.parkNanos(20_000);
+			}
+		}
+	}
+}
@@ -0,0 +1,407 @@
+package puzzle;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Table of the fewest moves of a group of tiles (a pattern) needed to bring
+ * them to their goal positions from every placement of those tiles, where
+ * moves of tiles outside the pattern are free.  Since only moves of pattern
+ * tiles are counted, the distances of disjoint patterns can be added up
+ * without overestimating (see {@link PatternDatabaseHeuristic}).
+ * <p>
+ * A table holds one byte per placement of the pattern tiles, indexed by
+ * ranking their positions.  Tables are built by breadth-first search over
+ * placements and blank positions, then saved to files which are memory
+ * mapped when loaded, so that a solver starts without rebuilding them and
+ * every process using the same file shares one copy in the page cache.
+ */
+public final class PatternDatabase {
+
+	private static final int MAGIC = 0x50444231; // "PDB1"
+	private static final int UNKNOWN = 0xFF;
+
+	private final int size;			// Number of rows and columns
+	private final int[] tiles;		// Goal positions of the pattern tiles
+	private final ByteBuffer table;	// Distance of every placement, indexed by rank
+
+	/**
+	 * Method that generates pattern database files.
+	 * The first argument is the size of the puzzle and the second is the
+	 * directory to write to.  Each remaining argument is a pattern given as
+	 * comma-separated tile numbers.  If no patterns are given, a default
+	 * partition of the tiles is used: 6-6-3 for 4 x 4, 5-5-5-5-4 for 5 x 5
+	 * and 4-4 for 3 x 3.
+	 *
+	 * @param args command line arguments for size, directory and patterns
+	 * @throws IOException if a file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: PatternDatabase size directory [tile,tile,...]...");
+			return;
+		}
+		int size = Integer.parseInt(args[0]);
+		Path directory = Paths.get(args[1]);
+		Files.createDirectories(directory);
+
+		List<int[]> patterns = new ArrayList<>();
+		for (int i = 2; i < args.length; ++i)
+			patterns.add(Arrays.stream(args[i].split(",")).mapToInt(Integer::parseInt).toArray());
+		if (patterns.isEmpty())
+			patterns = defaultPartition(size);
+
+		for (int[] numbers : patterns) {
+			long start = System.nanoTime();
+			PatternDatabase database = generate(size, numbers);
+			Path file = directory.resolve(database.getFileName());
+			database.save(file);
+			System.out.printf("Wrote %s in %.1f seconds%n", file, (System.nanoTime() - start) / 1e9);
+		}
+	}
+
+	/**
+	 * Default partition of the tiles into patterns for a puzzle size.
+	 *
+	 * @param size number of rows and columns
+	 * @return patterns, as lists of tile numbers
+	 */
+	static List<int[]> defaultPartition(int size) {
+		int[] lengths;
+		switch (size) {
+		case 3: lengths = new int[] { 4, 4 }; break;
+		case 4: lengths = new int[] { 6, 6, 3 }; break;
+		case 5: lengths = new int[] { 5, 5, 5, 5, 4 }; break;
+		default: throw new IllegalArgumentException("No default partition for size " + size);
+		}
+		List<int[]> patterns = new ArrayList<>();
+		int number = 1;
+		for (int length : lengths) {
+			int[] pattern = new int[length];
+			for (int i = 0; i < length; ++i)
+				pattern[i] = number++;
+			patterns.add(pattern);
+		}
+		return patterns;
+	}
+
+	/**
+	 * Constructor for a table of distances.
+	 *
+	 * @param size  number of rows and columns
+	 * @param tiles goal positions of the pattern tiles
+	 * @param table distance of every placement, indexed by rank
+	 */
+	private PatternDatabase(int size, int[] tiles, ByteBuffer table) {
+		this.size = size;
+		this.tiles = tiles;
+		this.table = table;
+	}
+
+	/**
+	 * Accessor for the number of rows and columns.
+	 *
+	 * @return size of puzzle
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * Accessor for the tiles of the pattern.
+	 *
+	 * @return goal positions of the pattern tiles
+	 */
+	int[] getTiles() {
+		return tiles.clone();
+	}
+
+	/**
+	 * Name of the file this table is saved in by the generator.
+	 *
+	 * @return file name
+	 */
+	String getFileName() {
+		StringBuilder name = new StringBuilder("pdb-" + size);
+		for (int tile : tiles)
+			name.append('-').append(tile + 1);
+		return name.append(".pdb").toString();
+	}
+
+	/**
+	 * Accessor for the number of tiles in the pattern.
+	 *
+	 * @return number of tiles
+	 */
+	int length() {
+		return tiles.length;
+	}
+
+	/**
+	 * Finds the distance stored for a placement of the pattern tiles.
+	 *
+	 * @param placement positions of the pattern tiles, in pattern order, packed
+	 *                  6 bits each (see {@link #rank(long, int, int)})
+	 * @return fewest moves of pattern tiles needed to solve the placement
+	 */
+	int distance(long placement) {
+		return table.get(rank(placement, tiles.length, size * size)) & 0xFF;
+	}
+
+	/**
+	 * Saves the table to a file.
+	 *
+	 * @param file file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	void save(Path file) throws IOException {
+		try (OutputStream stream = Files.newOutputStream(file);
+				DataOutputStream output = new DataOutputStream(stream)) {
+			output.writeInt(MAGIC);
+			output.writeInt(size);
+			output.writeInt(tiles.length);
+			for (int tile : tiles)
+				output.writeByte(tile);
+			ByteBuffer data = table.duplicate();
+			data.clear();
+			byte[] chunk = new byte[1 << 16];
+			while (data.hasRemaining()) {
+				int length = Math.min(chunk.length, data.remaining());
+				data.get(chunk, 0, length);
+				output.write(chunk, 0, length);
+			}
+		}
+	}
+
+	/**
+	 * Loads a table by memory mapping a file written by {@link #save(Path)}.
+	 *
+	 * @param file file to read
+	 * @return pattern database
+	 * @throws IOException if the file cannot be read or is not a pattern
+	 *                     database
+	 */
+	static PatternDatabase load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (mapped.remaining() < 12 || mapped.getInt() != MAGIC)
+				throw new IOException(file + " is not a pattern database");
+			int size = mapped.getInt();
+			int[] tiles = new int[mapped.getInt()];
+			for (int i = 0; i < tiles.length; ++i)
+				tiles[i] = mapped.get();
+			if (mapped.remaining() != placements(size * size, tiles.length))
+				throw new IOException(file + " is truncated");
+			// The mapping stays valid after the channel is closed
+			return new PatternDatabase(size, tiles, mapped.slice());
+		}
+	}
+
+	/**
+	 * Builds the table for a pattern by breadth-first search backwards from
+	 * the solved placement.  Sliding a pattern tile costs one move and
+	 * sliding any other tile is free, so the search keeps a double-ended
+	 * queue with free moves added to the front.
+	 *
+	 * @param size    number of rows and columns
+	 * @param numbers tile numbers in the pattern (1 to size*size - 1)
+	 * @return pattern database held in memory
+	 * @throws IllegalArgumentException if the pattern is empty, has repeated or
+	 *                                  illegal tiles, or is too big
+	 */
+	static PatternDatabase generate(int size, int... numbers) {
+		int positions = size * size;
+		int length = numbers.length;
+		int[] tiles = new int[length];
+		boolean[] used = new boolean[positions];
+		for (int i = 0; i < length; ++i) {
+			if (numbers[i] < 1 || numbers[i] >= positions || used[numbers[i] - 1])
+				throw new IllegalArgumentException("Illegal pattern: " + Arrays.toString(numbers));
+			tiles[i] = numbers[i] - 1;
+			used[tiles[i]] = true;
+		}
+		long placements = placements(positions, length);
+		if (length == 0 || length > 10 || positions > Long.SIZE || placements * positions > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Pattern is too big: " + Arrays.toString(numbers));
+
+		// Distance of every placement with every blank position
+		byte[] distances = new byte[(int) placements * positions];
+		Arrays.fill(distances, (byte) UNKNOWN);
+		IntDeque queue = new IntDeque();
+		// In the solved placement every tile is at its goal position
+		long solved = 0;
+		for (int i = 0; i < length; ++i)
+			solved |= (long) tiles[i] << (6 * i);
+		int start = rank(solved, length, positions) * positions + (positions - 1);
+		distances[start] = 0;
+		queue.addLast(start);
+
+		while (!queue.isEmpty()) {
+			int state = queue.removeFirst();
+			int distance = distances[state] & 0xFF;
+			int blank = state % positions;
+			long placement = unrank(state / positions, length, positions);
+			int row = blank / size;
+			int column = blank % size;
+			for (int move = 0; move < 4; ++move) {
+				int newRow = row + (move == 0 ? 1 : move == 1 ? -1 : 0);
+				int newColumn = column + (move == 2 ? 1 : move == 3 ? -1 : 0);
+				if (newRow < 0 || newRow >= size || newColumn < 0 || newColumn >= size)
+					continue;
+				int newBlank = newRow * size + newColumn;
+				// Slide the pattern tile (if any) at the new blank position into the old one
+				long next = placement;
+				int cost = 0;
+				for (int i = 0; i < length; ++i) {
+					if ((placement >>> (6 * i) & 63) == newBlank) {
+						next = placement ^ ((long) (newBlank ^ blank) << (6 * i));
+						cost = 1;
+					}
+				}
+				int nextState = rank(next, length, positions) * positions + newBlank;
+				if ((distances[nextState] & 0xFF) > distance + cost) {
+					distances[nextState] = (byte) (distance + cost);
+					if (cost == 0)
+						queue.addFirst(nextState);
+					else
+						queue.addLast(nextState);
+				}
+			}
+		}
+
+		// Keep the fewest moves over every blank position
+		ByteBuffer table = ByteBuffer.allocate((int) placements);
+		for (int index = 0; index < placements; ++index) {
+			int best = UNKNOWN;
+			for (int blank = 0; blank < positions; ++blank)
+				best = Math.min(best, distances[index * positions + blank] & 0xFF);
+			table.put(index, (byte) best);
+		}
+		return new PatternDatabase(size, tiles, table);
+	}
+
+	/**
+	 * Number of ways to place tiles on distinct positions.
+	 *
+	 * @param positions number of positions
+	 * @param length    number of tiles
+	 * @return positions! / (positions - length)!
+	 */
+	static long placements(int positions, int length) {
+		long count = 1;
+		for (int i = 0; i < length; ++i)
+			count *= positions - i;
+		return count;
+	}
+
+	/**
+	 * Ranks the positions of tiles, numbering each position by how many
+	 * positions below it are still free and combining those numbers in a mixed
+	 * radix.  Positions are packed 6 bits each, the first tile in the lowest
+	 * bits, so a placement fits in a {@code long} and ranking it allocates
+	 * nothing.
+	 *
+	 * @param placement distinct positions of the tiles, packed 6 bits each
+	 * @param length    number of tiles
+	 * @param positions number of positions (at most 64)
+	 * @return rank from 0 to {@link #placements(int, int)} - 1
+	 */
+	static int rank(long placement, int length, int positions) {
+		int index = 0;
+		long taken = 0;
+		for (int i = 0; i < length; ++i) {
+			int position = (int) (placement >>> (6 * i)) & 63;
+			// Count the free positions below this one
+			int digit = position - Long.bitCount(taken & ((1L << position) - 1));
+			taken |= 1L << position;
+			index = index * (positions - i) + digit;
+		}
+		return index;
+	}
+
+	/**
+	 * Finds the positions of tiles from their rank, reversing
+	 * {@link #rank(long, int, int)}.
+	 *
+	 * @param index     rank of the positions
+	 * @param length    number of tiles
+	 * @param positions number of positions (at most 64)
+	 * @return positions of the tiles, packed 6 bits each
+	 */
+	static long unrank(int index, int length, int positions) {
+		int[] digits = new int[length];
+		// Peel off the mixed radix digits from the last one
+		for (int i = length - 1; i >= 0; --i) {
+			digits[i] = index % (positions - i);
+			index /= positions - i;
+		}
+		// Turn each digit into the matching free position
+		long placement = 0;
+		long taken = 0;
+		for (int i = 0; i < length; ++i) {
+			int digit = digits[i];
+			int position = -1;
+			do {
+				position++;
+				if ((taken >>> position & 1) == 0)
+					digit--;
+			} while (digit >= 0);
+			taken |= 1L << position;
+			placement |= (long) position << (6 * i);
+		}
+		return placement;
+	}
+
+	/**
+	 * Growable ring buffer of {@code int} values.
+	 */
+	private static final class IntDeque {
+		private int[] values = new int[1 << 10];
+		private int head;		// Index of the first value
+		private int count;		// Number of values
+
+		private boolean isEmpty() {
+			return count == 0;
+		}
+
+		private void addFirst(int value) {
+			ensureCapacity();
+			head = (head - 1) & (values.length - 1);
+			values[head] = value;
+			count++;
+		}
+
+		private void addLast(int value) {
+			ensureCapacity();
+			values[(head + count) & (values.length - 1)] = value;
+			count++;
+		}
+
+		private int removeFirst() {
+			int value = values[head];
+			head = (head + 1) & (values.length - 1);
+			count--;
+			return value;
+		}
+
+		private void ensureCapacity() {
+			if (count < values.length)
+				return;
+			int[] larger = new int[values.length * 2];
+			for (int i = 0; i < count; ++i)
+				larger[i] = values[(head + i) & (values.length - 1)];
+			values = larger;
+			head = 0;
+		}
+	}
+}
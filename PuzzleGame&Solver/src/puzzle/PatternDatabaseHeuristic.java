@@ -0,0 +1,110 @@
+package puzzle;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Heuristic that adds up the distances stored in pattern databases for
+ * disjoint groups of tiles.  Tiles left out of every pattern are estimated
+ * with Manhattan distance, which is also additive with the patterns.
+ * <p>
+ * When a tile moves, only the pattern holding it is looked up again.
+ */
+final class PatternDatabaseHeuristic implements Heuristic {
+
+	private final int size;
+	private final PatternDatabase[] databases;
+	private final int[] owner;		// Index of the pattern holding each tile, -1 for none
+	private final int[] slot;		// Index of each tile within its pattern
+	private final ManhattanDistance manhattan;
+
+	/**
+	 * Loads the pattern databases for a puzzle size from every file ending in
+	 * ".pdb" in a directory, as written by {@link PatternDatabase#main(String[])}.
+	 *
+	 * @param directory directory holding the files
+	 * @param size      number of rows and columns
+	 * @return heuristic using the loaded patterns
+	 * @throws IOException if a file cannot be read, or no patterns are found
+	 */
+	static PatternDatabaseHeuristic load(Path directory, int size) throws IOException {
+		List<PatternDatabase> databases = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "pdb-" + size + "-*.pdb")) {
+			for (Path file : files)
+				databases.add(PatternDatabase.load(file));
+		}
+		if (databases.isEmpty())
+			throw new IOException("No " + size + " x " + size + " pattern databases in " + directory);
+		return new PatternDatabaseHeuristic(databases);
+	}
+
+	/**
+	 * Constructor for a heuristic adding up the given pattern databases.
+	 *
+	 * @param databases pattern databases for disjoint patterns of one size
+	 * @throws IllegalArgumentException if the patterns are of different sizes
+	 *                                  or share tiles
+	 */
+	PatternDatabaseHeuristic(List<PatternDatabase> databases) {
+		this.databases = databases.toArray(new PatternDatabase[0]);
+		size = this.databases[0].getSize();
+		manhattan = ManhattanDistance.forSize(size);
+		owner = new int[size * size];
+		slot = new int[size * size];
+		Arrays.fill(owner, -1);
+		for (int i = 0; i < this.databases.length; ++i) {
+			if (this.databases[i].getSize() != size)
+				throw new IllegalArgumentException("Pattern databases are for different sizes!");
+			int[] tiles = this.databases[i].getTiles();
+			for (int j = 0; j < tiles.length; ++j) {
+				if (owner[tiles[j]] != -1)
+					throw new IllegalArgumentException("Patterns must not share tiles!");
+				owner[tiles[j]] = i;
+				slot[tiles[j]] = j;
+			}
+		}
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public int estimate(long[] board) {
+		long[] placements = new long[databases.length];
+		int total = 0;
+		for (int position = 0; position < size * size; ++position) {
+			int tile = Board.get(board, size, position);
+			if (owner[tile] >= 0)
+				placements[owner[tile]] |= (long) position << (6 * slot[tile]);
+			else
+				total += manhattan.distance(tile, position);
+		}
+		for (int i = 0; i < databases.length; ++i)
+			total += databases[i].distance(placements[i]);
+		return total;
+	}
+
+	@Override
+	public int update(long[] board, int estimate, int tile, int from, int to) {
+		int pattern = owner[tile];
+		if (pattern < 0)
+			return estimate - manhattan.distance(tile, from) + manhattan.distance(tile, to);
+		// Find the placement of the moved tile's pattern after the move
+		long placement = 0;
+		for (int position = 0; position < size * size; ++position) {
+			int other = Board.get(board, size, position);
+			if (owner[other] == pattern)
+				placement |= (long) position << (6 * slot[other]);
+		}
+		// and before it, with the tile back where it came from
+		long previous = placement ^ ((long) (from ^ to) << (6 * slot[tile]));
+		return estimate - databases[pattern].distance(previous) + databases[pattern].distance(placement);
+	}
+}
@@ -1,16 +1,30 @@
 package puzzle;
 
+import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
+import javax.swing.JButton;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 
@@ -30,46 +44,27 @@ public class Puzzle extends JFrame {
 		}		
 	}	
 
-	/**
-	 * Enum values for puzzle moves.
-	 * Each value has a corresponding row change
-	 * and column change.
-	 */
-	enum Direction { UP, DOWN, LEFT, RIGHT;
-
-		/**
-		 * Accessor for row change for the direction.
-		 * @return change in row (-1, 0, 1)
-		 */
-		public int getRowChange() {
-			switch(this) {			
-			case UP: return 1;
-			case DOWN: return -1;
-			default: return 0;			
-			}		
-		}
-
-		/**
-		 * Accessor for column change for the direction.
-		 * @return change in column (-1, 0, 1)
-		 */
-		public int getColumnChange() {
-			switch(this) {			
-			case LEFT: return 1;
-			case RIGHT: return -1;
-			default: return 0;			
-			}		
-		}	
-	};
-
 	/**
 	 * Constant member giving number of rows and columns.
 	 */
 	public final int SIZE;
+
+	private static final int FRAME_MILLIS = 15;			// Delay between frames of the playback
+	private static final int LARGEST_OPTIMAL_SIZE = 4;	// Largest size solved optimally
+	private static final Duration HINT_BUDGET = Duration.ofMillis(50);	// Longest wait for a hint
 	
 	private NumberButton[][] buttons;
 	private int blankRow;
 	private int blankColumn;
+	private int misplaced;				// Number of tiles out of their solved position
+	private final HintEngine hints;
+
+	private final JButton solveButton = new JButton("Solve");
+	private final JButton cancelButton = new JButton("Cancel");
+	private final JSlider speed = new JSlider(1, 200, 10);		// Moves per second of the playback
+	private final JLabel status = new JLabel(" ");
+	private SwingWorker<Solution, String> worker;		// Search running, or null
+	private Timer playback;								// Timer making the moves of a solution, or null
 	
 	/**
 	 * Method that creates a new Puzzle.
@@ -113,16 +108,11 @@ public class Puzzle extends JFrame {
 
 					@Override
 					public void actionPerformed(ActionEvent event) {
-						NumberButton swap = getSwap(button);
-						if( swap != null ) {
-							int swapNumber = swap.getNumber();
-							int buttonNumber = button.getNumber();
-							swap.setNumber(buttonNumber);							
-							button.setNumber(swapNumber);
-							blankRow = button.getRow();
-							blankColumn = button.getColumn();
-							checkForWin();		
-						}				
+						if( isBusy() )
+							return;
+						Direction direction = getMove(button);
+						if( direction != null )
+							move(direction);
 					}
 
 				});	
@@ -132,16 +122,23 @@ public class Puzzle extends JFrame {
 
 		blankRow = SIZE - 1;
 		blankColumn = SIZE - 1;
+		hints = new HintEngine(new LinearConflict(SIZE), SIZE <= LARGEST_OPTIMAL_SIZE);
 		
 		addKeyListener(new KeyListener() {
 			@Override
 			public void keyPressed(KeyEvent e) {
+				if( e.getKeyCode() == KeyEvent.VK_ESCAPE )
+					cancel();
+				if( isBusy() )
+					return;
 
 				switch( e.getKeyCode() ) {
 				case KeyEvent.VK_UP: move(Direction.UP); break;
 				case KeyEvent.VK_DOWN: move(Direction.DOWN); break;
 				case KeyEvent.VK_LEFT: move(Direction.LEFT); break;
 				case KeyEvent.VK_RIGHT: move(Direction.RIGHT); break;
+				case KeyEvent.VK_S: solve(); break;
+				case KeyEvent.VK_H: hint(); break;
 				}	
 			}
 
@@ -154,9 +151,35 @@ public class Puzzle extends JFrame {
 			}
 		});
 		
-		add(panel);
+		solveButton.addActionListener(event -> solve());
+		cancelButton.addActionListener(event -> cancel());
+		cancelButton.setEnabled(false);
+		JPanel buttonPanel = new JPanel(new FlowLayout());
+		buttonPanel.add(solveButton);
+		buttonPanel.add(cancelButton);
+		buttonPanel.add(new JLabel("Moves per second:"));
+		buttonPanel.add(speed);
+		// Keep the focus on the window, which handles the keys
+		solveButton.setFocusable(false);
+		cancelButton.setFocusable(false);
+		speed.setFocusable(false);
+		JPanel controls = new JPanel(new BorderLayout());
+		controls.add(buttonPanel, BorderLayout.NORTH);
+		controls.add(status, BorderLayout.SOUTH);
+
+		// Stop searching and playing when the window goes away
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				cancel();
+				hints.close();
+			}
+		});
+		
+		add(panel, BorderLayout.CENTER);
+		add(controls, BorderLayout.SOUTH);
 		setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);		
-		setPreferredSize(new Dimension(500,500));
+		setPreferredSize(new Dimension(500,580));
 		pack();		
 		setResizable(false);
 		scramble();
@@ -164,16 +187,12 @@ public class Puzzle extends JFrame {
 	}
 
 	/**
-	 * Checks to see if the player has won.
+	 * Checks to see if the player has won, which is when no tile is out of
+	 * place.  The count of misplaced tiles is kept up to date by each move,
+	 * so the check takes constant time.
 	 */
 	private void checkForWin() {
-		int count = 0;
-		for( int i = 0; i < SIZE; ++i )
-			for( int j = 0; j < SIZE; ++j )
-				if( isCorrectlyPlaced(buttons[i][j], i, j) )
-					count++;
-
-		if( count == SIZE*SIZE - 1 ) {
+		if( misplaced == 0 ) {
 			for( int i = 0; i < SIZE; ++i )
 				for( int j = 0; j < SIZE; ++j )
 					buttons[i][j].setEnabled(false);
@@ -201,56 +220,242 @@ public class Puzzle extends JFrame {
 		return buttons;
 	}
 
-	private NumberButton getSwap( NumberButton button ) {
-		int row = button.getRow();
-		int column = button.getColumn();
-		if( row > 0 && buttons[row - 1][column].isEmpty() )
-			return buttons[row - 1][column];
-		else if( row < SIZE - 1 && buttons[row + 1][column].isEmpty() )
-			return buttons[row + 1][column];
-		else if( column > 0 && buttons[row][column - 1].isEmpty() )
-			return buttons[row][column - 1];
-		else if( column < SIZE - 1 && buttons[row][column + 1].isEmpty() )
-			return buttons[row][column + 1];
+	/**
+	 * Accessor for the numbers on the buttons in the current state of the
+	 * puzzle, as taken by {@link Solver#solve(int[][])}.
+	 * @return tile numbers, 0 for the blank tile
+	 */
+	public int[][] getNumbers() {
+		int[][] numbers = new int[SIZE][SIZE];
+		for( int row = 0; row < SIZE; row++ )
+			for( int column = 0; column < SIZE; column++ )
+				numbers[row][column] = buttons[row][column].getNumber();
+		return numbers;
+	}
+
+	/**
+	 * Shows the next move of a shortest solution from the current state in
+	 * the status line.  Pressing H does the same.  The {@link HintEngine}
+	 * keeps planning in the background as the user plays, so the hint is
+	 * usually ready at once; if no plan is known to be optimal within 50
+	 * milliseconds, the best move found so far is shown and marked as such.
+	 * Puzzles larger than 4 x 4 are not planned, and the hint is always the
+	 * move with the lowest estimate.
+	 */
+	public void hint() {
+		if( isBusy() )
+			return;
+		HintEngine.Hint hint = hints.hint(HINT_BUDGET);
+		if( hint == null ) {
+			status.setText("Already solved");
+			return;
+		}
+		Direction move = hint.getMove();
+		int tile = buttons[blankRow + move.getRowChange()][blankColumn + move.getColumnChange()].getNumber();
+		String quality;
+		if( hint.isOptimal() )
+			quality = "optimal, " + hint.getMovesLeft() + " moves left";
+		else if( hint.getMovesLeft() >= 0 )
+			quality = "best plan so far, " + hint.getMovesLeft() + " moves";
 		else
-			return null;
+			quality = "best guess";
+		status.setText("Hint: slide " + tile + " " + move.name().toLowerCase() + " (" + quality + ")");
+	}
+
+	/**
+	 * Solves the puzzle from its current state with a {@link Solver} and
+	 * prints the moves, then performs them at the speed chosen with the
+	 * slider so the user can see the puzzle solved in real time.  Pressing S
+	 * or the Solve button does the same.  Puzzles up to 4 x 4 are solved in
+	 * the fewest moves with IDA*; larger ones with anytime search, which
+	 * improves its first solution for a few seconds.
+	 * <p>
+	 * The search is created and run on a {@link SwingWorker}, so the window
+	 * stays responsive, and the status line shows its progress.  The Cancel button
+	 * or Escape interrupts it, which stops the search at its next progress
+	 * report.  The tiles cannot be moved by hand while solving.
+	 */
+	public void solve() {
+		if( isBusy() )
+			return;
+		int[][] numbers = getNumbers();
+		solveButton.setEnabled(false);
+		cancelButton.setEnabled(true);
+		status.setText("Searching...");
+
+		worker = new SwingWorker<Solution, String>() {
+			@Override
+			protected Solution doInBackground() {
+				// Built here, as the first move automaton takes about a second to build
+				Solver solver = new Solver(SIZE <= LARGEST_OPTIMAL_SIZE
+						? new IdaStarSearch(new LinearConflict(SIZE), MoveAutomaton.standard())
+						: Solver.anytime(null, SIZE, Duration.ofSeconds(5)));
+				// The search reports its progress on this thread
+				SearchStatistics.setListener(statistics -> publish(progress(statistics)));
+				try {
+					return solver.solve(numbers);
+				} finally {
+					SearchStatistics.setListener(null);
+				}
+			}
+
+			@Override
+			protected void process(List<String> reports) {
+				// Only the latest report is worth showing
+				if( !isCancelled() )
+					status.setText(reports.get(reports.size() - 1));
+			}
+
+			@Override
+			protected void done() {
+				worker = null;
+				Solution solution;
+				try {
+					solution = get();
+				} catch (CancellationException e) {
+					finish("Search cancelled");
+					return;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				} catch (ExecutionException e) {
+					finish("Search failed: " + e.getCause().getMessage());
+					return;
+				}
+				if( solution == null ) {
+					System.out.println("Unsolvable!");
+					finish("Unsolvable!");
+					return;
+				}
+				System.out.println("Solvable in " + solution.length() + " moves:");
+				System.out.println(solution);
+				status.setText(String.format("Solving in %d moves (%,d states expanded)",
+						solution.length(), solution.getNodesExpanded()));
+				play(solution.getMoves());
+			}
+		};
+		worker.execute();
+	}
+
+	/**
+	 * Stops the search or the playback of its moves, if either is running.
+	 * The board is left as it is.
+	 */
+	public void cancel() {
+		if( worker != null )
+			worker.cancel(true);
+		if( playback != null ) {
+			playback.stop();
+			playback = null;
+			finish("Stopped");
+		}
+	}
+
+	/**
+	 * Determines whether the puzzle is being solved, so the user should not
+	 * move the tiles.
+	 * @return true if a search or its playback is running, false otherwise
+	 */
+	private boolean isBusy() {
+		return worker != null || playback != null;
+	}
+
+	/**
+	 * Private utility method to make the moves of a solution on a timer.
+	 * The moves owed at the current speed are made together on each frame,
+	 * so fast playback costs one repaint of the board per frame rather than
+	 * one per move.
+	 * @param moves moves to make
+	 */
+	private void play(List<Direction> moves) {
+		Iterator<Direction> remaining = moves.iterator();
+		playback = new Timer(FRAME_MILLIS, null);
+		playback.addActionListener(new ActionListener() {
+			private long last = System.nanoTime();
+			private double owed = 1;		// Moves owed, so the first is made right away
+
+			@Override
+			public void actionPerformed(ActionEvent event) {
+				long now = System.nanoTime();
+				owed += (now - last) / 1e9 * speed.getValue();
+				last = now;
+				for( ; owed >= 1 && remaining.hasNext(); owed-- )
+					move(remaining.next(), false);
+				if( !remaining.hasNext() ) {
+					playback.stop();
+					playback = null;
+					finish("Solved");
+					checkForWin();
+				}
+			}
+		});
+		playback.start();
+	}
+
+	/**
+	 * Private utility method to show the outcome of solving and let the
+	 * user solve again.
+	 * @param message status to show
+	 */
+	private void finish(String message) {
+		status.setText(message);
+		solveButton.setEnabled(true);
+		cancelButton.setEnabled(false);
+	}
+
+	/**
+	 * Describes the progress of a search for the status line.
+	 * @param statistics statistics of the search so far
+	 * @return description
+	 */
+	private static String progress(SearchStatistics statistics) {
+		String bound = statistics.getBound() >= 0 ? ", bound " + statistics.getBound() : "";
+		return String.format("Searching: %,d states expanded, %,.0f per second%s",
+				statistics.getExpanded(), statistics.getNodesPerSecond(), bound);
+	}
+
+	/**
+	 * Finds the move that slides the tile on a button into the blank spot.
+	 * @param button button clicked
+	 * @return direction of the move, or null if the button is not next to
+	 * the blank spot
+	 */
+	private Direction getMove( NumberButton button ) {
+		for( Direction direction : Direction.values() )
+			if( blankRow + direction.getRowChange() == button.getRow()
+					&& blankColumn + direction.getColumnChange() == button.getColumn() )
+				return direction;
+		return null;
 	}
 
 	
 	/**
 	 * Method scrambles the tiles in a puzzle.
-	 * Internally, this method calls the internal scramble method with a
-	 * parameter equal to the total number of tiles squared. This parameter
-	 * determines how many random moves are made to scramble the tiles.
-	 * Total tiles squared generates a reasonably randomized puzzle.
+	 * The new arrangement is drawn uniformly from all solvable arrangements
+	 * by {@link PuzzleGenerator#uniform(int, Random)}, and each button is
+	 * then updated once.
 	 */
 	public void scramble() {
-		scramble(SIZE*SIZE*SIZE*SIZE);
+		setTiles(PuzzleGenerator.uniform(SIZE, new Random()));
 	}
 
 	/**
-	 * Private utility method to scramble the puzzle by making a random number
-	 * of moves equal to the input parameter times.
-	 * @param times number of times to move randomly
+	 * Private utility method to set the number of every button at once.
+	 * @param numbers tile numbers, 0 for the blank tile
 	 */
-	private void scramble(int times) {
-		Direction[] directions = new Direction[4];
-		Random random = new Random();
-		// Repeatedly fill directions with available moves
-		for( int i = 0; i < times; ++i ) {
-			int availableDirections = 0;
-			if( blankRow > 0 )
-				directions[availableDirections++] = Direction.DOWN;
-			if( blankRow < SIZE - 1 )
-				directions[availableDirections++] = Direction.UP;
-			if( blankColumn > 0 )
-				directions[availableDirections++] = Direction.RIGHT;
-			if( blankColumn < SIZE - 1 )
-				directions[availableDirections++] = Direction.LEFT;
-			// Randomly select one of the available moves and move that way
-			Direction direction = directions[random.nextInt(availableDirections)];
-			move(direction, false);
-		}	
+	private void setTiles(int[][] numbers) {
+		misplaced = 0;
+		for( int row = 0; row < SIZE; row++ )
+			for( int column = 0; column < SIZE; column++ ) {
+				buttons[row][column].setNumber(numbers[row][column]);
+				if( numbers[row][column] == 0 ) {
+					blankRow = row;
+					blankColumn = column;
+				}
+				else if( !isCorrectlyPlaced(buttons[row][column], row, column) )
+					misplaced++;
+			}
+		hints.reset(numbers);
 	}
 
 	
@@ -281,8 +486,14 @@ public class Puzzle extends JFrame {
 			NumberButton blankButton = buttons[blankRow][blankColumn];
 			int swapNumber = swapButton.getNumber();
 			int buttonNumber = blankButton.getNumber();
+			// Only the tile that moves can change the count of misplaced tiles
+			if( !isCorrectlyPlaced(swapButton, swapRow, swapColumn) )
+				misplaced--;
 			swapButton.setNumber(buttonNumber);
 			blankButton.setNumber(swapNumber);
+			if( !isCorrectlyPlaced(blankButton, blankRow, blankColumn) )
+				misplaced++;
+			hints.moved(direction);
 			blankRow = swapRow;
 			blankColumn = swapColumn;
 			if( checkForWin ) // Used when manually clicking
@@ -0,0 +1,123 @@
+package puzzle;
+
+import java.util.Random;
+
+/**
+ * Class to generate solvable puzzles without a {@link Puzzle} window, fast
+ * enough to produce large sets of puzzles for benchmarks and batches.
+ * <p>
+ * Puzzles are returned as square arrays of tile numbers laid out as on the
+ * buttons of a {@link Puzzle}, with 0 for the blank tile, which is what
+ * {@link State#of(int[][])} and {@link BatchSolver} take.  Pass a
+ * {@link Random} with a fixed seed to get the same puzzles every time.
+ */
+public final class PuzzleGenerator {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private PuzzleGenerator() {
+	}
+
+	/**
+	 * Draws a puzzle uniformly at random from all solvable puzzles of a size.
+	 * The tiles are shuffled with a Fisher-Yates shuffle and, if the result
+	 * is unsolvable, the first two numbered tiles are swapped.  Swapping them
+	 * pairs each unsolvable arrangement with exactly one solvable one, so
+	 * every solvable arrangement is equally likely.
+	 *
+	 * @param size   number of rows and columns
+	 * @param random source of randomness
+	 * @return tile numbers, 0 for the blank tile
+	 * @throws IllegalArgumentException if the size is below 2 or above
+	 *                                  {@link Board#MAX_SIZE}
+	 */
+	public static int[][] uniform(int size, Random random) {
+		checkSize(size);
+		int tiles = size * size;
+		// Start from the solved layout of goal positions, blank last
+		int[] layout = new int[tiles];
+		for (int i = 0; i < tiles; ++i)
+			layout[i] = i;
+		for (int i = tiles - 1; i > 0; --i) {
+			int j = random.nextInt(i + 1);
+			int swap = layout[i];
+			layout[i] = layout[j];
+			layout[j] = swap;
+		}
+		long[] board = new long[Board.words(size)];
+		for (int i = 0; i < tiles; ++i)
+			Board.set(board, size, i, layout[i]);
+		if (!Board.isSolvable(board, size)) {
+			int first = layout[0] == tiles - 1 ? 1 : 0;
+			int second = layout[first + 1] == tiles - 1 ? first + 2 : first + 1;
+			Board.swap(board, size, first, second);
+		}
+		return numbers(board, size);
+	}
+
+	/**
+	 * Makes random moves from the solved puzzle.  A move that would undo the
+	 * one before it is never chosen, so the walk wanders further from the
+	 * solved puzzle than purely random moves would.
+	 *
+	 * @param size   number of rows and columns
+	 * @param moves  number of random moves
+	 * @param random source of randomness
+	 * @return tile numbers, 0 for the blank tile
+	 * @throws IllegalArgumentException if the size is below 2 or above
+	 *                                  {@link Board#MAX_SIZE}
+	 */
+	public static int[][] walk(int size, int moves, Random random) {
+		checkSize(size);
+		long[] board = Board.goal(size);
+		int blankRow = size - 1;
+		int blankColumn = size - 1;
+		Direction[] directions = new Direction[4];
+		Direction previous = null;
+		for (int i = 0; i < moves; ++i) {
+			// Fill directions with the available moves
+			int available = 0;
+			for (Direction direction : DIRECTIONS) {
+				int row = blankRow + direction.getRowChange();
+				int column = blankColumn + direction.getColumnChange();
+				if (row >= 0 && row < size && column >= 0 && column < size
+						&& (previous == null || direction != previous.inverse()))
+					directions[available++] = direction;
+			}
+			Direction direction = directions[random.nextInt(available)];
+			int row = blankRow + direction.getRowChange();
+			int column = blankColumn + direction.getColumnChange();
+			Board.swap(board, size, blankRow * size + blankColumn, row * size + column);
+			blankRow = row;
+			blankColumn = column;
+			previous = direction;
+		}
+		return numbers(board, size);
+	}
+
+	/**
+	 * Checks that puzzles of a size have a move to make and can be packed.
+	 *
+	 * @param size number of rows and columns
+	 * @throws IllegalArgumentException if the size is below 2 or above
+	 *                                  {@link Board#MAX_SIZE}
+	 */
+	private static void checkSize(int size) {
+		if (size < 2 || size > Board.MAX_SIZE)
+			throw new IllegalArgumentException("Size must be 2 to " + Board.MAX_SIZE + "!");
+	}
+
+	/**
+	 * Converts a packed board to tile numbers, with 0 for the blank tile.
+	 *
+	 * @param board packed board
+	 * @param size  number of rows and columns
+	 * @return tile numbers
+	 */
+	private static int[][] numbers(long[] board, int size) {
+		int[][] numbers = new int[size][size];
+		for (int position = 0; position < size * size; ++position)
+			numbers[position / size][position % size] = (Board.get(board, size, position) + 1) % (size * size);
+		return numbers;
+	}
+}
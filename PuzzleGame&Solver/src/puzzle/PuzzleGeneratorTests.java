@@ -0,0 +1,111 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test {@link PuzzleGenerator} and the
+ * solvability check it relies on.
+ */
+class PuzzleGeneratorTests {
+
+	/**
+	 * Checks the solvability of every 2 x 2 arrangement against the ones
+	 * reachable from the solved puzzle, and of a few larger puzzles.
+	 */
+	@Test
+	void solvableTest() {
+		// Find every arrangement reachable by moving the blank around the 2 x 2 cycle
+		Set<String> reachable = new HashSet<>();
+		State state = SearchTests.state(1, 2, 3, 0);
+		Direction[] cycle = { Direction.DOWN, Direction.RIGHT, Direction.UP, Direction.LEFT };
+		for (int i = 0; i < 12; ++i) {
+			reachable.add(state.toString());
+			state = state.move(cycle[i % 4]);
+		}
+		assertEquals(12, reachable.size(), "Half of the 2 x 2 arrangements should be reachable!");
+		// Check every permutation of the four tiles
+		int[] tiles = { 0, 1, 2, 3 };
+		for (int i = 0; i < 24; ++i) {
+			State permuted = SearchTests.state(permutation(tiles, i));
+			assertEquals(reachable.contains(permuted.toString()), permuted.isSolvable(),
+					"Solvability of " + permuted + " is incorrect!");
+		}
+		assertTrue(SearchTests.state(8, 6, 7, 2, 5, 4, 3, 0, 1).isSolvable(), "Should be solvable!");
+		assertFalse(SearchTests.state(2, 1, 3, 4, 5, 6, 7, 8, 0).isSolvable(), "Should not be solvable!");
+		assertFalse(SearchTests.state(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 15, 14, 0).isSolvable(),
+				"Should not be solvable!");
+		assertTrue(SearchTests.state(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 0, 15).isSolvable(),
+				"Should be solvable!");
+	}
+
+	/**
+	 * Draws many 2 x 2 puzzles and checks that every solvable arrangement
+	 * comes up about equally often.
+	 */
+	@Test
+	void uniformTest() {
+		Random random = new Random(11);
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; i < 24000; ++i) {
+			State state = State.of(PuzzleGenerator.uniform(2, random));
+			assertTrue(state.isSolvable(), "Generated an unsolvable puzzle!");
+			counts.merge(state.toString(), 1, Integer::sum);
+		}
+		assertEquals(12, counts.size(), "Every solvable arrangement should come up!");
+		for (int count : counts.values())
+			assertTrue(count > 1700 && count < 2300, "Arrangements are not equally likely!");
+	}
+
+	/**
+	 * Makes random walks on a 15-puzzle and checks that they can be solved in
+	 * at most as many moves as were made.
+	 */
+	@Test
+	void walkTest() {
+		Random random = new Random(12);
+		Search search = new IdaStarSearch();
+		for (int i = 0; i < 5; ++i) {
+			State state = State.of(PuzzleGenerator.walk(4, 30, random));
+			assertTrue(state.isSolvable(), "Generated an unsolvable puzzle!");
+			assertTrue(search.solve(state).length() <= 30, "Solution is longer than the walk!");
+		}
+		// A 2 x 2 walk that never undoes a move circles the board, back to solved every 12 moves
+		assertTrue(Arrays.deepEquals(new int[][] { { 1, 2 }, { 3, 0 } }, PuzzleGenerator.walk(2, 12, random)),
+				"Walk undid a move!");
+		assertThrows(IllegalArgumentException.class, () -> PuzzleGenerator.walk(1, 1, random), "1 x 1 has no moves!");
+		assertThrows(IllegalArgumentException.class, () -> PuzzleGenerator.uniform(1, random), "1 x 1 is too small!");
+	}
+
+	/**
+	 * Finds the permutation of some values with a given index in a mixed
+	 * radix numbering of all their permutations.
+	 *
+	 * @param values values to permute
+	 * @param index  index of the permutation
+	 * @return permuted values
+	 */
+	private static int[] permutation(int[] values, int index) {
+		int[] remaining = values.clone();
+		int[] result = new int[values.length];
+		for (int i = 0; i < values.length; ++i) {
+			int left = values.length - i;
+			int choice = index % left;
+			index /= left;
+			result[i] = remaining[choice];
+			remaining[choice] = remaining[left - 1];
+		}
+		return result;
+	}
+}
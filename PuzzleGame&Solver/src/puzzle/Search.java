@@ -0,0 +1,18 @@
+package puzzle;
+
+/**
+ * Algorithm that finds a sequence of moves solving a {@link State}.
+ * Implementations keep no state between calls to {@link #solve(State)}, so
+ * one instance can be shared by several threads.
+ */
+interface Search {
+
+	/**
+	 * Solves a puzzle starting at a given {@code State}.
+	 *
+	 * @param startingState starting state of solution
+	 * @return solution or null if unsolvable
+	 * @throws SearchAbortedException if the search gives up before finishing
+	 */
+	Solution solve(State startingState);
+}
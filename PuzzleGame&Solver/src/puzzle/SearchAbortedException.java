@@ -0,0 +1,19 @@
+package puzzle;
+
+/**
+ * Exception thrown when a search gives up before finishing, for example
+ * because it would exceed its memory limit.
+ */
+@SuppressWarnings("serial")
+public class SearchAbortedException extends RuntimeException {
+
+	/**
+	 * Constructor for an exception with a message explaining why the search
+	 * stopped.
+	 *
+	 * @param message reason for stopping
+	 */
+	public SearchAbortedException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,41 @@
+package puzzle;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event sent when a search ends.
+ */
+@Name("puzzle.SearchCompleted")
+@Label("Search Completed")
+@Category("Puzzle")
+@Description("Counts of a finished search")
+final class SearchCompletedEvent extends jdk.jfr.Event {
+
+	@Label("Search")
+	String search;
+
+	@Label("Solution Length")
+	@Description("Moves in the solution, -1 if none was found")
+	int length;
+
+	@Label("Expanded")
+	long expanded;
+
+	@Label("Generated")
+	long generated;
+
+	@Label("Duplicates")
+	long duplicates;
+
+	@Label("Peak Open")
+	long peakOpen;
+
+	@Label("Peak Closed")
+	long peakClosed;
+
+	@Label("Nodes per Second")
+	double nodesPerSecond;
+}
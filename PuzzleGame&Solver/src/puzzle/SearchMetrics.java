@@ -0,0 +1,113 @@
+package puzzle;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals of the {@link SearchStatistics} of every search that has finished
+ * in this JVM, for monitoring a long-running process.  Each search adds to
+ * the totals once, when it ends, with counters that threads can update
+ * without contending.
+ */
+public final class SearchMetrics {
+
+	private static final LongAdder SEARCHES = new LongAdder();
+	private static final LongAdder GENERATED = new LongAdder();
+	private static final LongAdder EXPANDED = new LongAdder();
+	private static final LongAdder DUPLICATES = new LongAdder();
+	private static final LongAdder NANOS = new LongAdder();
+	private static final LongAccumulator PEAK_OPEN = new LongAccumulator(Math::max, 0);
+	private static final LongAccumulator PEAK_CLOSED = new LongAccumulator(Math::max, 0);
+
+	private SearchMetrics() {
+	}
+
+	/**
+	 * Adds a finished search to the totals.
+	 *
+	 * @param statistics statistics of the search
+	 */
+	static void record(SearchStatistics statistics) {
+		SEARCHES.increment();
+		GENERATED.add(statistics.getGenerated());
+		EXPANDED.add(statistics.getExpanded());
+		DUPLICATES.add(statistics.getDuplicates());
+		NANOS.add(statistics.getElapsedNanos());
+		PEAK_OPEN.accumulate(statistics.getPeakOpen());
+		PEAK_CLOSED.accumulate(statistics.getPeakClosed());
+	}
+
+	/**
+	 * Accessor for the number of searches that have finished.
+	 *
+	 * @return number of searches
+	 */
+	public static long getSearches() {
+		return SEARCHES.sum();
+	}
+
+	/**
+	 * Accessor for the total number of states generated.
+	 *
+	 * @return number of generated states
+	 */
+	public static long getGenerated() {
+		return GENERATED.sum();
+	}
+
+	/**
+	 * Accessor for the total number of states expanded.
+	 *
+	 * @return number of expanded states
+	 */
+	public static long getExpanded() {
+		return EXPANDED.sum();
+	}
+
+	/**
+	 * Accessor for the total number of states pruned as duplicates.
+	 *
+	 * @return number of duplicates
+	 */
+	public static long getDuplicates() {
+		return DUPLICATES.sum();
+	}
+
+	/**
+	 * Accessor for the total time spent searching.  Searches running at the
+	 * same time each count their own time.
+	 *
+	 * @return time in nanoseconds
+	 */
+	public static long getSearchNanos() {
+		return NANOS.sum();
+	}
+
+	/**
+	 * Accessor for the rate at which states were expanded over all searches.
+	 *
+	 * @return expanded states per second of searching
+	 */
+	public static double getNodesPerSecond() {
+		long nanos = NANOS.sum();
+		return nanos == 0 ? 0 : EXPANDED.sum() * 1e9 / nanos;
+	}
+
+	/**
+	 * Accessor for the largest open list of any search.
+	 *
+	 * @return peak size of the open list
+	 */
+	public static long getPeakOpen() {
+		return PEAK_OPEN.get();
+	}
+
+	/**
+	 * Accessor for the largest closed list of any search.
+	 *
+	 * @return peak size of the closed list
+	 */
+	public static long getPeakClosed() {
+		return PEAK_CLOSED.get();
+	}
+}
@@ -0,0 +1,38 @@
+package puzzle;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event sent while a search runs, every
+ * {@value SearchStatistics#SAMPLE_INTERVAL} expanded states.
+ */
+@Name("puzzle.SearchProgress")
+@Label("Search Progress")
+@Category("Puzzle")
+@Description("Counts of a running search, sampled every few thousand expanded states")
+final class SearchProgressEvent extends jdk.jfr.Event {
+
+	@Label("Search")
+	String search;
+
+	@Label("Expanded")
+	long expanded;
+
+	@Label("Generated")
+	long generated;
+
+	@Label("Duplicates")
+	long duplicates;
+
+	@Label("Open")
+	long open;
+
+	@Label("Closed")
+	long closed;
+
+	@Label("Nodes per Second")
+	double nodesPerSecond;
+}
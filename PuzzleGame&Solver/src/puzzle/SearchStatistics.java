@@ -0,0 +1,313 @@
+package puzzle;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Counts of the work done by one search: states generated and expanded,
+ * duplicates pruned, the largest sizes of the open and closed lists, the
+ * time taken, and how many expanded states had each estimated cost.
+ * <p>
+ * A search records into its own instance with plain field updates, which
+ * cost about as much as the counter it already kept for nodes expanded.
+ * Every {@value #SAMPLE_INTERVAL} expansions, a {@link SearchProgressEvent}
+ * is sent to JDK Flight Recorder if it is recording, and once the search
+ * ends a {@link SearchCompletedEvent} is sent and the counts are added to
+ * the totals in {@link SearchMetrics}.
+ * <p>
+ * At the same points, the listener set on the searching thread with
+ * {@link #setListener(Consumer)} is given the statistics, and the search is
+ * stopped with a {@link SearchAbortedException} if the thread has been
+ * interrupted.  That lets a front-end show the progress of any search and
+ * cancel it without the searches knowing about either.
+ */
+public final class SearchStatistics {
+
+	/**
+	 * Number of expansions between progress events.
+	 */
+	static final int SAMPLE_INTERVAL = 1 << 16;
+
+	// Listener of the searches on each thread, if any
+	private static final ThreadLocal<Consumer<SearchStatistics>> LISTENER = new ThreadLocal<>();
+
+	private final String search;		// Name of the search
+	private final long start;			// System.nanoTime() when the search started
+	private long elapsed = -1;			// Nanoseconds taken, -1 while searching
+	private long generated;
+	private long expanded;
+	private long duplicates;
+	private long peakOpen;
+	private long peakClosed;
+	private int bound = -1;				// Fewest moves a solution can still take, -1 if unknown
+	private long[] estimates = new long[64];	// Expanded states with each estimated cost
+	private long nextSample = SAMPLE_INTERVAL;
+
+	/**
+	 * Constructor for the statistics of a search starting now.
+	 *
+	 * @param search name of the search
+	 */
+	SearchStatistics(String search) {
+		this.search = search;
+		start = System.nanoTime();
+	}
+
+	/**
+	 * Sets the listener given the statistics of every search on the current
+	 * thread every {@value #SAMPLE_INTERVAL} expansions.  The listener runs on
+	 * the searching thread, so it should only hand the values it needs on.
+	 *
+	 * @param listener listener, or null to remove it
+	 */
+	static void setListener(Consumer<SearchStatistics> listener) {
+		if (listener == null)
+			LISTENER.remove();
+		else
+			LISTENER.set(listener);
+	}
+
+	/**
+	 * Records that a state was generated.
+	 */
+	void generated() {
+		generated++;
+	}
+
+	/**
+	 * Records that a state was pruned for having been reached before in at
+	 * most as many moves.
+	 */
+	void duplicate() {
+		duplicates++;
+	}
+
+	/**
+	 * Records the fewest moves a solution can still take, such as the
+	 * threshold of an iteration of IDA*.
+	 *
+	 * @param bound lower bound on the number of moves
+	 */
+	void bound(int bound) {
+		this.bound = bound;
+	}
+
+	/**
+	 * Records that a state is being expanded.
+	 *
+	 * @param estimate estimated cost of the state
+	 * @param open     number of states waiting to be expanded, or the depth
+	 *                 of the current path for depth-first searches
+	 * @param closed   number of states held to detect duplicates
+	 * @throws SearchAbortedException if the thread has been interrupted or
+	 *                                the listener stops the search, which
+	 *                                is then recorded as ended without a
+	 *                                solution
+	 */
+	void expanded(int estimate, long open, long closed) {
+		if (estimate >= estimates.length)
+			estimates = Arrays.copyOf(estimates, Math.max(estimate + 1, estimates.length * 2));
+		estimates[estimate]++;
+		if (open > peakOpen)
+			peakOpen = open;
+		if (closed > peakClosed)
+			peakClosed = closed;
+		if (++expanded == nextSample) {
+			nextSample += SAMPLE_INTERVAL;
+			SearchProgressEvent event = new SearchProgressEvent();
+			if (event.isEnabled()) {
+				event.search = search;
+				event.expanded = expanded;
+				event.generated = generated;
+				event.duplicates = duplicates;
+				event.open = open;
+				event.closed = closed;
+				event.nodesPerSecond = getNodesPerSecond();
+				event.commit();
+			}
+			try {
+				Consumer<SearchStatistics> listener = LISTENER.get();
+				if (listener != null)
+					listener.accept(this);
+				if (Thread.currentThread().isInterrupted())
+					throw new SearchAbortedException("Interrupted");
+			} catch (SearchAbortedException e) {
+				// Cancelled and timed out searches are counted like any other
+				finish(-1);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Records sizes of the open and closed lists reached by the search,
+	 * raising the peaks to them if they are larger.
+	 *
+	 * @param open   number of states waiting to be expanded
+	 * @param closed number of states held to detect duplicates
+	 */
+	void sizes(long open, long closed) {
+		if (open > peakOpen)
+			peakOpen = open;
+		if (closed > peakClosed)
+			peakClosed = closed;
+	}
+
+	/**
+	 * Adds the counts of another search to these, as when several threads
+	 * search parts of the same puzzle.  The peak sizes are not added, as each
+	 * thread reaches its own at a different time; the peaks of the sizes
+	 * summed over the threads are given with {@link #sizes(long, long)}.
+	 *
+	 * @param other statistics of the other search
+	 */
+	void add(SearchStatistics other) {
+		generated += other.generated;
+		expanded += other.expanded;
+		duplicates += other.duplicates;
+		if (other.estimates.length > estimates.length)
+			estimates = Arrays.copyOf(estimates, other.estimates.length);
+		for (int i = 0; i < other.estimates.length; ++i)
+			estimates[i] += other.estimates[i];
+	}
+
+	/**
+	 * Records that the search ended, sending its completion event and adding
+	 * it to the totals.  Only the first call records anything, so a search
+	 * stopped at a progress report may call it again on its way out.
+	 *
+	 * @param length number of moves in the solution, or -1 if none was found
+	 * @return these statistics
+	 */
+	SearchStatistics finish(int length) {
+		if (elapsed >= 0)
+			return this;
+		elapsed = System.nanoTime() - start;
+		SearchCompletedEvent event = new SearchCompletedEvent();
+		if (event.isEnabled()) {
+			event.search = search;
+			event.length = length;
+			event.expanded = expanded;
+			event.generated = generated;
+			event.duplicates = duplicates;
+			event.peakOpen = peakOpen;
+			event.peakClosed = peakClosed;
+			event.nodesPerSecond = getNodesPerSecond();
+			event.commit();
+		}
+		SearchMetrics.record(this);
+		return this;
+	}
+
+	/**
+	 * Accessor for the name of the search.
+	 *
+	 * @return name of the search
+	 */
+	public String getSearch() {
+		return search;
+	}
+
+	/**
+	 * Accessor for the number of states generated.
+	 *
+	 * @return number of generated states
+	 */
+	public long getGenerated() {
+		return generated;
+	}
+
+	/**
+	 * Accessor for the number of states whose successors were generated.
+	 *
+	 * @return number of expanded states
+	 */
+	public long getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Accessor for the number of states pruned as duplicates.
+	 *
+	 * @return number of duplicates
+	 */
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * Accessor for the largest number of states waiting to be expanded at
+	 * once (the deepest path for depth-first searches).  For searches split
+	 * over threads, this is sampled from time to time, so it can miss a
+	 * brief peak.
+	 *
+	 * @return peak size of the open list
+	 */
+	public long getPeakOpen() {
+		return peakOpen;
+	}
+
+	/**
+	 * Accessor for the largest number of states held at once to detect
+	 * duplicates.
+	 *
+	 * @return peak size of the closed list
+	 */
+	public long getPeakClosed() {
+		return peakClosed;
+	}
+
+	/**
+	 * Accessor for the fewest moves a solution could take, as last known by
+	 * the search.
+	 *
+	 * @return lower bound on the number of moves, or -1 if the search does
+	 *         not keep one
+	 */
+	public int getBound() {
+		return bound;
+	}
+
+	/**
+	 * Accessor for the time the search took, or has taken so far.
+	 *
+	 * @return elapsed time in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsed >= 0 ? elapsed : System.nanoTime() - start;
+	}
+
+	/**
+	 * Accessor for the rate at which states were expanded.
+	 *
+	 * @return expanded states per second
+	 */
+	public double getNodesPerSecond() {
+		long nanos = getElapsedNanos();
+		return nanos == 0 ? 0 : expanded * 1e9 / nanos;
+	}
+
+	/**
+	 * Accessor for the distribution of the estimated costs of expanded
+	 * states.
+	 *
+	 * @return number of expanded states with each estimated cost, indexed
+	 *         by cost
+	 */
+	public long[] getEstimates() {
+		int length = estimates.length;
+		while (length > 0 && estimates[length - 1] == 0)
+			length--;
+		return Arrays.copyOf(estimates, length);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%s: %d expanded, %d generated, %d duplicates, peak open %d, peak closed %d, "
+				+ "%.3f s, %.0f nodes/s", search, expanded, generated, duplicates, peakOpen, peakClosed,
+				getElapsedNanos() / 1e9, getNodesPerSecond());
+	}
+}
@@ -0,0 +1,384 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test the {@link Search} implementations.
+ */
+class SearchTests {
+
+	/**
+	 * Solves the two hardest 8-puzzle positions with {@code IdaStarSearch} and
+	 * checks that the solutions are optimal.
+	 */
+	@Test
+	void idaStarOptimalTest() {
+		Search search = new IdaStarSearch();
+		// Both positions need 31 moves, the most of any 8-puzzle position
+		assertOptimal(search, state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+		assertOptimal(search, state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+	}
+
+	/**
+	 * Solves the two hardest 8-puzzle positions and scrambled 15-puzzles with
+	 * {@code IdaStarSearch} skipping duplicate move sequences, and checks
+	 * that the solutions stay optimal while fewer states are expanded.
+	 */
+	@Test
+	void idaStarAutomatonTest() {
+		MoveAutomaton automaton = new MoveAutomaton(8);
+		// Moving straight back is always a duplicate
+		int up = automaton.next(MoveAutomaton.START, Direction.UP.ordinal());
+		assertEquals(MoveAutomaton.PRUNED, automaton.next(up, Direction.DOWN.ordinal()), "Moved straight back!");
+		Search search = new IdaStarSearch(null, automaton);
+		assertOptimal(search, state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+		assertOptimal(search, state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+		Random random = new Random(20);
+		for (int i = 0; i < 5; ++i) {
+			State scrambled = scramble(4, 60, random);
+			Solution solution = new IdaStarSearch().solve(scrambled);
+			Solution pruned = search.solve(scrambled);
+			assertOptimal(search, scrambled, solution.length());
+			assertTrue(pruned.getNodesExpanded() <= solution.getNodesExpanded(), "Pruning expanded more states!");
+		}
+	}
+
+	/**
+	 * Solves the two hardest 8-puzzle positions and scrambled 15-puzzles with
+	 * {@code IdaStarSearch} keeping a transposition table, and checks that the
+	 * solutions stay optimal while fewer states are expanded, even with a
+	 * table too small for the search.
+	 */
+	@Test
+	void idaStarTableTest() {
+		for (TranspositionTable.Replacement replacement : TranspositionTable.Replacement.values()) {
+			Search search = new IdaStarSearch(null, new TranspositionTable(1 << 12, replacement));
+			assertOptimal(search, state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+			assertOptimal(search, state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+		}
+		Search search = new IdaStarSearch(null, new TranspositionTable(1 << 24, TranspositionTable.Replacement.TWO_TIER));
+		Random random = new Random(20);
+		for (int i = 0; i < 5; ++i) {
+			State scrambled = scramble(4, 60, random);
+			Solution solution = new IdaStarSearch().solve(scrambled);
+			Solution remembered = search.solve(scrambled);
+			assertSolves(scrambled, remembered);
+			assertEquals(solution.length(), remembered.length(), "Solution is not optimal!");
+			assertTrue(remembered.getNodesExpanded() <= solution.getNodesExpanded(), "Table expanded more states!");
+		}
+	}
+
+	/**
+	 * Solves randomly scrambled 15-puzzles with {@code IdaStarSearch} and checks
+	 * that the solutions are no longer than the scrambles.
+	 */
+	@Test
+	void idaStarScrambleTest() {
+		Search search = new IdaStarSearch();
+		Random random = new Random(15);
+		for (int i = 0; i < 5; ++i) {
+			State scrambled = scramble(4, 30, random);
+			Solution solution = search.solve(scrambled);
+			assertSolves(scrambled, solution);
+			assertTrue(solution.length() <= 30, "Solution is longer than the scramble!");
+		}
+	}
+
+	/**
+	 * Solves the two hardest 8-puzzle positions and scrambled 15-puzzles with
+	 * {@code AStarSearch} and checks that the solutions match the optimal ones
+	 * found by {@code IdaStarSearch}.
+	 */
+	@Test
+	void aStarOptimalTest() {
+		Search search = new AStarSearch();
+		assertOptimal(search, state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+		assertOptimal(search, state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+		Random random = new Random(16);
+		for (int i = 0; i < 5; ++i) {
+			State scrambled = scramble(4, 60, random);
+			assertOptimal(search, scrambled, new IdaStarSearch().solve(scrambled).length());
+		}
+	}
+
+	/**
+	 * Solves the two hardest 8-puzzle positions and scrambled 15-puzzles with
+	 * {@code ParallelAStarSearch} on several threads and checks that the
+	 * solutions are optimal.
+	 */
+	@Test
+	void parallelAStarOptimalTest() {
+		Search search = new ParallelAStarSearch(new LinearConflict(4), 4);
+		Random random = new Random(17);
+		for (int i = 0; i < 5; ++i) {
+			State scrambled = scramble(4, 60, random);
+			assertOptimal(search, scrambled, new IdaStarSearch().solve(scrambled).length());
+		}
+		search = new ParallelAStarSearch(null, 3);
+		assertOptimal(search, state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+		assertOptimal(search, state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+	}
+
+	/**
+	 * Solves the two hardest 8-puzzle positions and scrambled 15-puzzles with
+	 * {@code BidirectionalSearch} and checks that the joined solutions are
+	 * optimal.
+	 */
+	@Test
+	void bidirectionalOptimalTest() {
+		Search search = new BidirectionalSearch();
+		assertOptimal(search, state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+		assertOptimal(search, state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+		assertOptimal(search, state(1, 2, 3, 4, 5, 6, 7, 8, 0), 0);
+		Random random = new Random(18);
+		for (int i = 0; i < 5; ++i) {
+			State scrambled = scramble(4, 60, random);
+			assertOptimal(search, scrambled, new IdaStarSearch().solve(scrambled).length());
+		}
+	}
+
+	/**
+	 * Solves scrambled 15-puzzles with weighted {@code AStarSearch} and checks
+	 * that the solutions are within the weight of the optimal ones.
+	 */
+	@Test
+	void weightedAStarTest() {
+		Random random = new Random(21);
+		for (int i = 0; i < 5; ++i) {
+			State scrambled = scramble(4, 80, random);
+			int optimal = new IdaStarSearch().solve(scrambled).length();
+			for (double weight : new double[] { 1.5, 3 }) {
+				Solution solution = new AStarSearch(null, weight, Long.MAX_VALUE).solve(scrambled);
+				assertSolves(scrambled, solution);
+				assertTrue(solution.length() <= weight * optimal, "Solution is not within the weight!");
+			}
+		}
+		assertOptimal(new AStarSearch(null, 1, Long.MAX_VALUE), state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+	}
+
+	/**
+	 * Solves the two hardest 8-puzzle positions and scrambled 15-puzzles with
+	 * {@code MemoryBoundedSearch} in a few thousand nodes, and checks that the
+	 * solutions stay optimal, that the nodes held never exceed the budget and
+	 * that the search gives up when no solution fits.
+	 */
+	@Test
+	void memoryBoundedTest() {
+		long budget = 2000 * MemoryBoundedSearch.bytes(4);
+		Search search = new MemoryBoundedSearch(null, budget);
+		assertOptimal(search, state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+		assertOptimal(search, state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+		Random random = new Random(24);
+		for (int i = 0; i < 5; ++i) {
+			State scrambled = scramble(4, 60, random);
+			Solution solution = search.solve(scrambled);
+			assertSolves(scrambled, solution);
+			assertEquals(new IdaStarSearch().solve(scrambled).length(), solution.length(), "Solution is not optimal!");
+			assertTrue(solution.getStatistics().getPeakClosed() <= 2000, "Held more nodes than the budget!");
+		}
+		// A 31-move path needs 32 nodes
+		Search small = new MemoryBoundedSearch(null, 12 * MemoryBoundedSearch.bytes(3));
+		assertThrows(SearchAbortedException.class, () -> small.solve(state(8, 6, 7, 2, 5, 4, 3, 0, 1)));
+	}
+
+	/**
+	 * Solves the two hardest 8-puzzle positions and scrambled 15-puzzles with
+	 * {@code OffHeapAStarSearch}, in direct buffers and in a scratch file, and
+	 * checks that it expands the same states as {@code AStarSearch} and gives
+	 * up when its memory runs out.
+	 *
+	 * @throws IOException if the scratch file cannot be created
+	 */
+	@Test
+	void offHeapAStarTest() throws IOException {
+		Path directory = Files.createTempDirectory("astar");
+		try {
+			for (Path scratch : new Path[] { null, directory }) {
+				Search search = new OffHeapAStarSearch(null, 1 << 28, scratch);
+				assertOptimal(search, state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+				assertOptimal(search, state(6, 4, 7, 8, 5, 0, 3, 2, 1), 31);
+				Random random = new Random(25);
+				for (int i = 0; i < 3; ++i) {
+					State scrambled = scramble(4, 60, random);
+					Solution solution = new AStarSearch().solve(scrambled);
+					Solution offHeap = search.solve(scrambled);
+					assertSolves(scrambled, offHeap);
+					assertEquals(solution.length(), offHeap.length(), "Solution is not optimal!");
+					assertEquals(solution.getNodesExpanded(), offHeap.getNodesExpanded(), "Expanded other states!");
+				}
+			}
+		} finally {
+			Files.delete(directory);
+		}
+		Search small = new OffHeapAStarSearch(null, 1 << 20, null);
+		assertThrows(SearchAbortedException.class, () -> small.solve(scramble(4, 200, new Random(25))));
+	}
+
+	/**
+	 * Solves scrambled 15-puzzles with {@code AnytimeSearch} given time to
+	 * reach the optimal solutions, and a 6 x 6 puzzle given no time at all.
+	 */
+	@Test
+	void anytimeTest() {
+		Search search = new AnytimeSearch(Duration.ofMinutes(1));
+		assertOptimal(search, state(8, 6, 7, 2, 5, 4, 3, 0, 1), 31);
+		Random random = new Random(22);
+		for (int i = 0; i < 3; ++i) {
+			State scrambled = scramble(4, 80, random);
+			assertOptimal(search, scrambled, new IdaStarSearch().solve(scrambled).length());
+		}
+		// Without time to improve, the first solution is still found
+		State large = scramble(6, 400, random);
+		Solution first = new AnytimeSearch(Duration.ZERO).solve(large);
+		assertSolves(large, first);
+		Solution better = new AnytimeSearch(Duration.ofMillis(500)).solve(large);
+		assertSolves(large, better);
+		assertTrue(better.length() <= first.length(), "More time gave a longer solution!");
+	}
+
+	/**
+	 * Solves a randomly scrambled 15-puzzle with {@code GreedySearch}.
+	 */
+	@Test
+	void greedyTest() {
+		State scrambled = scramble(4, 200, new Random(8));
+		assertSolves(scrambled, new GreedySearch().solve(scrambled));
+	}
+
+	/**
+	 * Solves one of the hardest 8-puzzle positions with {@code AStarSearch}
+	 * and checks that its statistics add up and are included in the totals.
+	 */
+	@Test
+	void statisticsTest() {
+		long searches = SearchMetrics.getSearches();
+		long expanded = SearchMetrics.getExpanded();
+		SearchStatistics statistics = new AStarSearch().solve(state(8, 6, 7, 2, 5, 4, 3, 0, 1)).getStatistics();
+		assertTrue(statistics.getExpanded() > 0, "No states were expanded!");
+		assertTrue(statistics.getGenerated() >= statistics.getExpanded(), "Fewer states generated than expanded!");
+		assertTrue(statistics.getDuplicates() > 0, "No duplicates were pruned!");
+		assertTrue(statistics.getPeakClosed() > 0, "Closed list was never measured!");
+		long total = 0;
+		for (long count : statistics.getEstimates())
+			total += count;
+		assertEquals(statistics.getExpanded(), total, "Every expanded state should have an estimate!");
+		assertTrue(SearchMetrics.getSearches() > searches, "Search was not counted!");
+		assertTrue(SearchMetrics.getExpanded() >= expanded + statistics.getExpanded(), "Expansions were not counted!");
+	}
+
+	/**
+	 * Stops a search of a scrambled 15-puzzle at its first progress report
+	 * and checks that it is still included in the totals.
+	 */
+	@Test
+	void abortedStatisticsTest() {
+		long searches = SearchMetrics.getSearches();
+		SearchStatistics.setListener(statistics -> {
+			throw new SearchAbortedException("Cancelled");
+		});
+		try {
+			State scrambled = scramble(4, 200, new Random(25));
+			assertThrows(SearchAbortedException.class, () -> new IdaStarSearch().solve(scrambled));
+		} finally {
+			SearchStatistics.setListener(null);
+		}
+		assertTrue(SearchMetrics.getSearches() > searches, "Aborted search was not counted!");
+	}
+
+	/**
+	 * Solves one of the hardest 8-puzzle positions with
+	 * {@code ParallelAStarSearch} and checks that the peak sizes of its
+	 * lists, taken over all of its threads, are no more than the boards
+	 * there are.
+	 */
+	@Test
+	void parallelStatisticsTest() {
+		SearchStatistics statistics = new ParallelAStarSearch(null, 4).solve(state(8, 6, 7, 2, 5, 4, 3, 0, 1))
+				.getStatistics();
+		// Half of the 9! arrangements can be reached from any 8-puzzle
+		assertTrue(statistics.getPeakClosed() <= 181440, "Held more boards than can be reached!");
+		assertTrue(statistics.getPeakOpen() > 0, "Open lists were never sampled!");
+		assertTrue(statistics.getPeakOpen() <= statistics.getPeakClosed(), "More boards open than held!");
+	}
+
+	/**
+	 * Creates a {@code State} from tile numbers listed row by row, with 0 for
+	 * the blank tile.
+	 *
+	 * @param tiles tile numbers
+	 * @return state
+	 */
+	static State state(int... tiles) {
+		int size = (int) Math.round(Math.sqrt(tiles.length));
+		int[][] state = new int[size][size];
+		int blankRow = 0;
+		int blankColumn = 0;
+		for (int i = 0; i < tiles.length; ++i) {
+			if (tiles[i] == 0) {
+				blankRow = i / size;
+				blankColumn = i % size;
+			}
+			state[i / size][i % size] = tiles[i] == 0 ? size * size : tiles[i];
+		}
+		return new State(state, null, null, blankRow, blankColumn);
+	}
+
+	/**
+	 * Creates a {@code State} by making random moves from a solved puzzle.
+	 *
+	 * @param size   number of rows and columns
+	 * @param moves  number of random moves
+	 * @param random source of moves
+	 * @return scrambled state
+	 */
+	static State scramble(int size, int moves, Random random) {
+		int[][] solved = Board.unpack(Board.goal(size), size);
+		State state = new State(solved, null, null, size - 1, size - 1);
+		for (int i = 0; i < moves; ++i) {
+			Direction direction = Direction.values()[random.nextInt(4)];
+			if (state.canMove(direction))
+				state = state.move(direction);
+		}
+		// Start over from the scrambled board so it has no previous states
+		return new State(Board.unpack(state.getBoard(), size), null, null, state.getBlankRow(), state.getBlankColumn());
+	}
+
+	/**
+	 * Checks that a solution is found and that its moves solve a state.
+	 *
+	 * @param state    starting state
+	 * @param solution solution found for the state
+	 */
+	static void assertSolves(State state, Solution solution) {
+		assertNotNull(solution, "No solution was found!");
+		for (Direction move : solution.getMoves()) {
+			assertTrue(state.canMove(move), "Solution makes an illegal move!");
+			state = state.move(move);
+		}
+		assertTrue(state.isSolved(), "Solution does not solve the puzzle!");
+	}
+
+	/**
+	 * Checks that a search finds a solution of a given length for a state.
+	 *
+	 * @param search search to test
+	 * @param state  starting state
+	 * @param length length of an optimal solution
+	 */
+	static void assertOptimal(Search search, State state, int length) {
+		Solution solution = search.solve(state);
+		assertSolves(state, solution);
+		assertEquals(length, solution.length(), "Solution is not optimal!");
+	}
+}
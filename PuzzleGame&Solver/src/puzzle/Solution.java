@@ -0,0 +1,78 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class to hold the moves that solve a {@link Puzzle}, along with how much
+ * searching it took to find them.
+ */
+public final class Solution {
+	private final List<Direction> moves;	// Moves from the starting state to the solved state
+	private final SearchStatistics statistics;		// Work done by the search that found the moves
+
+	/**
+	 * Constructor for a solution with the given moves.
+	 *
+	 * @param moves      moves from the starting state to the solved state
+	 * @param statistics work done by the search that found the moves
+	 */
+	Solution(List<Direction> moves, SearchStatistics statistics) {
+		this.moves = Collections.unmodifiableList(new ArrayList<>(moves));
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Accessor for the moves that solve the puzzle.
+	 *
+	 * @return unmodifiable list of moves
+	 */
+	public List<Direction> getMoves() {
+		return moves;
+	}
+
+	/**
+	 * Accessor for the number of moves that solve the puzzle.
+	 *
+	 * @return number of moves
+	 */
+	public int length() {
+		return moves.size();
+	}
+
+	/**
+	 * Accessor for the number of states whose successors were generated
+	 * while searching.
+	 *
+	 * @return number of expanded states
+	 */
+	public long getNodesExpanded() {
+		return statistics.getExpanded();
+	}
+
+	/**
+	 * Accessor for the counts of the work done by the search that found the
+	 * moves.
+	 *
+	 * @return search statistics
+	 */
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder();
+		for (Direction move : moves) {
+			// Print a comma before all moves except the first
+			if (output.length() > 0)
+				output.append(", ");
+			output.append(move);
+		}
+		return output.toString();
+	}
+}
@@ -0,0 +1,438 @@
+package puzzle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP service on the loopback interface that solves puzzles for other
+ * processes.
+ * <p>
+ * {@code POST /solve} takes the tile numbers row by row, separated by
+ * commas with 0 for the blank tile, as the body (or {@code GET
+ * /solve?tiles=...}), and answers with one line: {@code SOLVED}, the
+ * number of moves and the moves as the letters U, D, L and R, or
+ * {@code UNSOLVABLE}.  Malformed puzzles and puzzles too large to solve
+ * optimally get status 400, status 503 is returned while the service is
+ * too busy to take another search, and status 504 when a search takes
+ * longer than its time limit.  {@code GET /stats} reports the counts kept
+ * by the service.
+ * <p>
+ * At most one search per thread runs at a time, with a bounded number of
+ * puzzles waiting for a thread; puzzles beyond that are turned away rather
+ * than queued without limit.  Each search is stopped once it runs past its
+ * time limit, and a bounded number of requests may hold a thread waiting
+ * for searches, so neither hard puzzles nor many requests can use up the
+ * threads answering from the cache.  Identical puzzles asked for while one is
+ * being solved wait for the same search.  Solutions are kept in a cache of
+ * the most recently used puzzles, so asking again takes microseconds.  A
+ * puzzle and its reflection in the main diagonal are solved by mirrored
+ * moves (see {@link Board#transpose(long[], int)}), so both are cached
+ * under whichever of the two packed boards is smaller.
+ */
+public final class SolveService implements AutoCloseable {
+
+	private static final int DEFAULT_PORT = 8080;
+	private static final int DEFAULT_QUEUE = 16;			// Puzzles waiting per thread
+	private static final int DEFAULT_CACHE = 100_000;		// Solutions kept
+	private static final int DEFAULT_MAX_SIZE = 4;			// Largest size IDA* solves in reasonable time
+	private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);	// Longest search
+	private static final int WAITERS_PER_SEARCH = 8;		// Requests that may wait for each search admitted
+	private static final int HIT_HANDLERS = 4;				// Threads beyond the waiters, for cached answers
+
+	/**
+	 * Puzzle as cached: its size and its smaller packed board.
+	 */
+	private static final class Key {
+		private final int size;
+		private final long[] board;
+		private final int hash;
+
+		private Key(int size, long[] board) {
+			this.size = size;
+			this.board = board;
+			hash = Board.hash(board) * 31 + size;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Key))
+				return false;
+			Key other = (Key) object;
+			return size == other.size && Arrays.equals(board, other.board);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private final Search search;
+	private final int maxSize;								// Largest size of puzzle searched
+	private final long timeout;								// Nanoseconds a search may take
+	private final ThreadPoolExecutor solvers;
+	private final int waiters;								// Most requests waiting for searches
+	private final Semaphore waiting;
+	private final Map<Key, List<Direction>> cache;			// Guarded by itself
+	private final Map<Key, CompletableFuture<List<Direction>>> solving = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private HttpServer server;
+	private ExecutorService handlers;
+
+	/**
+	 * Method that runs the service until the JVM is stopped.  The arguments
+	 * are any of "--port" followed by the port to listen on (8080 by
+	 * default), "--threads" followed by the number of searches to run at
+	 * once (one per core by default), "--queue" followed by the number of
+	 * puzzles that may wait for a thread (16 per thread by default),
+	 * "--cache" followed by the number of solutions to keep (100,000 by
+	 * default), "--max-size" followed by the largest number of rows of the
+	 * puzzles to solve (4 by default), and "--timeout" followed by the
+	 * seconds a search may take (30 by default).  Puzzles are solved
+	 * optimally with IDA* and linear conflicts.
+	 *
+	 * @param args command line arguments
+	 * @throws IOException if the port cannot be listened on
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int queue = -1;
+		int cache = DEFAULT_CACHE;
+		int maxSize = DEFAULT_MAX_SIZE;
+		Duration timeout = DEFAULT_TIMEOUT;
+		for (int i = 0; i < args.length; ++i) {
+			switch (args[i]) {
+			case "--port": port = Integer.parseInt(args[++i]); break;
+			case "--threads": threads = Integer.parseInt(args[++i]); break;
+			case "--queue": queue = Integer.parseInt(args[++i]); break;
+			case "--cache": cache = Integer.parseInt(args[++i]); break;
+			case "--max-size": maxSize = Integer.parseInt(args[++i]); break;
+			case "--timeout": timeout = Duration.ofMillis(Math.round(Double.parseDouble(args[++i]) * 1000)); break;
+			default: throw new IllegalArgumentException("Unknown argument " + args[i]);
+			}
+		}
+		SolveService service = new SolveService(InstanceSolver.searches("ida", "linear", Solver.memoryPerSearch(threads)), threads,
+				queue < 0 ? threads * DEFAULT_QUEUE : queue, cache, maxSize, timeout);
+		port = service.start(port);
+		System.err.println("Solving puzzles at http://localhost:" + port + "/solve");
+	}
+
+	/**
+	 * Constructor for a service that is not listening yet, solving puzzles
+	 * up to 4 x 4 in at most 30 seconds each.
+	 *
+	 * @param search  search used to solve each puzzle, which should be
+	 *                optimal
+	 * @param threads number of searches to run at once
+	 * @param queue   number of puzzles that may wait for a thread
+	 * @param cache   number of solutions to keep
+	 */
+	SolveService(Search search, int threads, int queue, int cache) {
+		this(search, threads, queue, cache, DEFAULT_MAX_SIZE, DEFAULT_TIMEOUT);
+	}
+
+	/**
+	 * Constructor for a service that is not listening yet.
+	 *
+	 * @param search  search used to solve each puzzle, which should be
+	 *                optimal
+	 * @param threads number of searches to run at once
+	 * @param queue   number of puzzles that may wait for a thread
+	 * @param cache   number of solutions to keep
+	 * @param maxSize largest number of rows of the puzzles to search
+	 * @param timeout longest time a search may take
+	 */
+	SolveService(Search search, int threads, int queue, int cache, int maxSize, Duration timeout) {
+		this.search = search;
+		this.maxSize = maxSize;
+		this.timeout = timeout.toNanos();
+		solvers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+				queue > 0 ? new ArrayBlockingQueue<>(queue) : new SynchronousQueue<>());
+		waiters = (threads + queue) * WAITERS_PER_SEARCH;
+		waiting = new Semaphore(waiters);
+		this.cache = new LinkedHashMap<Key, List<Direction>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, List<Direction>> eldest) {
+				return size() > cache;
+			}
+		};
+	}
+
+	/**
+	 * Starts listening on a port of the loopback interface.
+	 *
+	 * @param port port, or 0 for any free one
+	 * @return port listened on
+	 * @throws IOException if the port cannot be listened on
+	 */
+	int start(int port) throws IOException {
+		// The server writes headers and body separately, which Nagle's algorithm holds up for a delayed ACK
+		if (System.getProperty("sun.net.httpserver.nodelay") == null)
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/solve", this::solve);
+		server.createContext("/stats", this::stats);
+		// Requests waiting for a search hold a thread each, so a few more are kept for cached answers
+		handlers = Executors.newFixedThreadPool(waiters + HIT_HANDLERS);
+		server.setExecutor(handlers);
+		server.start();
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stops listening and abandons the searches running.
+	 */
+	@Override
+	public void close() {
+		if (server != null) {
+			server.stop(0);
+			handlers.shutdownNow();
+		}
+		solvers.shutdownNow();
+	}
+
+	/**
+	 * Finds the moves that solve a puzzle, from the cache, from a search
+	 * already running for it, or from a new search.
+	 *
+	 * @param numbers square array of tile numbers, 0 for the blank tile
+	 * @return moves, or null if the puzzle is unsolvable
+	 * @throws IllegalArgumentException if the numbers are not a square
+	 *                                  arrangement of 0 to size*size - 1,
+	 *                                  or the puzzle is too large to search
+	 * @throws RejectedExecutionException if too many puzzles are waiting
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws ExecutionException if the search failed, with a
+	 *                            {@link SearchAbortedException} if it ran
+	 *                            past its time limit
+	 * @throws TimeoutException if the search did not stop at its time limit
+	 */
+	List<Direction> solve(int[][] numbers) throws InterruptedException, ExecutionException, TimeoutException {
+		State state = State.of(numbers);
+		int size = state.getSize();
+		if (!state.isSolvable())
+			return null;
+		if (size > maxSize)
+			throw new IllegalArgumentException("Puzzles above " + maxSize + " x " + maxSize
+					+ " take too long to solve optimally");
+		long[] board = state.getBoard();
+		long[] transposed = Board.transpose(board, size);
+		boolean mirrored = Arrays.compareUnsigned(transposed, board) < 0;
+		Key key = new Key(size, mirrored ? transposed : board);
+
+		List<Direction> moves;
+		synchronized (cache) {
+			moves = cache.get(key);
+		}
+		if (moves != null)
+			hits.incrementAndGet();
+		else {
+			if (!waiting.tryAcquire()) {
+				rejected.incrementAndGet();
+				throw new RejectedExecutionException("Too many requests waiting");
+			}
+			try {
+				CompletableFuture<List<Direction>> created = new CompletableFuture<>();
+				CompletableFuture<List<Direction>> future = solving.putIfAbsent(key, created);
+				if (future != null)
+					coalesced.incrementAndGet();
+				else {
+					future = created;
+					misses.incrementAndGet();
+					solve(key, created);
+				}
+				// The search stops itself at its time limit, unless it never reports its progress
+				moves = future.get(timeout + TimeUnit.SECONDS.toNanos(1), TimeUnit.NANOSECONDS);
+			} finally {
+				waiting.release();
+			}
+		}
+		return mirrored ? mirror(moves) : moves;
+	}
+
+	/**
+	 * Starts the search for a puzzle missing from the cache, completing a
+	 * future once it is solved and cached.  The search is stopped with a
+	 * {@link SearchAbortedException} at its next progress report once it
+	 * has run past the time limit.
+	 *
+	 * @param key    puzzle to solve
+	 * @param future future to complete with the moves
+	 * @throws RejectedExecutionException if too many puzzles are waiting
+	 */
+	private void solve(Key key, CompletableFuture<List<Direction>> future) {
+		try {
+			solvers.execute(() -> {
+				try {
+					int[][] numbers = new int[key.size][key.size];
+					int blank = key.size * key.size - 1;
+					for (int position = 0; position <= blank; ++position) {
+						int tile = Board.get(key.board, key.size, position);
+						numbers[position / key.size][position % key.size] = tile == blank ? 0 : tile + 1;
+					}
+					SearchStatistics.setListener(statistics -> {
+						if (statistics.getElapsedNanos() > timeout)
+							throw new SearchAbortedException(String.format("Search took longer than %.1f s", timeout / 1e9));
+					});
+					Solution solution;
+					try {
+						solution = search.solve(State.of(numbers));
+					} finally {
+						SearchStatistics.setListener(null);
+					}
+					if (solution == null)
+						throw new IllegalStateException("No solution found for a solvable puzzle!");
+					List<Direction> moves = solution.getMoves();
+					synchronized (cache) {
+						cache.put(key, moves);
+					}
+					future.complete(moves);
+				} catch (RuntimeException | OutOfMemoryError e) {
+					future.completeExceptionally(e);
+				} finally {
+					solving.remove(key, future);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			solving.remove(key, future);
+			future.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Mirrors moves in the main diagonal, turning the solution of a
+	 * transposed puzzle into the solution of the original.
+	 *
+	 * @param moves moves to mirror
+	 * @return mirrored moves
+	 */
+	private static List<Direction> mirror(List<Direction> moves) {
+		List<Direction> mirrored = new ArrayList<>(moves.size());
+		for (Direction move : moves) {
+			switch (move) {
+			case UP: mirrored.add(Direction.LEFT); break;
+			case DOWN: mirrored.add(Direction.RIGHT); break;
+			case LEFT: mirrored.add(Direction.UP); break;
+			default: mirrored.add(Direction.DOWN); break;
+			}
+		}
+		return mirrored;
+	}
+
+	/**
+	 * Handles a request to solve a puzzle.
+	 *
+	 * @param exchange request and response
+	 * @throws IOException if the response cannot be sent
+	 */
+	private void solve(HttpExchange exchange) throws IOException {
+		long start = System.nanoTime();
+		int status = 200;
+		String body;
+		try {
+			String tiles;
+			String query = exchange.getRequestURI().getRawQuery();
+			if (query != null && query.startsWith("tiles="))
+				tiles = URLDecoder.decode(query.substring("tiles=".length()), StandardCharsets.UTF_8);
+			else
+				try (InputStream input = exchange.getRequestBody()) {
+					tiles = new String(input.readAllBytes(), StandardCharsets.US_ASCII);
+				}
+			List<Direction> moves = solve(Solver.parse(tiles.trim()));
+			if (moves == null)
+				body = "UNSOLVABLE";
+			else {
+				StringBuilder line = new StringBuilder("SOLVED ").append(moves.size()).append(' ');
+				for (Direction move : moves)
+					line.append(move.name().charAt(0));
+				body = line.toString();
+			}
+		} catch (IllegalArgumentException e) {
+			status = 400;
+			body = e.getMessage();
+		} catch (RejectedExecutionException e) {
+			status = 503;
+			body = "Too many puzzles waiting, try again later";
+			exchange.getResponseHeaders().set("Retry-After", "1");
+		} catch (ExecutionException e) {
+			status = e.getCause() instanceof SearchAbortedException ? 504 : 500;
+			body = e.getCause() instanceof SearchAbortedException ? e.getCause().getMessage() : e.getCause().toString();
+		} catch (TimeoutException e) {
+			status = 504;
+			body = "Search took too long";
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			status = 503;
+			body = "Shutting down";
+		}
+		exchange.getResponseHeaders().set("Server-Timing", String.format("solve;dur=%.3f", (System.nanoTime() - start) / 1e6));
+		send(exchange, status, body);
+	}
+
+	/**
+	 * Handles a request for the counts kept by the service.
+	 *
+	 * @param exchange request and response
+	 * @throws IOException if the response cannot be sent
+	 */
+	private void stats(HttpExchange exchange) throws IOException {
+		int cached;
+		synchronized (cache) {
+			cached = cache.size();
+		}
+		send(exchange, 200, String.format("hits %d%nmisses %d%ncoalesced %d%nrejected %d%ncached %d%nsolving %d",
+				hits.get(), misses.get(), coalesced.get(), rejected.get(), cached, solving.size()));
+	}
+
+	/**
+	 * Sends a plain text response.
+	 *
+	 * @param exchange request and response
+	 * @param status   HTTP status
+	 * @param body     text of the response, without the final line break
+	 * @throws IOException if the response cannot be sent
+	 */
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(bytes);
+		}
+	}
+}
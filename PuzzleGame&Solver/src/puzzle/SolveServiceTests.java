@@ -0,0 +1,250 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test {@link SolveService}.
+ */
+class SolveServiceTests {
+
+	/**
+	 * Solves 8-puzzles over HTTP and checks that the answers are optimal and
+	 * that asking again for a puzzle or its transpose is answered from the
+	 * cache.
+	 *
+	 * @throws Exception if a request fails
+	 */
+	@Test
+	void cacheTest() throws Exception {
+		AtomicInteger searches = new AtomicInteger();
+		Search ida = new IdaStarSearch(new LinearConflict(3));
+		Search search = state -> {
+			searches.incrementAndGet();
+			return ida.solve(state);
+		};
+		Random random = new Random(13);
+		try (SolveService service = new SolveService(search, 2, 4, 100)) {
+			int port = service.start(0);
+			HttpClient client = HttpClient.newHttpClient();
+			for (int i = 0; i < 10; ++i) {
+				int[][] numbers = PuzzleGenerator.uniform(3, random);
+				String answer = post(client, port, numbers);
+				int length = assertSolves(numbers, answer);
+				SearchTests.assertOptimal(new AStarSearch(), State.of(numbers), length);
+				assertEquals(answer, post(client, port, numbers), "Repeated puzzle got another answer!");
+				assertEquals(length, assertSolves(transpose(numbers), post(client, port, transpose(numbers))),
+						"Transposed puzzle needs as many moves!");
+			}
+			assertTrue(searches.get() <= 10, "Repeated and transposed puzzles were searched again!");
+
+			int[][] unsolvable = { { 2, 1, 3 }, { 4, 5, 6 }, { 7, 8, 0 } };
+			assertEquals("UNSOLVABLE", post(client, port, unsolvable), "Swapped tiles cannot be solved!");
+			HttpResponse<String> malformed = client.send(HttpRequest.newBuilder(uri(port)).POST(
+					HttpRequest.BodyPublishers.ofString("1,2,3")).build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals(400, malformed.statusCode(), "Malformed puzzle should be a bad request!");
+		}
+	}
+
+	/**
+	 * Asks for the same puzzle from several threads while its search is held
+	 * up, and checks that they all wait for a single search.
+	 *
+	 * @throws Exception if a request fails
+	 */
+	@Test
+	void coalesceTest() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger searches = new AtomicInteger();
+		Search ida = new IdaStarSearch();
+		Search search = state -> {
+			searches.incrementAndGet();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return ida.solve(state);
+		};
+		int[][] numbers = { { 8, 6, 7 }, { 2, 5, 4 }, { 3, 0, 1 } };
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		try (SolveService service = new SolveService(search, 2, 0, 100)) {
+			List<Future<List<Direction>>> answers = new ArrayList<>();
+			for (int i = 0; i < 8; ++i) {
+				int[][] asked = i % 2 == 0 ? numbers : transpose(numbers);
+				answers.add(callers.submit(() -> service.solve(asked)));
+			}
+			Thread.sleep(200);
+			release.countDown();
+			for (Future<List<Direction>> answer : answers)
+				assertEquals(31, answer.get().size(), "Puzzle needs 31 moves!");
+			assertEquals(1, searches.get(), "Identical puzzles should share one search!");
+		} finally {
+			callers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Fills the only search thread and checks that another puzzle is turned
+	 * away, over HTTP with status 503, rather than queued.
+	 *
+	 * @throws Exception if a request fails
+	 */
+	@Test
+	void admissionTest() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Search search = state -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return new IdaStarSearch().solve(state);
+		};
+		int[][] first = { { 1, 2, 3 }, { 4, 5, 6 }, { 7, 0, 8 } };
+		int[][] second = { { 1, 2, 3 }, { 4, 5, 6 }, { 0, 7, 8 } };
+		ExecutorService callers = Executors.newSingleThreadExecutor();
+		try (SolveService service = new SolveService(search, 1, 0, 100)) {
+			int port = service.start(0);
+			Future<List<Direction>> waiting = callers.submit(() -> service.solve(first));
+			Thread.sleep(200);
+			assertThrows(RejectedExecutionException.class, () -> service.solve(second), "Second search should be refused!");
+			HttpResponse<String> busy = HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri(port))
+					.POST(HttpRequest.BodyPublishers.ofString("1,2,3,4,5,6,0,7,8")).build(),
+					HttpResponse.BodyHandlers.ofString());
+			assertEquals(503, busy.statusCode(), "Busy service should answer 503!");
+			release.countDown();
+			assertEquals(1, waiting.get().size(), "First puzzle needs one move!");
+		} finally {
+			callers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Asks for a puzzle larger than the service searches and for one that
+	 * takes longer than the time limit, and checks that the first is refused
+	 * with status 400 and the second stopped with status 504, leaving the
+	 * only search thread free for the next puzzle.  One puzzle may wait, as
+	 * the thread can take a moment to be ready after the answer is sent.
+	 *
+	 * @throws Exception if a request fails
+	 */
+	@Test
+	void limitTest() throws Exception {
+		int[][] large = PuzzleGenerator.walk(5, 10, new Random(22));
+		int[][] hard = PuzzleGenerator.uniform(4, new Random(22));
+		int[][] easy = { { 1, 2, 3 }, { 4, 5, 6 }, { 7, 0, 8 } };
+		try (SolveService service = new SolveService(new IdaStarSearch(), 1, 1, 100, 4, Duration.ofMillis(100))) {
+			int port = service.start(0);
+			assertThrows(IllegalArgumentException.class, () -> service.solve(large), "5 x 5 puzzle should be refused!");
+			HttpClient client = HttpClient.newHttpClient();
+			assertEquals(400, send(client, port, large).statusCode(), "Large puzzle should be a bad request!");
+
+			ExecutionException stopped = assertThrows(ExecutionException.class, () -> service.solve(hard),
+					"Hard puzzle should run out of time!");
+			assertTrue(stopped.getCause() instanceof SearchAbortedException, "Search should have been stopped!");
+			assertEquals(504, send(client, port, hard).statusCode(), "Search out of time should time out!");
+			assertEquals(1, assertSolves(easy, post(client, port, easy)), "Easy puzzle takes one move!");
+		}
+	}
+
+	private static URI uri(int port) {
+		return URI.create("http://localhost:" + port + "/solve");
+	}
+
+	/**
+	 * Asks the service for the moves that solve a puzzle.
+	 *
+	 * @param client HTTP client
+	 * @param port   port of the service
+	 * @param numbers tile numbers, 0 for the blank tile
+	 * @return answer, without the line break
+	 * @throws IOException if the request fails
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private static String post(HttpClient client, int port, int[][] numbers) throws IOException, InterruptedException {
+		HttpResponse<String> response = send(client, port, numbers);
+		assertEquals(200, response.statusCode(), response.body());
+		return response.body().trim();
+	}
+
+	/**
+	 * Sends a puzzle to the service.
+	 *
+	 * @param client  HTTP client
+	 * @param port    port of the service
+	 * @param numbers tile numbers, 0 for the blank tile
+	 * @return response
+	 * @throws IOException if the request fails
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private static HttpResponse<String> send(HttpClient client, int port, int[][] numbers)
+			throws IOException, InterruptedException {
+		StringBuilder tiles = new StringBuilder();
+		for (int[] row : numbers)
+			for (int number : row)
+				tiles.append(tiles.length() > 0 ? "," : "").append(number);
+		return client.send(HttpRequest.newBuilder(uri(port)).POST(HttpRequest.BodyPublishers.ofString(tiles.toString()))
+				.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	/**
+	 * Checks that the moves of an answer solve a puzzle.
+	 *
+	 * @param numbers tile numbers, 0 for the blank tile
+	 * @param answer  answer of the service
+	 * @return number of moves
+	 */
+	private static int assertSolves(int[][] numbers, String answer) {
+		String[] fields = answer.split(" ");
+		assertEquals("SOLVED", fields[0], "Puzzle should be solved!");
+		String moves = fields.length > 2 ? fields[2] : "";
+		State state = State.of(numbers);
+		for (char move : moves.toCharArray())
+			for (Direction direction : Direction.values())
+				if (direction.name().charAt(0) == move)
+					state = state.move(direction);
+		assertTrue(state.isSolved(), "Moves do not solve the puzzle!");
+		assertEquals(Integer.parseInt(fields[1]), moves.length(), "Length does not match the moves!");
+		return moves.length();
+	}
+
+	/**
+	 * Reflects a puzzle in its main diagonal, renumbering the tiles so the
+	 * solved puzzle stays solved.
+	 *
+	 * @param numbers tile numbers, 0 for the blank tile
+	 * @return reflected tile numbers
+	 */
+	private static int[][] transpose(int[][] numbers) {
+		int size = numbers.length;
+		int[][] transposed = new int[size][size];
+		for (int row = 0; row < size; ++row)
+			for (int column = 0; column < size; ++column) {
+				int number = numbers[row][column];
+				int goal = number - 1;
+				transposed[column][row] = number == 0 ? 0 : goal % size * size + goal / size + 1;
+			}
+		return transposed;
+	}
+}
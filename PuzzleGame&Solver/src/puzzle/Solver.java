@@ -1,165 +1,242 @@
 package puzzle;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.HashSet;
-import java.util.PriorityQueue;
-import java.util.Set;
-
-import puzzle.Puzzle.Direction;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Random;
 
 /**
- * Class to solve an instance of a {@link Puzzle}.
+ * Class to solve an instance of a puzzle with n^2 - 1 numbered tiles and an
+ * empty tile, given as tile numbers.  It does not depend on the Swing
+ * {@link Puzzle} window, so it starts quickly and runs on a headless JVM;
+ * the window is only a front-end that uses it (see {@link Puzzle#solve()}).
  */
 public class Solver {
 
+	private final Search search;
+
 	/**
-	 * Method that creates a new {@code Solver}.
-	 * 
-	 * @param args ignored
+	 * Method that solves a puzzle and prints the moves.
+	 * If the first command line argument is "astar", "ida", "parallel" or
+	 * "bidirectional", the puzzle is solved optimally with A*,
+	 * iterative-deepening A*, parallel A* or bidirectional search;
+	 * "astar:m" gives up on A* once it holds m megabytes of states (half of
+	 * the heap if left out), "ida:m" keeps what iterative-deepening A*
+	 * learns in a {@link TranspositionTable} of m megabytes, and "memory:m"
+	 * solves it with memory-bounded A* holding at most m megabytes of states
+	 * (half of the heap if left out).  "offheap:m" solves it with A* holding its
+	 * states in m megabytes of direct buffers instead of the heap (1024 if
+	 * left out), and "mapped:m" in a scratch file of up to m megabytes in
+	 * the temporary directory.  For large puzzles, "weighted:w" solves it
+	 * with weighted A*, in at most w times the fewest moves (2 if w is left
+	 * out), and "anytime:s" with anytime search, improving on its first
+	 * solution for s seconds (1 if left out).  "table" looks up the optimal
+	 * moves in the {@link DistanceTable} for the puzzle size in the directory named by
+	 * the second argument, falling back to iterative-deepening A* if there
+	 * is none.  Otherwise, it is solved with greedy best-first search.
+	 * For every other search but greedy, a second argument can name the
+	 * heuristic to use instead of Manhattan distance (see
+	 * {@link Heuristic#forName(String, int)}); bidirectional search only
+	 * uses it forwards.
+	 * A third argument can give the tile numbers row by row, separated by
+	 * commas with 0 for the blank tile; otherwise, a random 4 x 4 puzzle is
+	 * solved.
+	 *
+	 * @param args command line arguments for search mode, heuristic and tiles
+	 * @throws IOException if the pattern databases or distance table cannot
+	 *                     be read
 	 */
-	public static void main(String[] args) {
-		new Solver();
+	public static void main(String[] args) throws IOException {
+		int[][] numbers = args.length > 2 ? parse(args[2]) : PuzzleGenerator.uniform(4, new Random());
+		Solver solver = forMode(args.length > 0 ? args[0] : "greedy", args.length > 1 ? args[1] : null, numbers.length);
+
+		Solution solution = solver.solve(numbers);
+		if (solution != null) {
+			System.out.println("Solvable in " + solution.length() + " moves:");
+			System.out.println(solution);
+			System.out.println(solution.getStatistics());
+		} else
+			System.out.println("Unsolvable!");
 	}
 
 	/**
-	 * Default constructor for {@code Solver} tries to solve a new 4 x 4
-	 * {@code Puzzle}.
+	 * Default constructor for {@code Solver} that solves puzzles with greedy
+	 * best-first search.
 	 */
 	public Solver() {
-		this(new Puzzle(4));
+		this(new GreedySearch());
 	}
 
 	/**
-	 * Constructor for {@code Solver} that tries to solve the given {@code Puzzle}.
-	 * 
-	 * @param puzzle puzzle to solve
+	 * Creates a {@code Solver} that solves puzzles with the search named by a
+	 * mode, as given on the command line of {@link #main(String[])}.
+	 *
+	 * @param mode      search mode, such as "ida" or "weighted:3",
+	 *                  optionally followed by a colon and its parameter
+	 * @param heuristic name of the heuristic (see
+	 *                  {@link Heuristic#forName(String, int)}), or the
+	 *                  directory of distance tables for "table"; null for
+	 *                  the default
+	 * @param size      number of rows and columns of the puzzles to solve
+	 * @return solver
+	 * @throws IOException if the pattern databases or distance table cannot
+	 *                     be read
 	 */
-	public Solver(Puzzle puzzle) {
-		// Map buttons to starting state
-		int[][] state = initializeState(puzzle.getButtons());
-		// Find row and column of blank tile
-		int size = state.length;
-		int blankRow = 0;
-		int blankColumn = 0;
-		for (int i = 0; i < size; ++i)
-			for (int j = 0; j < size; ++j)
-				if (state[i][j] == size * size) {
-					blankRow = i;
-					blankColumn = j;
-				}
-
-		// Construct starting state
-		State startingState = new State(state, null, null, blankRow, blankColumn);
-
-		// Find final solved state
-		State finalState = solve(startingState);
-
-		if (finalState != null) {
+	public static Solver forMode(String mode, String heuristic, int size) throws IOException {
+		return new Solver(search(mode, heuristic, size));
+	}
 
-			// Backtrack from final state to beginning,
-			// adding the move needed for each state to a deque of moves
-			Deque<Puzzle.Direction> moves = new ArrayDeque<>();
-			State currentState = finalState;
-			while (currentState.getPrevious() != null) {
-				moves.addFirst(currentState.getMove());
-				currentState = currentState.getPrevious();
-			}
+	/**
+	 * Constructor for {@code Solver} that solves puzzles with the given
+	 * search.
+	 *
+	 * @param search search used to find the moves
+	 */
+	Solver(Search search) {
+		this.search = search;
+	}
 
-			System.out.println("Solvable in " + moves.size() + " moves:");
+	/**
+	 * Creates the search named by a mode, as given on the command line of
+	 * {@link #main(String[])}, for solving one puzzle at a time.
+	 *
+	 * @param mode      search mode, optionally followed by a colon and its
+	 *                  parameter
+	 * @param heuristic name of the heuristic, or the directory of distance
+	 *                  tables for "table"; null for the default
+	 * @param size      number of rows and columns of the puzzles to solve
+	 * @return search
+	 * @throws IOException if the pattern databases or distance table cannot
+	 *                     be read
+	 */
+	static Search search(String mode, String heuristic, int size) throws IOException {
+		return search(mode, heuristic, size, memoryPerSearch(1));
+	}
 
-			// Print out the moves needed to solve the puzzle
-			// and perform the moves on the GUI at the same time
-			boolean first = true;
-			for (Puzzle.Direction move : moves) {
-				puzzle.move(move);
+	/**
+	 * Creates the search named by a mode, as given on the command line of
+	 * {@link #main(String[])}, with a memory limit for the modes that keep
+	 * one and are not given their own.
+	 *
+	 * @param mode      search mode, optionally followed by a colon and its
+	 *                  parameter
+	 * @param heuristic name of the heuristic, or the directory of distance
+	 *                  tables for "table"; null for the default
+	 * @param size      number of rows and columns of the puzzles to solve
+	 * @param memory    approximate number of bytes each solve of "astar",
+	 *                  "memory", "weighted" and "anytime" may use
+	 * @return search
+	 * @throws IOException if the pattern databases or distance table cannot
+	 *                     be read
+	 */
+	static Search search(String mode, String heuristic, int size, long memory) throws IOException {
+		String[] parts = mode.toLowerCase().split(":", 2);
+		double parameter = parts.length > 1 ? Double.parseDouble(parts[1]) : Double.NaN;
+		if (parts[0].equals("table")) {
+			Path file = Paths.get(heuristic != null ? heuristic : ".").resolve(DistanceTable.fileName(size, size));
+			return Files.exists(file) ? DistanceTable.load(file) : new IdaStarSearch(null, MoveAutomaton.standard());
+		}
+		Heuristic estimate = heuristic != null ? Heuristic.forName(heuristic, size) : null;
+		switch (parts[0]) {
+		case "astar":
+			return new AStarSearch(estimate, Double.isNaN(parameter) ? memory : Math.round(parameter * (1 << 20)));
+		case "ida":
+			if (Double.isNaN(parameter))
+				return new IdaStarSearch(estimate, MoveAutomaton.standard());
+			return new IdaStarSearch(estimate, new TranspositionTable(Math.round(parameter * (1 << 20)),
+					TranspositionTable.Replacement.TWO_TIER));
+		case "parallel": return new ParallelAStarSearch(estimate, Runtime.getRuntime().availableProcessors());
+		case "bidirectional": return new BidirectionalSearch(estimate);
+		case "offheap":
+		case "mapped":
+			long limit = Math.round((Double.isNaN(parameter) ? 1024 : parameter) * (1 << 20));
+			Path scratch = parts[0].equals("mapped") ? Paths.get(System.getProperty("java.io.tmpdir")) : null;
+			return new OffHeapAStarSearch(estimate, limit, scratch);
+		case "memory":
+			long bytes = Double.isNaN(parameter) ? memory : Math.round(parameter * (1 << 20));
+			return new MemoryBoundedSearch(estimate, bytes);
+		case "weighted":
+			return new AStarSearch(estimate, Double.isNaN(parameter) ? 2 : parameter, memory);
+		case "anytime":
+			long millis = Double.isNaN(parameter) ? 1000 : Math.round(parameter * 1000);
+			return anytime(estimate, size, Duration.ofMillis(millis), memory);
+		default: return new GreedySearch();
+		}
+	}
 
-				// Print a comma before all moves except the first
-				if (first) {
-					first = false;
-					System.out.print(move);
-				} else
-					System.out.print(", " + move);
+	/**
+	 * Shares half of the heap between searches running at the same time,
+	 * leaving the rest for everything else.
+	 *
+	 * @param threads number of searches running at once
+	 * @return number of bytes each search may use
+	 */
+	static long memoryPerSearch(int threads) {
+		return Runtime.getRuntime().maxMemory() / 2 / Math.max(threads, 1);
+	}
 
-				// Sleep for 0.1 seconds (100 milliseconds) between each move,
-				// allowing the user to see the puzzle solved in real time
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e) {
-				}
-			}
+	/**
+	 * Creates an anytime search suited to the size of the puzzles it solves.
+	 * Puzzles above 6 x 6 need a heavier first pass to find any solution
+	 * before memory runs out, and the search stops improving its solution
+	 * once it holds half of the heap.
+	 *
+	 * @param heuristic heuristic to use, or null for Manhattan distance
+	 * @param size      number of rows and columns of the puzzles
+	 * @param budget    time to keep improving the solution
+	 * @return anytime search
+	 */
+	static Search anytime(Heuristic heuristic, int size, Duration budget) {
+		return anytime(heuristic, size, budget, memoryPerSearch(1));
+	}
 
-			System.out.println();
-		} else
-			System.out.println("Unsolvable!");
+	/**
+	 * Creates an anytime search suited to the size of the puzzles it solves,
+	 * which stops improving its solution once it holds a given amount of
+	 * memory.
+	 *
+	 * @param heuristic heuristic to use, or null for Manhattan distance
+	 * @param size      number of rows and columns of the puzzles
+	 * @param budget    time to keep improving the solution
+	 * @param memory    approximate number of bytes the search may use
+	 * @return anytime search
+	 */
+	static Search anytime(Heuristic heuristic, int size, Duration budget, long memory) {
+		double weight = size > 6 ? 10 : 3;
+		return new AnytimeSearch(heuristic, weight, 0.5, budget, memory);
 	}
 
 	/**
-	 * Solves a puzzle starting at a given {@code State}.
-	 * 
-	 * @param startingState starting state of solution
-	 * @return final state or null if unsolvable
+	 * Finds the moves that solve a puzzle.
+	 *
+	 * @param numbers square array of tile numbers, 0 for the blank tile
+	 * @return solution, or null if the puzzle is unsolvable
+	 * @throws IllegalArgumentException if the numbers are not a square
+	 * arrangement of 0 to size*size - 1
 	 */
-	private static State solve(State startingState) {
-		//Creating queue and adding the startingState to it
-		PriorityQueue<State> priorityQueue = new PriorityQueue<>();
-		priorityQueue.add(startingState);
-		//Creating HashSet
-		Set<State> set = new HashSet<>();
-		//While queue is not empty it decides if the state isSolved or canMove
-		//If the state canMove then it moves in that direction
-		while (!priorityQueue.isEmpty()) {
-			State state = priorityQueue.remove();
-			if (!set.contains(state)) {
-				set.add(state);
-				if (state.isSolved()) {
-					return state;
-				}
-				if (state.canMove(Direction.LEFT)) {
-					priorityQueue.add(state.move(Direction.LEFT));
-				}
-				if (state.canMove(Direction.RIGHT)) {
-					priorityQueue.add(state.move(Direction.RIGHT));
-				}
-				if (state.canMove(Direction.UP)) {
-					priorityQueue.add(state.move(Direction.UP));
-				}
-				if (state.canMove(Direction.DOWN)) {
-					priorityQueue.add(state.move(Direction.DOWN));
-				}
-			}
-		}
-		//No solution was found
-		return null;
+	public Solution solve(int[][] numbers) {
+		State startingState = State.of(numbers);
+		// Search for the moves, unless the parity of the tiles shows there are none
+		return startingState.isSolvable() ? search.solve(startingState) : null;
 	}
 
 	/**
-	 * Creates an array of state information based on buttons from a {@code Puzzle}.
-	 * The 2D array of state information is created with the same size as the
-	 * buttons array. Each {@code int} value in the array has is assigned the same
-	 * value as the number from its corresponding button, except for the blank
-	 * button, whose number is 0 but is assigned the dimension of the puzzle squared
-	 * (giving it the appropriate position at the last tile in the puzzle when
-	 * solved).
-	 * 
-	 * @param buttons 2D array of buttons corresponding to the current puzzle
-	 * @return 2D array of {@code int} values numbered like the buttons
+	 * Reads tile numbers listed row by row and separated by commas.
+	 *
+	 * @param tiles tile numbers, 0 for the blank tile
+	 * @return square array of tile numbers
+	 * @throws IllegalArgumentException if the number of tiles is not a square
 	 */
-	private static int[][] initializeState(NumberButton[][] buttons) {
-		//Creating 2d array named state
-		int[][] state = new int[buttons.length][buttons[0].length];
-		//Loops through the state array
-		for (int i = 0; i < buttons.length; ++i) {
-			for (int j = 0; j < buttons[0].length; ++j) {
-				//If the value on the buttons is 0 then assign the width squared to the state
-				//Otherwise assign the value on the button to the state
-				if (buttons[i][j].getNumber() == 0) {
-					state[i][j] = buttons.length * buttons[0].length;
-				} else {
-					state[i][j] = buttons[i][j].getNumber();
-				}
-			}
-		}
-		return state;
+	static int[][] parse(String tiles) {
+		String[] values = tiles.split(",");
+		int size = (int) Math.round(Math.sqrt(values.length));
+		if (size * size != values.length)
+			throw new IllegalArgumentException("Number of tiles must be a square!");
+		int[][] numbers = new int[size][size];
+		for (int i = 0; i < values.length; ++i)
+			numbers[i / size][i % size] = Integer.parseInt(values[i].trim());
+		return numbers;
 	}
-}
\ No newline at end of file
+}
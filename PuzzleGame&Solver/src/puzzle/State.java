@@ -1,43 +1,115 @@
 package puzzle;
 
+import java.util.Arrays;
+
 /**
  * The {@code State} class holds a representation of one of the (many)
  * states a {@link Puzzle} can be in.
+ * <p>
+ * A state only knows the move that led to it, not the state it came from,
+ * so the states a search has finished with can be garbage collected.
+ * Searches recover their paths from the arrival moves kept in their
+ * {@link ClosedSet} instead (see {@link ClosedSet#path(long[])}).
  */
 public class State implements Comparable<State> {
-	private final int[][] state; 			// Array holding tile numbers (blank has value dimension*dimension) 
+	private final long[] state; 			// Packed tiles (see Board), blank has value dimension*dimension - 1
+	private final int size;					// Number of rows and columns
 	private final int cost;					// Estimate of cost to solve
-	private final Puzzle.Direction move; 	// Move that led to this state 
-	private final State previous;			// Previous state
+	private final Direction move; 	// Move that led to this state 
+	private final int depth;				// Number of moves from the starting state
 	private final int blankRow;				// Row of blank tile
 	private final int blankColumn;			// Column of blank tile
 	
 	
+	/**
+	 * Creates a starting state from tile numbers laid out as on the buttons of
+	 * a {@link Puzzle}, with 0 for the blank tile.
+	 * @param numbers square array of tile numbers
+	 * @return starting state
+	 * @throws IllegalArgumentException if the numbers are not a square
+	 * arrangement of 0 to size*size - 1
+	 */
+	public static State of(int[][] numbers) {
+		int size = numbers.length;
+		int[][] state = new int[size][];
+		int blankRow = -1;
+		int blankColumn = -1;
+		boolean[] seen = new boolean[size * size];
+		for (int i = 0; i < size; ++i) {
+			state[i] = numbers[i].clone();
+			for (int j = 0; j < state[i].length; ++j) {
+				int number = state[i][j];
+				if (number < 0 || number >= size * size || seen[number])
+					throw new IllegalArgumentException("Tiles must be numbered 0 to " + (size * size - 1) + " once each!");
+				seen[number] = true;
+				//The blank tile is numbered size*size in a State
+				if (number == 0) {
+					state[i][j] = size * size;
+					blankRow = i;
+					blankColumn = j;
+				}
+			}
+		}
+		return new State(state, null, null, blankRow, blankColumn);
+	}
+	
 	/**
 	 * Constructor sets member variables and calculates cost.
 	 * @param state state of tiles
 	 * @param move move that led to this state
-	 * @param previous previous state
+	 * @param previous previous state, only used to count the moves made, or
+	 * null for a starting state
 	 * @param blankRow row of blank tile
 	 * @param blankColumn column of blank tile
 	 */
 	//Constructor setting all the member variables to the input variables
-	public State(int[][] state, Puzzle.Direction move, State previous, int blankRow, int blankColumn) {
+	public State(int[][] state, Direction move, State previous, int blankRow, int blankColumn) {
+		this(Board.pack(state), state.length, cost(state), move, previous == null ? 0 : previous.depth + 1,
+				blankRow, blankColumn);
+	}
+	
+	/**
+	 * Constructor for a starting state with a packed board that calculates
+	 * cost with the given heuristic.
+	 * @param state packed tiles (see {@link Board})
+	 * @param size number of rows and columns
+	 * @param heuristic heuristic used to estimate the cost
+	 * @param blankRow row of blank tile
+	 * @param blankColumn column of blank tile
+	 */
+	State(long[] state, int size, Heuristic heuristic, int blankRow, int blankColumn) {
+		this(state, size, heuristic.estimate(state), null, 0, blankRow, blankColumn);
+	}
+	
+	/**
+	 * Constructor for a packed board with an already known cost.
+	 * @param state packed tiles (see {@link Board})
+	 * @param size number of rows and columns
+	 * @param cost estimate of cost to solve
+	 * @param move move that led to this state
+	 * @param depth number of moves from the starting state
+	 * @param blankRow row of blank tile
+	 * @param blankColumn column of blank tile
+	 */
+	private State(long[] state, int size, int cost, Direction move, int depth, int blankRow, int blankColumn) {
 		this.state = state;
+		this.size = size;
+		this.cost = cost;
 		this.move = move;
-		this.previous = previous;
+		this.depth = depth;
 		this.blankRow = blankRow;
 		this.blankColumn = blankColumn;
-		cost = cost(state);
 	}
 	
 	/**
-	 * Accessor for previous state
-	 * @return previous state
+	 * Approximate heap memory held by a state of a given size, counting its
+	 * packed tiles and one reference to it.
+	 * @param size number of rows and columns
+	 * @return number of bytes
 	 */
-	//Accessor used to get the previous state
-	public State getPrevious() {
-		return previous;
+	static long bytes(int size) {
+		// Object header and fields, array header and words, and a reference
+		return 40 + 16 + 8L * Board.words(size) + 8;
 	}
 	
 	/**
@@ -45,22 +117,71 @@ public class State implements Comparable<State> {
 	 * @return move
 	 */
 	//Accessor used to get the next state
-	public Puzzle.Direction getMove() {
+	public Direction getMove() {
 		return move;
 	}
 	
+	/**
+	 * Accessor for number of moves made from the starting state
+	 * @return number of moves
+	 */
+	public int getDepth() {
+		return depth;
+	}
+	
+	/**
+	 * Accessor for estimate of cost to solve
+	 * @return estimated cost in moves
+	 */
+	int getCost() {
+		return cost;
+	}
+	
+	/**
+	 * Accessor for row of blank tile
+	 * @return row of blank tile
+	 */
+	public int getBlankRow() {
+		return blankRow;
+	}
+	
+	/**
+	 * Accessor for column of blank tile
+	 * @return column of blank tile
+	 */
+	public int getBlankColumn() {
+		return blankColumn;
+	}
+	
+	/**
+	 * Accessor for the packed tiles of this state (see {@link Board}).
+	 * The array is shared and must not be modified.
+	 * @return packed tiles
+	 */
+	long[] getBoard() {
+		return state;
+	}
+	
+	/**
+	 * Accessor for number of rows and columns
+	 * @return size of puzzle
+	 */
+	public int getSize() {
+		return size;
+	}
+	
 	/**
 	 * Method that checks to see if moving in a direction is allowed
 	 * (within bounds of puzzle).
 	 * @param direction of move
 	 * @return true if the move is allowed, false otherwise
 	 */
-	public boolean canMove(Puzzle.Direction direction) {
+	public boolean canMove(Direction direction) {
 		//As long as the RowChange + the blankRow are less than the length of the state and greater to or equal to 0
 		//And the ColumnChange + the blankColumn are less or equal to the states length and greater to or equal to 0
 		//then it is legal to move
-        if((direction.getRowChange() + blankRow) < state.length && (direction.getRowChange() + blankRow) >= 0 && 
-                (direction.getColumnChange() + blankColumn) < state[0].length && (direction.getColumnChange() + blankColumn >= 0)) {
+        if((direction.getRowChange() + blankRow) < size && (direction.getRowChange() + blankRow) >= 0 && 
+                (direction.getColumnChange() + blankColumn) < size && (direction.getColumnChange() + blankColumn >= 0)) {
             return true;
         }
         //It is not legal to move
@@ -68,30 +189,50 @@ public class State implements Comparable<State> {
         	return false;
         }
     }
+
+	/**
+	 * Checks whether a move would undo the move that led to this state, which
+	 * only leads back to the previous state and so can be skipped.
+	 * @param direction direction of move
+	 * @return true if the move goes back, false otherwise
+	 */
+	boolean isReverse(Direction direction) {
+		return move != null && direction == move.inverse();
+	}
     
     /**
      * Creates a new state from current state based on moving in the given
-     * direction.
+     * direction.  The cost is estimated with Manhattan distance.
      * @param direction of move
      * @return new state
      */
-    public State move(Puzzle.Direction direction) { 
-    	//Creating a 2d array called newState
-        int[][] newState = new int[state.length][state[0].length];
-        //Looping over the state to copy its values into newState
-        for(int i = 0; i < state.length; ++i) {
-            for(int j = 0; j < state[0].length; ++j) {
-                newState[i][j]= state[i][j];
-            }
-        }
+    public State move(Direction direction) { 
+        return move(direction, ManhattanDistance.forSize(size));
+    }
+    
+    /**
+     * Creates a new state from current state based on moving in the given
+     * direction, updating the cost of this state with the given heuristic
+     * instead of estimating it from scratch.  This state's cost must have
+     * been estimated with the same heuristic.
+     * @param direction of move
+     * @param heuristic heuristic used to estimate the cost
+     * @return new state
+     */
+    State move(Direction direction, Heuristic heuristic) { 
+    	//Copying the packed words, which is a single long for boards up to 4 x 4
+        long[] newState = state.clone();
         //Getting the Row and Column that the blank tile will move to
         int newBlankRow = blankRow + direction.getRowChange();
         int newBlankColumn = blankColumn + direction.getColumnChange();
-        //Use a 3 line swap to the location of where the blank tile is to where the blank tile will be
-        int temp = newState[blankRow][blankColumn];
-        newState[blankRow][blankColumn] = newState[newBlankRow][newBlankColumn];
-        newState[newBlankRow][newBlankColumn] = temp;
-        return new State(newState, direction, this, newBlankRow, newBlankColumn);      
+        //Swap the tile where the blank tile is with the tile where the blank tile will be
+        int blank = blankRow * size + blankColumn;
+        int newBlank = newBlankRow * size + newBlankColumn;
+        int tile = Board.get(state, size, newBlank);
+        Board.swap(newState, size, blank, newBlank);
+        //Only the tile that moved changes the cost
+        int newCost = heuristic.update(newState, cost, tile, newBlank, blank);
+        return new State(newState, size, newCost, direction, depth + 1, newBlankRow, newBlankColumn);      
     }
 
 	/**
@@ -145,15 +286,19 @@ public class State implements Comparable<State> {
      * @return true if the puzzle is solved, false otherwise
      */
     public boolean isSolved() {
-    	//Loops through the state to see if it's solved
-    	for(int i = 0; i < state.length; ++i) {
-    		for(int j = 0; j < state[0].length; ++j) {
-    			if((i * state.length + j + 1) != state[i][j]) {
-    				return false;
-    			}
-    		}	
-    	}
-    	return true;
+    	//Tiles are packed by goal position, so the solved board is unique
+    	return Board.isGoal(state, size);
+    }
+
+    /**
+     * Checks whether the state can be solved at all, without searching.
+     * Exactly half of all arrangements of the tiles are solvable, depending
+     * on the parity of the arrangement and of the blank tile's position
+     * (see {@link Board#isSolvable(long[], int)}).
+     * @return true if the puzzle is solvable, false otherwise
+     */
+    public boolean isSolvable() {
+    	return Board.isSolvable(state, size);
     }
 
     /* (non-Javadoc)
@@ -175,38 +320,28 @@ public class State implements Comparable<State> {
             return false;
         
         State other = (State) object;
-        if( other.state.length != state.length )
-            return false;            
-        
-        int size = state.length;
-        for( int i = 0; i < size; i++ )
-            for( int j = 0; j < size; j++ )
-                if( state[i][j] != other.state[i][j] )
-                    return false;
-        
-        return true;                
+        return other.size == size && Arrays.equals(state, other.state);
     }
     
     /* (non-Javadoc)
      * @see java.lang.Object#toString()
-     * Needed to make hashCode() work.
      */
     @Override
     public String toString() {
         StringBuilder output = new StringBuilder();
-        for( int i = 0; i < state.length; i++ )
-            for( int j = 0; j < state[i].length; j++ )
-                output.append(state[i][j] + ",");
+        for( int i = 0; i < size * size; i++ )
+            output.append(Board.get(state, size, i) + 1).append(',');
         
         return output.toString();
     }
     
     /* (non-Javadoc)
      * @see java.lang.Object#hashCode()
-     * Needed to make HashSet work.
+     * Needed to make HashSet work.  Mixes the packed words directly
+     * rather than hashing a String.
      */
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return Board.hash(state);
     }
 }
\ No newline at end of file
@@ -4,11 +4,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-import puzzle.Puzzle.Direction;
-
 /**
  * Class holding JUnit 5 test cases to test {@link State} functionality.
  */
@@ -85,4 +85,60 @@ class StateTests {
         //checks the state that is solved that should return false
         assertFalse(notSolved.isSolved(), "This state is solved");
     }
+    
+    /**
+     * Moves a {@code State} and checks that the tiles are swapped and the
+     * original is left unchanged.
+     */
+    @Test
+    void moveTest() {
+        // Creates a solved 3 x 3 state with the blank tile at [2],[2]
+        int[][] state = {{1,2,3},{4,5,6},{7,8,9}};
+        State solved = new State(state,null,null,2,2);
+        // Moving the 6 tile down puts the blank tile at [1],[2]
+        State moved = solved.move(Direction.DOWN);
+        assertEquals("1,2,3,4,5,9,7,8,6,", moved.toString(), "Tiles were not swapped!");
+        assertEquals("1,2,3,4,5,6,7,8,9,", solved.toString(), "Original state was changed!");
+        // Moving back gives a state equal to the original
+        assertEquals(solved, moved.move(Direction.UP), "Moving back should give the same state!");
+        assertEquals(solved.hashCode(), moved.move(Direction.UP).hashCode(), "Equal states should hash the same!");
+    }
+    
+    /**
+     * Constructs 5 x 5 {@code State} objects, which need more than one packed
+     * word, and checks equality and solved status.
+     */
+    @Test
+    void largeStateTest() {
+        // Creates a solved 5 x 5 array
+        int[][] state = new int[5][5];
+        for (int i = 0; i < 5; i++)
+            for (int j = 0; j < 5; j++)
+                state[i][j] = i * 5 + j + 1;
+        State solved = new State(state,null,null,4,4);
+        assertTrue(solved.isSolved(), "This state is not solved");
+        // Moving the blank tile left then back gives the solved state
+        State moved = solved.move(Direction.RIGHT);
+        assertFalse(moved.isSolved(), "This state is solved");
+        assertEquals(solved, moved.move(Direction.LEFT), "Moving back should give the same state!");
+    }
+    
+    /**
+     * Makes random moves from a solved 4 x 4 {@code State} and checks that the
+     * cost updated on each move matches the cost calculated from scratch.
+     */
+    @Test
+    void incrementalCostTest() {
+        int[][] state = {{1,2,3,4},{5,6,7,8},{9,10,11,12},{13,14,15,16}};
+        State current = new State(state,null,null,3,3);
+        Random random = new Random(4);
+        for (int i = 0; i < 1000; i++) {
+            Direction direction = Direction.values()[random.nextInt(4)];
+            if (current.canMove(direction)) {
+                current = current.move(direction);
+                // The updated cost must match a full recalculation
+                assertEquals(State.cost(Board.unpack(current.getBoard(), 4)), current.getCost(), "The updated cost is incorrect!");
+            }
+        }
+    }
 }
@@ -0,0 +1,304 @@
+package puzzle;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-size table of what depth-first searches have learned about the
+ * boards they searched: a lower bound on the moves left from each board, and
+ * the moves made and the bound of the iteration it was searched in (see
+ * {@link IdaStarSearch#IdaStarSearch(Heuristic, TranspositionTable)}).
+ * <p>
+ * The table never grows.  It is allocated once, off the heap, and split into
+ * buckets of {@value #WAYS} entries that each fill exactly one 64-byte cache
+ * line, so a lookup touches a single line.  When a bucket is full, the entry
+ * replaced is chosen by the {@link Replacement} policy.
+ * <p>
+ * Threads share a table without locks.  An entry is two words, the data and
+ * the key XORed with the data, written without any ordering between them.
+ * A reader only accepts an entry if XORing the words gives back its key, so
+ * one torn by a concurrent write is taken as missing rather than as the data
+ * of another board.
+ * <p>
+ * Boards of up to 4 x 4 are their own key, so entries always belong to the
+ * board looked up.  Larger boards are keyed by a 64-bit hash, and two of them
+ * sharing one is possible but unlikely enough to ignore.
+ */
+final class TranspositionTable {
+
+	/**
+	 * Choice of the entry to replace when a bucket is full.
+	 */
+	enum Replacement {
+		/**
+		 * Replace the entry searched with the least depth left to the bound,
+		 * keeping the entries that saved the most work, unless the new one
+		 * was searched with less.  Entries of earlier iterations are replaced
+		 * first.
+		 */
+		DEPTH_PREFERRED,
+		/**
+		 * Always replace an entry chosen by the key, so the table holds the
+		 * most recent boards.
+		 */
+		ALWAYS,
+		/**
+		 * Keep half of each bucket depth-preferred and the other half
+		 * always-replace.  A board searched too shallowly for the first half
+		 * goes to the second, as does an entry pushed out of the first.
+		 */
+		TWO_TIER
+	}
+
+	static final int WAYS = 4;						// Entries per bucket
+	private static final int LINE = 64;				// Bytes per bucket
+	private static final int ENTRY = LINE / WAYS;	// Bytes per entry, the check word then the data
+	private static final long MAXIMUM_BYTES = 1L << 30;
+	private static final int MAXIMUM = 0xFF;		// Largest bound, moves and depth stored
+	private static final long PRESENT = 1L << 63;	// Set in the data of every entry
+
+	private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	private final ByteBuffer entries;
+	private final int mask;						// Buckets - 1, a power of two
+	private final Replacement replacement;
+	private final AtomicInteger iterations = new AtomicInteger();
+
+	/**
+	 * Constructor for an empty table using at most the given memory.
+	 *
+	 * @param bytes       largest size of the table, rounded down to a power
+	 *                    of two buckets
+	 * @param replacement policy choosing which entries to replace
+	 * @throws IllegalArgumentException if the size is less than one bucket
+	 *                                  or more than 1 GB
+	 */
+	TranspositionTable(long bytes, Replacement replacement) {
+		if (bytes < LINE || bytes > MAXIMUM_BYTES)
+			throw new IllegalArgumentException("Table size " + bytes + " is out of range!");
+		int buckets = Integer.highestOneBit((int) (bytes / LINE));
+		mask = buckets - 1;
+		this.replacement = replacement;
+		// Allocate a line more so the buckets can start on a line boundary
+		entries = ByteBuffer.allocateDirect(buckets * LINE + LINE).alignedSlice(LINE).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Accessor for the memory held by the entries.
+	 *
+	 * @return size of the table in bytes
+	 */
+	long getBytes() {
+		return (mask + 1L) * LINE;
+	}
+
+	/**
+	 * Accessor for the policy choosing which entries to replace.
+	 *
+	 * @return replacement policy
+	 */
+	Replacement getReplacement() {
+		return replacement;
+	}
+
+	/**
+	 * Starts an iteration, so the entries it stores can be told apart from
+	 * those of every other iteration of any search sharing the table.
+	 *
+	 * @return number of the iteration
+	 */
+	int iteration() {
+		return iterations.incrementAndGet();
+	}
+
+	/**
+	 * Key of a packed board.
+	 *
+	 * @param board packed board
+	 * @return the board itself for one word, a hash of the words otherwise,
+	 *         never 0
+	 */
+	static long key(long[] board) {
+		if (board.length == 1)
+			return board[0];
+		long key = 0;
+		for (long word : board)
+			key = Board.mix(key ^ word);
+		return key == 0 ? 1 : key;
+	}
+
+	/**
+	 * Looks up the entry of a board.
+	 *
+	 * @param key key of the board (see {@link #key(long[])})
+	 * @return data of the entry, to read with {@link #lowerBound(long)},
+	 *         {@link #moves(long)} and {@link #iteration(long)}, or 0 if
+	 *         there is none
+	 */
+	long get(long key) {
+		int bucket = bucket(key);
+		for (int way = 0; way < WAYS; ++way) {
+			int at = bucket + way * ENTRY;
+			long data = (long) WORDS.getOpaque(entries, at + 8);
+			if (((long) WORDS.getOpaque(entries, at) ^ data) == key && data != 0)
+				return data;
+		}
+		return 0;
+	}
+
+	/**
+	 * Stores what was learned by searching a board, replacing its entry if
+	 * it has one and otherwise an entry chosen by the replacement policy.
+	 * Nothing is stored if the board was reached in more moves than the
+	 * table holds.
+	 *
+	 * @param key        key of the board (see {@link #key(long[])})
+	 * @param lowerBound fewest moves the board could be solved in
+	 * @param moves      moves made to reach the board
+	 * @param depth      moves the board was searched to, the bound of the
+	 *                   iteration less the moves made
+	 * @param iteration  number of the iteration (see {@link #iteration()})
+	 */
+	void put(long key, int lowerBound, int moves, int depth, int iteration) {
+		if (moves > MAXIMUM)
+			return;
+		long data = PRESENT | (iteration & 0xFFFFFFFFL) << 24 | (long) Math.min(depth, MAXIMUM) << 16 | moves << 8
+				| Math.min(lowerBound, MAXIMUM);
+		int bucket = bucket(key);
+		int way = 0;
+		while (way < WAYS && entryKey(bucket, way) != key)
+			way++;
+		if (way < WAYS) {
+			write(bucket, way, key, data);
+			return;
+		}
+
+		int priority = priority(data, iteration);
+		int always = (int) (Board.mix(key) >>> 63);		// Either of two ways, chosen by the key
+		switch (replacement) {
+		case ALWAYS:
+			write(bucket, (int) (Board.mix(key) >>> 62), key, data);
+			break;
+		case DEPTH_PREFERRED:
+			way = shallowest(bucket, 0, WAYS, iteration);
+			if (priority >= priority(data(bucket, way), iteration))
+				write(bucket, way, key, data);
+			break;
+		case TWO_TIER:
+			way = shallowest(bucket, 0, WAYS / 2, iteration);
+			long replaced = data(bucket, way);
+			if (priority >= priority(replaced, iteration)) {
+				// Move the entry pushed out to the always-replace half
+				if (replaced != 0)
+					write(bucket, WAYS / 2 + always, entryKey(bucket, way), replaced);
+				write(bucket, way, key, data);
+			} else
+				write(bucket, WAYS / 2 + always, key, data);
+			break;
+		}
+	}
+
+	/**
+	 * Fewest moves the board of an entry could be solved in.
+	 *
+	 * @param data data of the entry
+	 * @return lower bound on the moves left
+	 */
+	static int lowerBound(long data) {
+		return (int) data & MAXIMUM;
+	}
+
+	/**
+	 * Moves made to reach the board of an entry when it was searched.
+	 *
+	 * @param data data of the entry
+	 * @return number of moves
+	 */
+	static int moves(long data) {
+		return (int) (data >>> 8) & MAXIMUM;
+	}
+
+	/**
+	 * Moves the board of an entry was searched to.
+	 *
+	 * @param data data of the entry
+	 * @return depth searched, at most 255
+	 */
+	static int depth(long data) {
+		return (int) (data >>> 16) & MAXIMUM;
+	}
+
+	/**
+	 * Iteration the board of an entry was searched in.
+	 *
+	 * @param data data of the entry
+	 * @return number of the iteration
+	 */
+	static int iteration(long data) {
+		return (int) (data >>> 24);
+	}
+
+	/**
+	 * Offset of the bucket a key belongs in.
+	 *
+	 * @param key key of a board
+	 * @return offset in bytes
+	 */
+	private int bucket(long key) {
+		return ((int) Board.mix(key) & mask) * LINE;
+	}
+
+	/**
+	 * Finds the entry of a range of ways least worth keeping.
+	 *
+	 * @param bucket    offset of the bucket
+	 * @param from      first way
+	 * @param to        way after the last
+	 * @param iteration number of the current iteration
+	 * @return way of the entry
+	 */
+	private int shallowest(int bucket, int from, int to, int iteration) {
+		int shallowest = from;
+		int lowest = Integer.MAX_VALUE;
+		for (int way = from; way < to; ++way) {
+			int priority = priority(data(bucket, way), iteration);
+			if (priority < lowest) {
+				shallowest = way;
+				lowest = priority;
+			}
+		}
+		return shallowest;
+	}
+
+	/**
+	 * Worth of keeping an entry: its depth, raised above every entry of an
+	 * earlier iteration if it belongs to the current one.
+	 *
+	 * @param data      data of the entry, 0 for an empty one
+	 * @param iteration number of the current iteration
+	 * @return priority, -1 for an empty entry
+	 */
+	private static int priority(long data, int iteration) {
+		if (data == 0)
+			return -1;
+		return depth(data) + (iteration(data) == iteration ? MAXIMUM + 1 : 0);
+	}
+
+	private long data(int bucket, int way) {
+		return (long) WORDS.getOpaque(entries, bucket + way * ENTRY + 8);
+	}
+
+	private long entryKey(int bucket, int way) {
+		int at = bucket + way * ENTRY;
+		return (long) WORDS.getOpaque(entries, at) ^ (long) WORDS.getOpaque(entries, at + 8);
+	}
+
+	private void write(int bucket, int way, long key, long data) {
+		int at = bucket + way * ENTRY;
+		WORDS.setOpaque(entries, at, key ^ data);
+		WORDS.setOpaque(entries, at + 8, data);
+	}
+}
@@ -0,0 +1,127 @@
+package puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class holding JUnit 5 test cases to test {@link TranspositionTable}
+ * functionality.
+ */
+class TranspositionTableTests {
+
+	private static final int BUCKET = 64;	// Bytes of a table with a single bucket
+
+	/**
+	 * Stores entries in a {@code TranspositionTable} and checks that they are
+	 * read back and that updating a board replaces its entry.
+	 */
+	@Test
+	void putTest() {
+		TranspositionTable table = new TranspositionTable(1 << 16, TranspositionTable.Replacement.DEPTH_PREFERRED);
+		assertEquals(1 << 16, table.getBytes(), "Table has the wrong size!");
+		long key = TranspositionTable.key(Board.goal(4));
+		int iteration = table.iteration();
+		assertEquals(0, table.get(key), "Empty table has an entry!");
+		table.put(key, 40, 12, 30, iteration);
+		long entry = table.get(key);
+		assertEquals(40, TranspositionTable.lowerBound(entry), "Stored bound is incorrect!");
+		assertEquals(12, TranspositionTable.moves(entry), "Stored moves are incorrect!");
+		assertEquals(30, TranspositionTable.depth(entry), "Stored depth is incorrect!");
+		assertEquals(iteration, TranspositionTable.iteration(entry), "Stored iteration is incorrect!");
+		// The same board again replaces the entry, even searched less deeply
+		table.put(key, 42, 14, 28, table.iteration());
+		assertEquals(14, TranspositionTable.moves(table.get(key)), "Entry was not replaced!");
+		assertEquals(0, table.get(TranspositionTable.key(Board.goal(5))), "Table has a board never stored!");
+	}
+
+	/**
+	 * Fills the single bucket of a table with each replacement policy and
+	 * checks which entries are kept.
+	 */
+	@Test
+	void replacementTest() {
+		TranspositionTable table = new TranspositionTable(BUCKET, TranspositionTable.Replacement.DEPTH_PREFERRED);
+		int iteration = table.iteration();
+		for (int key = 1; key <= 4; ++key)
+			table.put(key, 0, 0, 10 + key, iteration);
+		// A shallower board is dropped, a deeper one replaces the shallowest
+		table.put(5, 0, 0, 5, iteration);
+		assertEquals(0, table.get(5), "Shallower board replaced a deeper one!");
+		table.put(6, 0, 0, 20, iteration);
+		assertNotEquals(0, table.get(6), "Deeper board was dropped!");
+		assertEquals(0, table.get(1), "Shallowest board was kept!");
+		// Any board of a later iteration replaces those of earlier ones
+		table.put(7, 0, 0, 1, table.iteration());
+		assertNotEquals(0, table.get(7), "Board of a new iteration was dropped!");
+
+		table = new TranspositionTable(BUCKET, TranspositionTable.Replacement.ALWAYS);
+		iteration = table.iteration();
+		for (int key = 1; key <= 8; ++key) {
+			table.put(key, 0, 0, 20 - key, iteration);
+			assertNotEquals(0, table.get(key), "Board was not stored!");
+		}
+
+		table = new TranspositionTable(BUCKET, TranspositionTable.Replacement.TWO_TIER);
+		iteration = table.iteration();
+		table.put(1, 0, 0, 30, iteration);
+		table.put(2, 0, 0, 20, iteration);
+		for (int key = 3; key <= 8; ++key) {
+			table.put(key, 0, 0, key, iteration);
+			assertNotEquals(0, table.get(key), "Shallow board was not stored!");
+		}
+		assertNotEquals(0, table.get(1), "Deepest board was replaced!");
+		assertNotEquals(0, table.get(2), "Deep board was replaced!");
+		// A deeper board pushes the shallower deep one to the other half
+		table.put(9, 0, 0, 25, iteration);
+		assertNotEquals(0, table.get(9), "Deeper board was not stored!");
+		assertNotEquals(0, table.get(2), "Pushed out board was dropped!");
+	}
+
+	/**
+	 * Has several threads store and look up boards in a small shared table at
+	 * once, and checks that every entry read belongs to the board looked up.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	@Test
+	void concurrentTest() throws InterruptedException {
+		TranspositionTable table = new TranspositionTable(1 << 10, TranspositionTable.Replacement.ALWAYS);
+		int iteration = table.iteration();
+		AtomicInteger found = new AtomicInteger();
+		AtomicInteger wrong = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; ++i) {
+			long seed = i;
+			Thread thread = new Thread(() -> {
+				Random random = new Random(seed);
+				for (int j = 0; j < 200_000; ++j) {
+					// Each key's entry is determined by the key, so a torn one would not match
+					long key = random.nextInt(1000) + 1;
+					table.put(key, (int) (key % 200), (int) (key % 100), (int) (key % 50), iteration);
+					long lookup = random.nextInt(1000) + 1;
+					long entry = table.get(lookup);
+					if (entry == 0)
+						continue;
+					found.incrementAndGet();
+					if (TranspositionTable.lowerBound(entry) != lookup % 200 || TranspositionTable.moves(entry) != lookup % 100
+							|| TranspositionTable.depth(entry) != lookup % 50)
+						wrong.incrementAndGet();
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		assertTrue(found.get() > 0, "No boards were found!");
+		assertEquals(0, wrong.get(), "Entries of other boards were returned!");
+	}
+}
@@ -0,0 +1,163 @@
+package puzzle;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Walking distance heuristic.  Ignoring columns, a board is summarized by how
+ * many tiles in each row belong in each goal row, and the vertical distance
+ * is the fewest moves of the blank tile up or down (swapping with any tile
+ * of the row it enters) that sort every tile into its goal row.  The
+ * horizontal distance is the same for columns, and the estimate is their sum.
+ * This accounts for tiles blocking each other, so it is usually higher than
+ * Manhattan distance.
+ * <p>
+ * The distances of every summary are found once by breadth-first search.
+ * Rows and columns share one table since the goal is symmetric.  A vertical
+ * move only changes the row summary and a horizontal one only the column
+ * summary, so an update looks up just one of them.  Summaries are packed in a
+ * {@code long}, which limits this heuristic to boards up to 4 x 4.
+ */
+final class WalkingDistance implements Heuristic {
+
+	// Shared instances, indexed by size
+	private static final WalkingDistance[] INSTANCES = new WalkingDistance[5];
+
+	private final int size;
+	private final long[] keys;			// Sorted packed summaries
+	private final byte[] distances;		// Distance of each summary in keys
+
+	/**
+	 * Accessor for the shared instance for a board size.
+	 *
+	 * @param size number of rows and columns, at most 4
+	 * @return walking distance heuristic for that size
+	 * @throws IllegalArgumentException if the size is over 4
+	 */
+	static WalkingDistance forSize(int size) {
+		if (size < 1 || size >= INSTANCES.length)
+			throw new IllegalArgumentException("Walking distance only supports sizes up to 4!");
+		synchronized (INSTANCES) {
+			if (INSTANCES[size] == null)
+				INSTANCES[size] = new WalkingDistance(size);
+			return INSTANCES[size];
+		}
+	}
+
+	/**
+	 * Constructor that builds the distance table by breadth-first search from
+	 * the solved summary.
+	 *
+	 * @param size number of rows and columns
+	 */
+	private WalkingDistance(int size) {
+		this.size = size;
+		int[][] counts = new int[size][size];
+		for (int row = 0; row < size; ++row)
+			counts[row][row] = row == size - 1 ? size - 1 : size;
+		long goal = pack(counts, size - 1);
+
+		Map<Long, Integer> found = new HashMap<>();
+		ArrayDeque<Long> queue = new ArrayDeque<>();
+		found.put(goal, 0);
+		queue.add(goal);
+		while (!queue.isEmpty()) {
+			long summary = queue.remove();
+			int distance = found.get(summary);
+			int blankRow = unpack(summary, counts);
+			// The blank tile swaps with a tile of any goal row in the row above or below
+			for (int row = blankRow - 1; row <= blankRow + 1; row += 2) {
+				if (row < 0 || row >= size)
+					continue;
+				for (int goalRow = 0; goalRow < size; ++goalRow) {
+					if (counts[row][goalRow] == 0)
+						continue;
+					counts[row][goalRow]--;
+					counts[blankRow][goalRow]++;
+					long next = pack(counts, row);
+					counts[row][goalRow]++;
+					counts[blankRow][goalRow]--;
+					if (!found.containsKey(next)) {
+						found.put(next, distance + 1);
+						queue.add(next);
+					}
+				}
+			}
+		}
+
+		keys = new long[found.size()];
+		int index = 0;
+		for (long key : found.keySet())
+			keys[index++] = key;
+		Arrays.sort(keys);
+		distances = new byte[keys.length];
+		for (int i = 0; i < keys.length; ++i)
+			distances[i] = (byte) (int) found.get(keys[i]);
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public int estimate(long[] board) {
+		return lookup(summary(board, false, -1, -1)) + lookup(summary(board, true, -1, -1));
+	}
+
+	@Override
+	public int update(long[] board, int estimate, int tile, int from, int to) {
+		// Moving within a column changes which rows tiles are in, and vice versa
+		boolean columns = from / size == to / size;
+		// Reading the board with the two positions swapped gives the board before the move
+		return estimate - lookup(summary(board, columns, from, to)) + lookup(summary(board, columns, -1, -1));
+	}
+
+	/**
+	 * Packs the summary of a board's rows or columns: 3 bits for the count of
+	 * tiles in each line belonging to each goal line, then the line of the
+	 * blank tile.
+	 *
+	 * @param board   packed board
+	 * @param columns true to summarize columns, false for rows
+	 * @param first   position to read as if swapped with second, -1 for none
+	 * @param second  position to read as if swapped with first, -1 for none
+	 * @return packed summary
+	 */
+	private long summary(long[] board, boolean columns, int first, int second) {
+		long summary = 0;
+		int blankLine = 0;
+		for (int position = 0; position < size * size; ++position) {
+			int read = position == first ? second : position == second ? first : position;
+			int tile = Board.get(board, size, read);
+			int line = columns ? position % size : position / size;
+			if (tile == size * size - 1)
+				blankLine = line;
+			else
+				summary += 1L << (3 * (line * size + (columns ? tile % size : tile / size)));
+		}
+		return summary | (long) blankLine << (3 * size * size);
+	}
+
+	private long pack(int[][] counts, int blankRow) {
+		long summary = 0;
+		for (int row = 0; row < size; ++row)
+			for (int goalRow = 0; goalRow < size; ++goalRow)
+				summary |= (long) counts[row][goalRow] << (3 * (row * size + goalRow));
+		return summary | (long) blankRow << (3 * size * size);
+	}
+
+	// Fills counts from a packed summary and returns the row of the blank tile
+	private int unpack(long summary, int[][] counts) {
+		for (int row = 0; row < size; ++row)
+			for (int goalRow = 0; goalRow < size; ++goalRow)
+				counts[row][goalRow] = (int) (summary >>> (3 * (row * size + goalRow))) & 7;
+		return (int) (summary >>> (3 * size * size));
+	}
+
+	private int lookup(long summary) {
+		return distances[Arrays.binarySearch(keys, summary)];
+	}
+}
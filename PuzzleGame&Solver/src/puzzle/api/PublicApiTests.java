@@ -0,0 +1,59 @@
+package puzzle.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import puzzle.BatchResult;
+import puzzle.BatchSolver;
+import puzzle.Solution;
+import puzzle.Solver;
+
+/**
+ * Class holding JUnit 5 test cases that use the solver from outside its
+ * package, as other programs do, through its public classes only.
+ */
+class PublicApiTests {
+
+	private static final int[][] HARDEST = { { 8, 6, 7 }, { 2, 5, 4 }, { 3, 0, 1 } };
+
+	/**
+	 * Solves one of the hardest 8-puzzle positions with solvers made from
+	 * mode names and checks that the optimal ones find its 31 moves.
+	 *
+	 * @throws IOException if a heuristic cannot be loaded
+	 */
+	@Test
+	void solverTest() throws IOException {
+		for (String mode : new String[] { "ida", "astar", "bidirectional", "memory:16" }) {
+			Solution solution = Solver.forMode(mode, "linear", 3).solve(HARDEST);
+			assertEquals(31, solution.length(), mode + " should find the fewest moves!");
+			assertEquals(31, solution.getMoves().size(), mode + " listed the wrong number of moves!");
+		}
+		Solution weighted = Solver.forMode("weighted:2", null, 3).solve(HARDEST);
+		assertTrue(weighted.length() <= 62, "Weighted A* took more than twice the fewest moves!");
+		int[][] unsolvable = { { 2, 1, 3 }, { 4, 5, 6 }, { 7, 8, 0 } };
+		assertNull(Solver.forMode("ida", null, 3).solve(unsolvable), "Swapped tiles cannot be solved!");
+	}
+
+	/**
+	 * Solves a batch with a solver made from a mode name and checks the
+	 * results.
+	 *
+	 * @throws IOException if a heuristic cannot be loaded
+	 */
+	@Test
+	void batchTest() throws IOException {
+		int[][] easy = { { 1, 2, 3 }, { 4, 5, 6 }, { 7, 0, 8 } };
+		try (BatchSolver solver = new BatchSolver("ida", "linear", 3, 2)) {
+			List<BatchResult> results = solver.solveAll(List.of(HARDEST, easy).stream());
+			assertEquals(31, results.get(0).getLength(), "Hardest puzzle takes 31 moves!");
+			assertEquals(1, results.get(1).getLength(), "Easy puzzle takes one move!");
+		}
+	}
+}